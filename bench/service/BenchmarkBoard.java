@@ -0,0 +1,136 @@
+package service;
+
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Доска для бенчмарков: InMemoryTaskManager, заполненный напрямую через хранилища, как при загрузке из файла.
+// Через createTask доска из 10^6 задач строилась бы за O(n^2) из-за проверки пересечений.
+// Состав: каждый двадцатый элемент - эпик с 9 подзадачами, остальные - задачи.
+// Подзадачи всегда со временем (без него не работают calculateEpicStartTime/EndTime), доля задач со временем
+// задаётся распределением. Интервалы не пересекаются: между концом одной задачи и началом следующей есть зазор
+public class BenchmarkBoard extends InMemoryTaskManager {
+
+    public static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    public static final Duration SLOT = Duration.ofMinutes(30);
+
+    // Доля задач со временем: SPARSE - 10%, MIXED - 50%, DENSE - все
+    public enum Distribution {
+        SPARSE(10), MIXED(50), DENSE(100);
+
+        private final int timedPercent;
+
+        Distribution(int timedPercent) {
+            this.timedPercent = timedPercent;
+        }
+    }
+
+    private final List<Integer> taskIds = new ArrayList<>();
+    private final List<Integer> timedTaskIds = new ArrayList<>();
+    private final List<Integer> epicIds = new ArrayList<>();
+    private LocalDateTime nextFreeSlot = START;
+
+    public static BenchmarkBoard build(int size, Distribution distribution) {
+        return build(size, distribution, true);
+    }
+
+    // withEpics = false - доска только из задач (каждый двадцатый элемент тогда тоже обычная задача)
+    public static BenchmarkBoard build(int size, Distribution distribution, boolean withEpics) {
+        BenchmarkBoard board = new BenchmarkBoard();
+        int id = 0;
+        int taskNumber = 0;
+        while (id < size) {
+            if (withEpics && id % 20 == 0 && id + 10 <= size) {
+                Epic epic = new Epic(++id, "Эпик " + id, "Описание эпика", Status.NEW);
+                board.epics.put(epic.getId(), epic);
+                board.epicIds.add(epic.getId());
+                for (int i = 0; i < 9; i++) {
+                    Subtask subtask = new Subtask(++id, "Подзадача " + id, "Описание подзадачи",
+                            Status.values()[id % 3], board.takeSlot(), SLOT, epic.getId());
+                    board.subtasks.put(subtask.getId(), subtask);
+                    board.restorePrioritized(subtask);
+                    epic.addEpicSubtask(subtask.getId());
+                }
+            } else {
+                boolean timed = taskNumber++ % 100 < distribution.timedPercent;
+                Task task = timed
+                        ? new Task(++id, "Задача " + id, "Описание задачи", Status.NEW, board.takeSlot(), SLOT)
+                        : new Task(++id, "Задача " + id, "Описание задачи", Status.NEW);
+                board.tasks.put(task.getId(), task);
+                board.restorePrioritized(task);
+                board.taskIds.add(task.getId());
+                if (timed) {
+                    board.timedTaskIds.add(task.getId());
+                }
+            }
+        }
+        board.restoreIdCounter(id);
+        board.restoreIndexes();
+        return board;
+    }
+
+    // Следующий свободный интервал после всех запланированных задач
+    public LocalDateTime freeSlot() {
+        return nextFreeSlot;
+    }
+
+    // Время, занятое задачей из середины доски: создание с ним отклоняется после проверки пересечений
+    public LocalDateTime busySlot() {
+        Subtask subtask = subtasks.values().iterator().next();
+        return subtask.getStartTime();
+    }
+
+    public List<Integer> getTaskIds() {
+        return taskIds;
+    }
+
+    public List<Integer> getTimedTaskIds() {
+        return timedTaskIds;
+    }
+
+    public List<Integer> getEpicIds() {
+        return epicIds;
+    }
+
+    // Возврат удалённой задачи на место без проверки пересечений, чтобы размер доски не менялся между вызовами
+    public void restoreTask(Task task) {
+        tasks.put(task.getId(), task);
+        restorePrioritized(task);
+        markChanged(TaskStatus.TASK, task.getId(), ChangeType.CREATED);
+    }
+
+    public void restoreEpic(Epic epic, List<Subtask> epicSubtasks) {
+        epics.put(epic.getId(), epic);
+        markChanged(TaskStatus.EPIC, epic.getId(), ChangeType.CREATED);
+        for (Subtask subtask : epicSubtasks) {
+            subtasks.put(subtask.getId(), subtask);
+            restorePrioritized(subtask);
+            markChanged(TaskStatus.SUBTASK, subtask.getId(), ChangeType.CREATED);
+        }
+    }
+
+    public Task peekTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Epic peekEpic(int id) {
+        return epics.get(id);
+    }
+
+    public Subtask peekSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    private LocalDateTime takeSlot() {
+        LocalDateTime slot = nextFreeSlot;
+        nextFreeSlot = nextFreeSlot.plus(SLOT).plusMinutes(1); // соседние интервалы с общей границей пересекаются
+        return slot;
+    }
+}
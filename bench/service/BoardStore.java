@@ -0,0 +1,212 @@
+package service;
+
+import service.cache.TaskPageFile;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+// Формат хранения доски для PersistenceBenchmark. Методы возвращают объём записанных или прочитанных байт,
+// чтобы бенчмарк мог пересчитать его в МБ/с
+interface BoardStore extends AutoCloseable {
+
+    // Запись доски в исходное состояние хранилища
+    void open(BenchmarkBoard board) throws IOException;
+
+    // Полное сохранение всех задач
+    long saveAll();
+
+    // Изменение одной задачи и его сохранение
+    long saveOne(Task task);
+
+    // Холодная загрузка менеджера из файлов
+    TaskManager load();
+
+    // Разбор данных без построения менеджера; возвращает сумму id, чтобы JIT не выбросил разбор
+    long parse();
+
+    // Текущий объём данных на диске
+    long bytes();
+
+    @Override
+    void close();
+
+    // CSV-файл FileBackedTaskManager: любое изменение переписывает файл целиком
+    final class Csv implements BoardStore {
+
+        private final File file;
+        private FileBackedTaskManager manager;
+        private List<String> lines;
+
+        Csv(File directory) {
+            this.file = new File(directory, "tasks.csv");
+        }
+
+        @Override
+        public void open(BenchmarkBoard board) throws IOException {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+                writer.write("id,type,name,status,description,epic,localDateTime,duration\n");
+                for (Task task : board.getAllTask()) {
+                    writer.write(task.toFileString() + System.lineSeparator());
+                }
+                for (Epic epic : board.getAllEpic()) {
+                    writer.write(epic.toFileString() + System.lineSeparator());
+                }
+                for (Subtask subtask : board.getAllSubtask()) {
+                    writer.write(subtask.toFileString() + System.lineSeparator());
+                }
+            }
+            manager = FileBackedTaskManager.loadFromFile(file);
+            // toFileString уже заканчивается переводом строки, пустые строки loadFromFile пропускает - здесь тоже
+            lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).stream()
+                    .skip(1)
+                    .filter(line -> !line.isBlank())
+                    .toList();
+        }
+
+        @Override
+        public long saveAll() {
+            manager.save();
+            return file.length();
+        }
+
+        @Override
+        public long saveOne(Task task) {
+            manager.updateTask(task); // сохраняет файл сам
+            return file.length();
+        }
+
+        @Override
+        public TaskManager load() {
+            return FileBackedTaskManager.loadFromFile(file);
+        }
+
+        @Override
+        public long parse() {
+            long checksum = 0;
+            for (String line : lines) {
+                checksum += FileBackedTaskManager.parseTaskFromString(line).getId();
+            }
+            return checksum;
+        }
+
+        @Override
+        public long bytes() {
+            return file.length();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Файлы записей PagedTaskManager: запись дописывается в конец, сохраняются только изменённые задачи
+    final class Paged implements BoardStore {
+
+        private static final long CACHE_WEIGHT = 64L * 1024 * 1024;
+
+        private final File directory;
+        private final File[] files;
+        private final File[] snapshotFiles;
+        private BenchmarkBoard board;
+        private PagedTaskManager manager;
+
+        Paged(File directory) {
+            this.directory = directory;
+            this.files = files(directory);
+            // Полное сохранение пишется в отдельный каталог, чтобы не менять файлы под открытым менеджером
+            File snapshot = new File(directory, "snapshot");
+            snapshot.mkdir();
+            this.snapshotFiles = files(snapshot);
+        }
+
+        private static File[] files(File directory) {
+            return new File[]{new File(directory, "tasks.dat"), new File(directory, "epics.dat"),
+                    new File(directory, "subtasks.dat")};
+        }
+
+        @Override
+        public void open(BenchmarkBoard board) {
+            this.board = board;
+            writeAll(files, board);
+            manager = new PagedTaskManager(directory, CACHE_WEIGHT);
+        }
+
+        // Полная перезапись файлов: так записывается доска при переносе в этот формат
+        @Override
+        public long saveAll() {
+            writeAll(snapshotFiles, board);
+            long bytes = 0;
+            for (File file : snapshotFiles) {
+                bytes += file.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        public long saveOne(Task task) {
+            long before = bytes();
+            manager.updateTask(task);
+            manager.flush();
+            return bytes() - before;
+        }
+
+        @Override
+        public TaskManager load() {
+            manager.close();
+            manager = new PagedTaskManager(directory, CACHE_WEIGHT);
+            return manager;
+        }
+
+        @Override
+        public long parse() {
+            long checksum = 0;
+            for (File file : files) {
+                try (TaskPageFile pageFile = new TaskPageFile(file)) {
+                    for (int id : pageFile.ids()) {
+                        checksum += pageFile.read(id).getId();
+                    }
+                }
+            }
+            return checksum;
+        }
+
+        @Override
+        public long bytes() {
+            long bytes = 0;
+            for (File file : files) {
+                bytes += file.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (manager != null) {
+                manager.close();
+            }
+        }
+
+        private static void writeAll(File[] files, BenchmarkBoard board) {
+            writeAll(files[0], board.getAllTask());
+            writeAll(files[1], board.getAllEpic());
+            writeAll(files[2], board.getAllSubtask());
+        }
+
+        private static void writeAll(File file, Iterable<? extends Task> items) {
+            try (TaskPageFile pageFile = new TaskPageFile(file)) {
+                pageFile.clear();
+                for (Task task : items) {
+                    pageFile.write(task);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package service;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Сохранение и загрузка доски в каждом формате хранения (см. BoardStore):
+// полное сохранение, сохранение после одного изменения, холодная загрузка и чистый разбор уже прочитанных данных.
+// Файлы пишутся во временный каталог и удаляются после прогона.
+// Кроме операций в секунду выводятся счётчики megabytes (МБ/с) и entities (задач/с).
+// Выделение памяти на задачу - gc.alloc.rate.norm из -prof gc, делённый на size (для saveOne - на 1).
+// Новый формат хранения добавляется реализацией BoardStore и значением в @Param format.
+// Запуск: java -cp <классы>:<jmh> org.openjdk.jmh.Main PersistenceBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PersistenceBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"CSV", "PAGED"})
+    private String format;
+
+    private Path directory;
+    private BoardStore store;
+    private Task mutated;
+
+    // Объём и число задач, обработанных за операцию, в пересчёте на секунду
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Volume {
+
+        public double megabytes;
+        public long entities;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+            entities = 0;
+        }
+
+        void add(long bytes, long count) {
+            megabytes += bytes / 1_000_000.0;
+            entities += count;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("kanban-persistence");
+        // Только задачи со временем: Epic.toFileString берёт время из пустого вложенного менеджера и падает,
+        // а строку с временем "null" loadFromFile не разбирает. Оба формата пишут одинаковые данные
+        BenchmarkBoard board = BenchmarkBoard.build(size, BenchmarkBoard.Distribution.DENSE, false);
+        store = switch (format) {
+            case "CSV" -> new BoardStore.Csv(directory.toFile());
+            case "PAGED" -> new BoardStore.Paged(directory.toFile());
+            default -> throw new IllegalArgumentException("Неизвестный формат: " + format);
+        };
+        store.open(board);
+        mutated = board.peekTask(board.getTaskIds().get(board.getTaskIds().size() / 2));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long saveAll(Volume volume) {
+        long bytes = store.saveAll();
+        volume.add(bytes, size);
+        return bytes;
+    }
+
+    @Benchmark
+    public long saveOne(Volume volume) {
+        long bytes = store.saveOne(mutated);
+        volume.add(bytes, 1);
+        return bytes;
+    }
+
+    @Benchmark
+    public TaskManager load(Volume volume) {
+        TaskManager manager = store.load();
+        volume.add(store.bytes(), size);
+        return manager;
+    }
+
+    @Benchmark
+    public long parse(Volume volume) {
+        long checksum = store.parse();
+        volume.add(store.bytes(), size);
+        return checksum;
+    }
+}
@@ -0,0 +1,143 @@
+package service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути InMemoryTaskManager на досках от 10^2 до 10^6 элементов (см. BenchmarkBoard).
+// Изменяющие бенчмарки возвращают доску в исходное состояние в том же вызове, чтобы её размер не рос:
+// createTask/createSubtask удаляют созданное (удаление - O(n) из-за removeIf, того же порядка, что проверка
+// пересечений), removeTaskById/removeEpicById возвращают удалённое через BenchmarkBoard.restore* за O(log n).
+// Рост времени с размером доски показывает сложность операции: регрессию O(log n) -> O(n) видно сразу.
+// Полный прогон с профилировщиком памяти и сохранением отчёта для сравнения:
+// java -cp <классы>:<jmh> org.openjdk.jmh.Main TaskManagerBenchmark -prof gc -rf json -rff bench/results/task-manager.json
+// Быстрый прогон на части параметров: ... TaskManagerBenchmark -p size=100,10000 -p distribution=DENSE -prof gc
+// bench/results/task-manager-baseline.json - сводка такого прогона на размерах 100, 10000, 1000000 и распределениях
+// SPARSE и DENSE: среднее, погрешность и байт на операцию из полного отчёта JMH, без путей и сырых итераций
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class TaskManagerBenchmark {
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    private int size;
+
+    @Param({"SPARSE", "MIXED", "DENSE"})
+    private BenchmarkBoard.Distribution distribution;
+
+    private BenchmarkBoard board;
+    private Task freeTask;
+    private Task busyTask;
+    private Subtask freeSubtask;
+    private int epicId;
+    private int[] taskIds;
+    private int[] epicIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void buildBoard() {
+        board = BenchmarkBoard.build(size, distribution);
+        LocalDateTime free = board.freeSlot();
+        freeTask = new Task("Новая задача", "Описание", Status.NEW, free, BenchmarkBoard.SLOT);
+        busyTask = new Task("Занятая задача", "Описание", Status.NEW, board.busySlot(), BenchmarkBoard.SLOT);
+        epicId = board.getEpicIds().get(0);
+        freeSubtask = new Subtask("Новая подзадача", "Описание", Status.NEW, epicId, free, BenchmarkBoard.SLOT);
+        // удаляются задачи со временем: для них удаление проходит и по списку приоритетов
+        List<Integer> timed = board.getTimedTaskIds();
+        taskIds = (timed.isEmpty() ? board.getTaskIds() : timed).stream().mapToInt(Integer::intValue).toArray();
+        epicIds = board.getEpicIds().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Полная проверка пересечений (задача после всех остальных) и удаление созданной задачи
+    @Benchmark
+    public int createTask() {
+        int id = board.createTask(freeTask);
+        board.removeTaskById(id);
+        return id;
+    }
+
+    // Отказ из-за пересечения: проверка останавливается на первой пересекающейся задаче
+    @Benchmark
+    public int createTaskOverlapping() {
+        return board.createTask(busyTask);
+    }
+
+    @Benchmark
+    public int createSubtask() {
+        int id = board.createSubtask(freeSubtask);
+        board.removeSubtaskById(id);
+        return id;
+    }
+
+    @Benchmark
+    public int removeTaskById() {
+        int id = taskIds[next++ % taskIds.length];
+        Task task = board.peekTask(id);
+        int result = board.removeTaskById(id);
+        board.restoreTask(task);
+        return result;
+    }
+
+    @Benchmark
+    public int removeEpicById() {
+        int id = epicIds[next++ % epicIds.length];
+        Epic epic = board.peekEpic(id);
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        for (int subtaskId : epic.getEpicSubtask()) {
+            epicSubtasks.add(board.peekSubtask(subtaskId));
+        }
+        int result = board.removeEpicById(id);
+        board.restoreEpic(epic, epicSubtasks);
+        return result;
+    }
+
+    @Benchmark
+    public Epic updateEpicStatus() {
+        int id = epicIds[next++ % epicIds.length];
+        board.updateEpicStatus(id);
+        return board.peekEpic(id);
+    }
+
+    @Benchmark
+    public LocalDateTime epicStartTime() {
+        return board.calculateEpicStartTime();
+    }
+
+    @Benchmark
+    public LocalDateTime epicEndTime() {
+        return board.calculateEpicEndTime();
+    }
+
+    @Benchmark
+    public Duration epicDuration() {
+        return board.getDuration();
+    }
+
+    @Benchmark
+    public Collection<Task> getPrioritizedTasks() {
+        return board.getPrioritizedTasks();
+    }
+}
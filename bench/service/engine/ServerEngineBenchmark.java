@@ -0,0 +1,106 @@
+package service.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+import service.cache.ResponseCache;
+import service.handler.AdmissionController;
+import service.handler.ResponseCompression;
+import task.Status;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение HTTP-движков на одних и тех же обработчиках: com.sun HttpServer и NioServerEngine.
+// Каждый поток бенчмарка - отдельный клиент с keep-alive соединением.
+// Запуск: java -cp <классы>:<jmh> org.openjdk.jmh.Main ServerEngineBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class ServerEngineBenchmark {
+
+    private static final int PORT = 8090;
+
+    @Param({"sun", "nio"})
+    private String engine;
+
+    @Param({"20"})
+    private int tasks;
+
+    private HttpTaskServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        TaskManager manager = new InMemoryTaskManager();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание " + i, Status.NEW,
+                    start.plusHours(i), Duration.ofMinutes(30)));
+        }
+        ServerEngine serverEngine = engine.equals("nio") ? new NioServerEngine() : new SunHttpServerEngine(true);
+        // без кэша ответов и со снятыми лимитами: сравниваются движки, а не кэш и допуск запросов
+        server = HttpTaskServer.builder(PORT, manager)
+                .backlog(1024)
+                .compression(ResponseCompression.disabled())
+                .responseCache(new ResponseCache(0, 0))
+                .admission(AdmissionController.unlimited())
+                .engine(serverEngine)
+                .build();
+        server.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private HttpClient client;
+        private HttpRequest list;
+        private HttpRequest byId;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            list = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/tasks/task")).GET().build();
+            byId = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/tasks/task/1")).GET().build();
+        }
+    }
+
+    @Benchmark
+    public int getTaskList(Client client) throws IOException, InterruptedException {
+        return client.client.send(client.list, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+
+    @Benchmark
+    public int getTaskById(Client client) throws IOException, InterruptedException {
+        return client.client.send(client.byId, HttpResponse.BodyHandlers.ofByteArray()).body().length;
+    }
+}
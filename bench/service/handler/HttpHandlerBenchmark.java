@@ -0,0 +1,227 @@
+package service.handler;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.SynchronizedTaskManager;
+import service.TaskManager;
+import service.load.BoardGenerator;
+import task.Epic;
+import task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Обработчики TaskHandler, EpicHandler и HistoryHandler без сети: запрос проходит через Router
+// и StubHttpExchange, ответ пишется в память. Сжатие и кэш ответов выключены, чтобы каждый вызов
+// действительно сериализовал ответ.
+// Для каждого запроса есть полный путь (*EndToEnd) и его этапы по отдельности:
+// разбор тела (*Parse), работа менеджера (*Manager), сериализация в JSON (*Serialize) и запись готовых байт (*Write).
+// Разница между полным путём и суммой этапов - накладные расходы маршрутизации, заголовков и метрик.
+// Запуск: java -cp <классы>:<jmh> org.openjdk.jmh.Main HttpHandlerBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpHandlerBenchmark {
+
+    @Param({"100", "1000"})
+    private int tasks;
+
+    private final Gson gson = Managers.getGson();
+    private TaskManager manager;
+    private Router router;
+    private int taskId;
+    private int epicId;
+    private Task task;
+    private Epic epic;
+    private byte[] updateBody;
+    private byte[] taskBytes;
+    private byte[] listBytes;
+    private StubHttpExchange getTask;
+    private StubHttpExchange getTasks;
+    private StubHttpExchange postTask;
+    private StubHttpExchange getEpic;
+    private StubHttpExchange getHistory;
+    private StubHttpExchange write;
+
+    @Setup
+    public void setup() {
+        // доска из tasks задач и одного эпика; при skew 0.01 у эпика почти всегда maxSubtasks = 10 подзадач.
+        // id задач идут с 1, эпик - сразу за ними
+        InMemoryTaskManager board = new InMemoryTaskManager();
+        new BoardGenerator(1, tasks, 1, 10, 0.01, 400).fill(board);
+        manager = new SynchronizedTaskManager(board);
+        epicId = tasks + 1;
+        taskId = 1;
+        task = manager.getByIdTask(taskId).orElseThrow();
+        epic = manager.getByIdEpic(epicId).orElseThrow();
+        for (Task each : manager.getAllTask()) { // история из tasks задач
+            manager.getByIdTask(each.getId());
+        }
+
+        ResponseCompression compression = ResponseCompression.disabled();
+        router = new Router();
+        new TaskHandler(manager, gson, compression, null).registerRoutes(router);
+        new EpicHandler(manager, gson, compression, null).registerRoutes(router);
+        new HistoryHandler(manager, gson, compression).registerRoutes(router);
+
+        // обновление без изменения времени: проверка пересечений проходит, размер доски не меняется
+        updateBody = gson.toJson(task).getBytes(StandardCharsets.UTF_8);
+        taskBytes = updateBody;
+        listBytes = gson.toJson(manager.getAllTask()).getBytes(StandardCharsets.UTF_8);
+        getTask = new StubHttpExchange("GET", "/tasks/task/" + taskId);
+        getTasks = new StubHttpExchange("GET", "/tasks/task");
+        postTask = new StubHttpExchange("POST", "/tasks/task", updateBody);
+        getEpic = new StubHttpExchange("GET", "/tasks/epic/" + epicId);
+        getHistory = new StubHttpExchange("GET", "/tasks/history");
+        write = new StubHttpExchange("GET", "/tasks/task");
+    }
+
+    // GET /tasks/task/{id}
+
+    @Benchmark
+    public int taskByIdEndToEnd() throws IOException {
+        router.handle(getTask.reset());
+        return getTask.getResponseLength();
+    }
+
+    @Benchmark
+    public Task taskByIdManager() {
+        return manager.getByIdTask(taskId).orElseThrow();
+    }
+
+    @Benchmark
+    public void taskByIdSerialize() throws IOException {
+        serialize(task);
+    }
+
+    @Benchmark
+    public int taskByIdWrite() throws IOException {
+        return writeBytes(taskBytes);
+    }
+
+    // GET /tasks/task
+
+    @Benchmark
+    public int taskListEndToEnd() throws IOException {
+        router.handle(getTasks.reset());
+        return getTasks.getResponseLength();
+    }
+
+    @Benchmark
+    public Collection<Task> taskListManager() {
+        return manager.getAllTask();
+    }
+
+    @Benchmark
+    public void taskListSerialize() throws IOException {
+        serializeArray(manager.getAllTask());
+    }
+
+    @Benchmark
+    public int taskListWrite() throws IOException {
+        return writeBytes(listBytes);
+    }
+
+    // POST /tasks/task (обновление)
+
+    @Benchmark
+    public int updateTaskEndToEnd() throws IOException {
+        router.handle(postTask.reset());
+        return postTask.getResponseCode();
+    }
+
+    @Benchmark
+    public Task updateTaskParse() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(updateBody),
+                StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Task.class);
+        }
+    }
+
+    @Benchmark
+    public int updateTaskManager() {
+        return manager.updateTask(task);
+    }
+
+    // GET /tasks/epic/{id}
+
+    @Benchmark
+    public int epicByIdEndToEnd() throws IOException {
+        router.handle(getEpic.reset());
+        return getEpic.getResponseLength();
+    }
+
+    @Benchmark
+    public void epicByIdSerialize() throws IOException {
+        serialize(epic);
+    }
+
+    // GET /tasks/history
+
+    @Benchmark
+    public int historyEndToEnd() throws IOException {
+        router.handle(getHistory.reset());
+        return getHistory.getResponseLength();
+    }
+
+    @Benchmark
+    public List<Task> historyManager() {
+        return manager.getHistory();
+    }
+
+    @Benchmark
+    public void historySerialize() throws IOException {
+        serializeArray(manager.getHistory());
+    }
+
+    // Сериализация без ввода-вывода: JsonWriter поверх Writer, отбрасывающего символы
+    private void serialize(Object value) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(Writer.nullWriter())) {
+            gson.toJson(value, value.getClass(), writer);
+        }
+    }
+
+    private void serializeArray(Iterable<?> items) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(Writer.nullWriter())) {
+            writer.beginArray();
+            for (Object item : items) {
+                gson.toJson(item, item.getClass(), writer);
+            }
+            writer.endArray();
+        }
+    }
+
+    // Запись готового тела так же, как BaseHttpHandler.sendBytes без сжатия
+    private int writeBytes(byte[] body) throws IOException {
+        StubHttpExchange exchange = write.reset();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+        return exchange.getResponseLength();
+    }
+}
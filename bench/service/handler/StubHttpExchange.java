@@ -0,0 +1,153 @@
+package service.handler;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+// HttpExchange без сети для бенчмарков обработчиков: запрос задаётся методом, путём и телом,
+// ответ пишется в память. Один объект переиспользуется между вызовами через reset()
+public class StubHttpExchange extends HttpExchange {
+
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("localhost", 8080);
+
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final ByteArrayOutputStream response = new ByteArrayOutputStream(64 * 1024);
+    private String method;
+    private URI uri;
+    private byte[] requestBody = new byte[0];
+    private InputStream requestStream;
+    private OutputStream responseStream;
+    private int responseCode;
+
+    public StubHttpExchange(String method, String path) {
+        this(method, path, new byte[0]);
+    }
+
+    public StubHttpExchange(String method, String path, byte[] body) {
+        reset(method, path, body);
+    }
+
+    // Подготовка к следующему запросу
+    public StubHttpExchange reset(String method, String path, byte[] body) {
+        this.method = method;
+        this.uri = URI.create(path);
+        this.requestBody = body;
+        return reset();
+    }
+
+    // Повтор того же запроса
+    public StubHttpExchange reset() {
+        requestHeaders.clear();
+        responseHeaders.clear();
+        response.reset();
+        requestStream = new ByteArrayInputStream(requestBody);
+        responseStream = response;
+        responseCode = -1;
+        return this;
+    }
+
+    public int getResponseLength() {
+        return response.size();
+    }
+
+    public byte[] getResponseBytes() {
+        return response.toByteArray();
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestStream;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseStream;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        this.responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return ADDRESS;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return ADDRESS;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestStream = i;
+        }
+        if (o != null) {
+            responseStream = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+}
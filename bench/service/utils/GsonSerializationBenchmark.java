@@ -0,0 +1,103 @@
+package service.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.Managers;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение сериализации списка задач: рукописные адаптеры (Managers.getGson()) против рефлексии Gson.
+// Эпики в сравнение не входят: рефлексивный Gson не может сериализовать вложенный в Epic менеджер.
+// Запуск с профилировщиком аллокаций:
+// java -cp <классы>:<jmh> org.openjdk.jmh.Main GsonSerializationBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonSerializationBenchmark {
+
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() { }.getType();
+    private static final Type SUBTASK_LIST = new TypeToken<List<Subtask>>() { }.getType();
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private Gson handWritten;
+    private Gson reflective;
+    private List<Task> tasks;
+    private List<Subtask> subtasks;
+    private String tasksJson;
+    private String subtasksJson;
+
+    @Setup
+    public void setup() {
+        handWritten = Managers.getGson();
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationAdapter()).serializeNulls().create();
+        tasks = new ArrayList<>();
+        subtasks = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Task(i, "Задача " + i, "Описание задачи " + i, Status.values()[i % 3],
+                    start.plusHours(i), Duration.ofMinutes(30)));
+            subtasks.add(new Subtask(size + i, "Подзадача " + i, "Описание подзадачи " + i, Status.NEW,
+                    start.plusHours(i), Duration.ofMinutes(15), i % 10));
+        }
+        // Один и тот же JSON для обоих вариантов: рефлексия игнорирует поле "type"
+        tasksJson = handWritten.toJson(tasks, TASK_LIST);
+        subtasksJson = handWritten.toJson(subtasks, SUBTASK_LIST);
+    }
+
+    @Benchmark
+    public String serializeHandWritten() {
+        return handWritten.toJson(tasks, TASK_LIST);
+    }
+
+    @Benchmark
+    public String serializeReflective() {
+        return reflective.toJson(tasks, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Task> deserializeHandWritten() {
+        return handWritten.fromJson(tasksJson, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Task> deserializeReflective() {
+        return reflective.fromJson(tasksJson, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Subtask> deserializeSubtasksHandWritten() {
+        return handWritten.fromJson(subtasksJson, SUBTASK_LIST);
+    }
+
+    @Benchmark
+    public List<Subtask> deserializeSubtasksReflective() {
+        return reflective.fromJson(subtasksJson, SUBTASK_LIST);
+    }
+}
@@ -0,0 +1,146 @@
+package service.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.Managers;
+import service.load.BoardGenerator;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация и разбор JSON через Managers.getGson() для каждого типа задачи: одна задача и список из size задач.
+// Данные - доска BoardGenerator с описаниями около 400 символов.
+// У эпика в списке подзадач до epicSubtasks идентификаторов, поэтому размер эпика в JSON растёт вместе с ним.
+// Сравнение с рефлексией Gson - в GsonSerializationBenchmark.
+// Запуск: java -cp <классы>:<jmh> org.openjdk.jmh.Main TaskJsonBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskJsonBenchmark {
+
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() { }.getType();
+    private static final Type EPIC_LIST = new TypeToken<List<Epic>>() { }.getType();
+    private static final Type SUBTASK_LIST = new TypeToken<List<Subtask>>() { }.getType();
+
+    @Param({"1", "100", "1000"})
+    private int size;
+
+    @Param({"10"})
+    private int epicSubtasks;
+
+    private final Gson gson = Managers.getGson();
+    private List<Task> tasks;
+    private List<Epic> epics;
+    private List<Subtask> subtasks;
+    private String taskJson;
+    private String epicJson;
+    private String subtaskJson;
+    private String tasksJson;
+    private String epicsJson;
+    private String subtasksJson;
+
+    @Setup
+    public void setup() throws IOException {
+        tasks = new ArrayList<>();
+        epics = new ArrayList<>();
+        subtasks = new ArrayList<>();
+        // при skew 0.01 у эпика почти всегда epicSubtasks подзадач; подзадач на доске больше size, в список идут первые
+        new BoardGenerator(1, size, size, epicSubtasks, 0.01, 400).generate(item -> {
+            if (item instanceof Epic epic) {
+                epics.add(epic);
+            } else if (item instanceof Subtask subtask) {
+                if (subtasks.size() < size) {
+                    subtasks.add(subtask);
+                }
+            } else {
+                tasks.add(item);
+            }
+        });
+        taskJson = gson.toJson(tasks.get(0));
+        epicJson = gson.toJson(epics.get(0));
+        subtaskJson = gson.toJson(subtasks.get(0));
+        tasksJson = gson.toJson(tasks, TASK_LIST);
+        epicsJson = gson.toJson(epics, EPIC_LIST);
+        subtasksJson = gson.toJson(subtasks, SUBTASK_LIST);
+    }
+
+    @Benchmark
+    public String serializeTask() {
+        return gson.toJson(tasks.get(0));
+    }
+
+    @Benchmark
+    public String serializeEpic() {
+        return gson.toJson(epics.get(0));
+    }
+
+    @Benchmark
+    public String serializeSubtask() {
+        return gson.toJson(subtasks.get(0));
+    }
+
+    @Benchmark
+    public Task deserializeTask() {
+        return gson.fromJson(taskJson, Task.class);
+    }
+
+    @Benchmark
+    public Epic deserializeEpic() {
+        return gson.fromJson(epicJson, Epic.class);
+    }
+
+    @Benchmark
+    public Subtask deserializeSubtask() {
+        return gson.fromJson(subtaskJson, Subtask.class);
+    }
+
+    @Benchmark
+    public String serializeTaskList() {
+        return gson.toJson(tasks, TASK_LIST);
+    }
+
+    @Benchmark
+    public String serializeEpicList() {
+        return gson.toJson(epics, EPIC_LIST);
+    }
+
+    @Benchmark
+    public String serializeSubtaskList() {
+        return gson.toJson(subtasks, SUBTASK_LIST);
+    }
+
+    @Benchmark
+    public List<Task> deserializeTaskList() {
+        return gson.fromJson(tasksJson, TASK_LIST);
+    }
+
+    @Benchmark
+    public List<Epic> deserializeEpicList() {
+        return gson.fromJson(epicsJson, EPIC_LIST);
+    }
+
+    @Benchmark
+    public List<Subtask> deserializeSubtaskList() {
+        return gson.fromJson(subtasksJson, SUBTASK_LIST);
+    }
+}
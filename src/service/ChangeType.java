@@ -0,0 +1,8 @@
+package service;
+
+// Вид изменения задачи в менеджере
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
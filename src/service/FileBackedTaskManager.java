@@ -1,6 +1,9 @@
 package service;
 
+import service.archive.ArchivePolicy;
 import service.exception.ManagerSaveException;
+import service.jfr.TaskFileLoadEvent;
+import service.jfr.TaskFileSaveEvent;
 import task.*;
 
 import java.io.*;
@@ -12,6 +15,9 @@ import java.util.*;
 public class FileBackedTaskManager extends InMemoryTaskManager {
     private File file;
 
+    // Во время пакетных операций файл сохраняется один раз в конце, а не после каждого изменения
+    private boolean saveSuspended;
+
     public FileBackedTaskManager(File file) {
         if (file == null || !file.exists()) {
             handleUserFileChoice();
@@ -20,6 +26,8 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public void save() {
+        TaskFileSaveEvent event = new TaskFileSaveEvent();
+        event.begin();
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             writer.write("id,type,name,status,description,epic,localDateTime,duration\n");
             writeTasks(writer, getAllTask());
@@ -29,6 +37,20 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка при сохранении файла");
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.entities = tasks.size() + epics.size() + subtasks.size();
+            event.commit();
+        }
+    }
+
+    // Сохранение после изменения, если оно не отложено пакетной операцией
+    private void autoSave() {
+        if (!saveSuspended) {
+            save();
+        }
     }
 
     private File handleUserFileChoice() {
@@ -82,6 +104,9 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
             throw new ManagerSaveException("Ошибка, файл пуст");
         }
 
+        TaskFileLoadEvent event = new TaskFileLoadEvent();
+        event.begin();
+        int skipped = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             // не читаем 1 строку, т.к там нет нужной инфы
             reader.readLine();
@@ -101,12 +126,23 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                         FileBackedTaskManager.tasks.put(task.getId(), task);
                     }
                 } catch (IllegalArgumentException e) {
+                    skipped++;
                     e.printStackTrace();
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        FileBackedTaskManager.restoreIndexes();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = file.getPath();
+            event.bytes = file.length();
+            event.entities = FileBackedTaskManager.tasks.size() + FileBackedTaskManager.epics.size()
+                    + FileBackedTaskManager.subtasks.size();
+            event.skipped = skipped;
+            event.commit();
+        }
         return FileBackedTaskManager;
     }
 
@@ -116,7 +152,8 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
-    private static Task parseTaskFromString(String line) {
+    // Разбор одной строки файла. Доступен в пакете, чтобы разбор можно было измерить отдельно от чтения
+    static Task parseTaskFromString(String line) {
         String[] arrayString = line.split(",");
 
         int id = Integer.parseInt(arrayString[0]);
@@ -142,11 +179,27 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         return null;
     }
 
+    // Пакетное создание с одним сохранением файла на весь пакет
+    @Override
+    public List<Integer> createAll(List<? extends Task> items) {
+        saveSuspended = true;
+        List<Integer> result;
+        try {
+            result = super.createAll(items);
+        } finally {
+            saveSuspended = false;
+        }
+        if (result.stream().anyMatch(id -> id > 0)) {
+            save();
+        }
+        return result;
+    }
+
     @Override
     public int createEpic(Epic epic) {
         int result = super.createEpic(epic);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -155,7 +208,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int createTask(Task task) {
         int result = super.createTask(task);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -164,7 +217,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int createSubtask(Subtask subtask) {
         int result = super.createSubtask(subtask);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -173,7 +226,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int updateTask(Task task) {
         int result = super.updateTask(task);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -182,7 +235,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int updateEpic(Epic epic) {
         int result = super.updateEpic(epic);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -191,7 +244,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int updateSubtask(Subtask subtask) {
         int result = super.updateSubtask(subtask);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -200,7 +253,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int removeTaskById(int id) {
         int result = super.removeTaskById(id);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -209,7 +262,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int removeEpicById(int id) {
         int result = super.removeEpicById(id);
         if (result > 0) {
-            save();
+            autoSave();
         }
         return result;
     }
@@ -218,7 +271,16 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     public int removeSubtaskById(int id) {
         int result = super.removeSubtaskById(id);
         if (result > 0) {
-            save();
+            autoSave();
+        }
+        return result;
+    }
+
+    @Override
+    public int archiveCompleted(ArchivePolicy policy, LocalDateTime now) {
+        int result = super.archiveCompleted(policy, now);
+        if (result > 0) {
+            autoSave();
         }
         return result;
     }
@@ -226,18 +288,18 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     @Override
     public void removeTasks() {
         super.removeTasks();
-        save();
+        autoSave();
     }
 
     @Override
     public void removeEpics() {
         super.removeEpics();
-        save();
+        autoSave();
     }
 
     @Override
     public void removeSubtasks() {
         super.removeSubtasks();
-        save();
+        autoSave();
     }
 }
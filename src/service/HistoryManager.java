@@ -11,4 +11,7 @@ public interface HistoryManager {
     int removeIdByHistoryMap(int id);
 
     List<Task> getHistoryList();
+
+    // Число задач в истории
+    int getHistorySize();
 }
@@ -3,45 +3,268 @@ package service;
 import com.google.gson.Gson;
 
 import com.google.gson.GsonBuilder;
-import com.sun.net.httpserver.HttpServer;
+import service.cache.ResponseCache;
+import service.engine.ServerEngine;
+import service.events.ChangeEventBus;
+import service.engine.SunHttpServerEngine;
+import service.metrics.HeapFootprint;
+import service.metrics.HttpMetrics;
+import service.replay.TrafficRecorder;
+import service.handler.AdmissionController;
+import service.handler.ChangesHandler;
 import service.handler.EpicHandler;
+import service.handler.EventsHandler;
 import service.handler.HistoryHandler;
+import service.handler.MetricsHandler;
+import service.handler.PrioritizedHandler;
+import service.handler.ResponseCompression;
+import service.handler.Router;
 import service.handler.SubtaskHandler;
 import service.handler.TaskHandler;
 import service.utils.DurationAdapter;
 import service.utils.LocalDateTimeAdapter;
+import service.utils.ServerExecutors;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class HttpTaskServer {
 
+    // Количество соединений, ожидающих приёма, по умолчанию
+    public static final int DEFAULT_BACKLOG = 128;
+
+    // Кэш ответов по умолчанию: 16 МБ, ответы больше 1 МБ не кэшируются
+    private static final long DEFAULT_RESPONSE_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final int DEFAULT_RESPONSE_CACHE_ENTRY_BYTES = 1024 * 1024;
+
+    // Журнал изменений для /tasks/events и /tasks/changes: 4096 последних событий, до 256 событий в очереди подписчика
+    private static final int EVENT_LOG_CAPACITY = 4096;
+    private static final int EVENT_SUBSCRIBER_CAPACITY = 256;
+    // Подписчиков событий не больше четверти потоков ограниченного пула и не больше 64 в любом случае
+    private static final int MAX_EVENT_SUBSCRIBERS = 64;
+    private static final long EVENT_HEARTBEAT_MILLIS = 15_000;
+
     private final int port;
+    private final int backlog;
+    private final ExecutorService executor;
+    private final ResponseCompression compression;
+    private final ResponseCache responseCache;
+    private final AdmissionController admission;
+    private final ServerEngine engine;
+    private final ChangeEventBus eventBus;
+    private final HttpMetrics metrics = new HttpMetrics();
+    private final InstrumentedTaskManager instrumented;
+    private final HeapFootprint heapFootprint;
+    private final TrafficRecorder trafficRecorder = new TrafficRecorder();
     private TaskManager taskManager = Managers.getDefaultTaskManager();
-    private HttpServer httpServer;
+    private boolean started;
     private Gson gson;
 
+    // По умолчанию каждый запрос выполняется в отдельном виртуальном потоке,
+    // остальные параметры сервера задаются через builder
     public HttpTaskServer(int port, TaskManager taskManager) {
+        this(builder(port, taskManager));
+    }
+
+    // Обработчики работают параллельно, поэтому менеджер оборачивается в SynchronizedTaskManager
+    private HttpTaskServer(Builder builder) {
+        int port = builder.port;
+        TaskManager taskManager = builder.taskManager;
+        ExecutorService executor = builder.executor != null ? builder.executor : ServerExecutors.virtualThreads();
+        int backlog = builder.backlog;
+        ResponseCompression compression = builder.compression;
+        ResponseCache responseCache = builder.responseCache != null
+                ? builder.responseCache
+                : new ResponseCache(DEFAULT_RESPONSE_CACHE_BYTES, DEFAULT_RESPONSE_CACHE_ENTRY_BYTES);
+        AdmissionController admission = builder.admission;
+        ServerEngine engine = builder.engine != null ? builder.engine : new SunHttpServerEngine();
         this.port = port;
-        this.taskManager = taskManager;
+        // InstrumentedTaskManager поверх SynchronizedTaskManager уже потокобезопасен: повторно не оборачиваем
+        this.instrumented = taskManager instanceof InstrumentedTaskManager manager ? manager : null;
+        this.taskManager = isThreadSafe(taskManager)
+                ? taskManager
+                : new SynchronizedTaskManager(taskManager);
+        this.executor = executor;
+        this.backlog = backlog;
+        this.compression = compression;
+        this.responseCache = responseCache;
+        this.admission = admission;
+        this.engine = engine;
+        this.heapFootprint = findHeapFootprint(taskManager);
+        heapFootprint.trackCache(HeapFootprint.Category.RESPONSE_CACHE, responseCache::getStats,
+                ResponseCache.entryOverheadBytes());
+        this.taskManager.addChangeListener(responseCache::onChange);
+        this.eventBus = new ChangeEventBus(this.taskManager.getVersion(), EVENT_LOG_CAPACITY,
+                EVENT_SUBSCRIBER_CAPACITY, maxEventSubscribers(executor, admission));
+        this.taskManager.addChangeListener(eventBus);
         gson = Managers.getGson();
     }
 
+    public static Builder builder(int port, TaskManager taskManager) {
+        return new Builder(port, taskManager);
+    }
+
+    // Параметры сервера; не заданные явно берутся по умолчанию
+    public static final class Builder {
+
+        private final int port;
+        private final TaskManager taskManager;
+        private ExecutorService executor;
+        private int backlog = DEFAULT_BACKLOG;
+        private ResponseCompression compression = ResponseCompression.defaults();
+        private ResponseCache responseCache;
+        private AdmissionController admission = AdmissionController.defaults();
+        private ServerEngine engine;
+
+        private Builder(int port, TaskManager taskManager) {
+            this.port = port;
+            this.taskManager = taskManager;
+        }
+
+        // Выполняет обработчики запросов; останавливается вместе с сервером
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        // Размер очереди соединений, ожидающих приёма
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        // Порог и уровень gzip-сжатия ответов, через него же доступны метрики сжатия
+        public Builder compression(ResponseCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        // Кэш готовых ответов на GET, сбрасывается при изменениях в менеджере
+        public Builder responseCache(ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        // Ограничение одновременных запросов на чтение и запись, лишние получают 503
+        public Builder admission(AdmissionController admission) {
+            this.admission = admission;
+            return this;
+        }
+
+        // HTTP-движок: SunHttpServerEngine (com.sun.net.httpserver) или NioServerEngine
+        public Builder engine(ServerEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        public HttpTaskServer build() {
+            return new HttpTaskServer(this);
+        }
+    }
+
+    // Подписка держит поток обработчика, поэтому подписчики не должны занимать заметную часть пула
+    private static int maxEventSubscribers(ExecutorService executor, AdmissionController admission) {
+        int limit = Math.min(MAX_EVENT_SUBSCRIBERS, admission.getStreams().getLimit());
+        if (executor instanceof ThreadPoolExecutor pool) {
+            limit = Math.min(limit, Math.max(1, pool.getMaximumPoolSize() / 4));
+        }
+        return limit;
+    }
+
+    private static boolean isThreadSafe(TaskManager taskManager) {
+        if (taskManager instanceof InstrumentedTaskManager instrumented) {
+            return instrumented.getDelegate() instanceof SynchronizedTaskManager;
+        }
+        return taskManager instanceof SynchronizedTaskManager;
+    }
+
+    // Учёт памяти ведёт менеджер в памяти под обёртками; для других менеджеров учитывается только кэш ответов
+    private static HeapFootprint findHeapFootprint(TaskManager taskManager) {
+        TaskManager current = taskManager;
+        while (true) {
+            if (current instanceof InMemoryTaskManager manager) {
+                return manager.getHeapFootprint();
+            } else if (current instanceof InstrumentedTaskManager manager) {
+                current = manager.getDelegate();
+            } else if (current instanceof SynchronizedTaskManager manager) {
+                current = manager.getDelegate();
+            } else {
+                return new HeapFootprint();
+            }
+        }
+    }
+
     public void start() throws IOException {
-        httpServer = HttpServer.create(new InetSocketAddress(port), 0);
-        httpServer.createContext("/tasks/task", new TaskHandler(taskManager, gson));
-        httpServer.createContext("/tasks/epic", new EpicHandler(taskManager, gson));
-        httpServer.createContext("/tasks/subtask", new SubtaskHandler(taskManager, gson));
-        httpServer.createContext("/tasks/history", new HistoryHandler(taskManager, gson));
-        httpServer.start();
-        System.out.println("Сервер запущен на порту: " + port);
+        // Поток событий долгоживущий и не должен занимать место в лимите запросов, поэтому идёт мимо
+        // ограничителей чтения и записи и учитывается отдельным лимитом потоков (admission.protectStream).
+        // Метрики тоже отдаются в обход ограничений: они нужны именно при перегрузке.
+        // В журнал трафика попадают запросы к API, включая отклонённые admission; события и метрики - нет
+        Router router = new Router(metrics);
+        new EventsHandler(taskManager, gson, eventBus, EVENT_HEARTBEAT_MILLIS, admission).registerRoutes(router);
+        new MetricsHandler(taskManager, gson, metrics, admission, instrumented, heapFootprint).registerRoutes(router);
+        router.fallback(trafficRecorder.wrap(admission.protect(createRouter())));
+        engine.start(port, backlog, router, executor);
+        started = true;
+        System.out.println("Сервер запущен на порту: " + port + " (движок " + engine.getName() + ")");
+    }
+
+    // Все маршруты сервера в одной таблице: один контекст вместо отдельного на каждую сущность
+    private Router createRouter() {
+        Router router = new Router(metrics);
+        new TaskHandler(taskManager, gson, compression, responseCache).registerRoutes(router);
+        new EpicHandler(taskManager, gson, compression, responseCache).registerRoutes(router);
+        new SubtaskHandler(taskManager, gson, compression, responseCache).registerRoutes(router);
+        new HistoryHandler(taskManager, gson, compression).registerRoutes(router);
+        new PrioritizedHandler(taskManager, gson, compression).registerRoutes(router);
+        new ChangesHandler(taskManager, gson, compression, eventBus).registerRoutes(router);
+        return router;
+    }
+
+    public ResponseCompression getCompression() {
+        return compression;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Оценка памяти данных менеджера и кэша ответов, мягкие лимиты задаются через неё
+    public HeapFootprint getHeapFootprint() {
+        return heapFootprint;
+    }
+
+    public ChangeEventBus getEventBus() {
+        return eventBus;
+    }
+
+    // Запись трафика для воспроизведения (TrafficReplayer), включается через start
+    public TrafficRecorder getTrafficRecorder() {
+        return trafficRecorder;
     }
 
     public void stop() {
-        if (httpServer != null) {
-            httpServer.stop(0); // 0 означает немедленную остановку
+        if (started) {
+            started = false;
+            eventBus.closeAll();
+            try {
+                trafficRecorder.stop();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            engine.stop();
+            executor.shutdown();
             System.out.println("HTTP task server stopped.");
         }
     }
@@ -51,6 +274,34 @@ public class HttpTaskServer {
         int port = 8080;
         TaskManager taskManager = new InMemoryTaskManager();
         HttpTaskServer server = new HttpTaskServer(port, taskManager);
+
+        // --record=<файл>: запись трафика для TrafficReplayer; журнал закрывается при остановке JVM.
+        // --heap-limit=<размер>: мягкий лимит общей оценки памяти, --heap-limit-<категория>=<размер> - одной категории.
+        // Параметры применяются до запуска: при ошибке сервер не запускается
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("--heap-limit=")) {
+                    server.getHeapFootprint().setTotalSoftLimit(
+                            HeapFootprint.parseBytes(arg.substring("--heap-limit=".length())));
+                } else if (arg.startsWith("--heap-limit-")) {
+                    int eq = arg.indexOf('=');
+                    if (eq < 0) {
+                        throw new IllegalArgumentException("Не указан размер: " + arg);
+                    }
+                    server.getHeapFootprint().setSoftLimit(
+                            HeapFootprint.Category.byKey(arg.substring("--heap-limit-".length(), eq)),
+                            HeapFootprint.parseBytes(arg.substring(eq + 1)));
+                } else if (arg.startsWith("--record=")) {
+                    server.getTrafficRecorder().start(new FileOutputStream(arg.substring("--record=".length())), true);
+                    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+                } else {
+                    throw new IllegalArgumentException("Неизвестный аргумент: " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage() + "\n" + usage());
+            return;
+        }
         server.start();
 
         // Пример остановки сервера через некоторое время (для демонстрации)
@@ -61,4 +312,14 @@ public class HttpTaskServer {
 //        }
 //        server.stop();
     }
+
+    private static String usage() {
+        StringBuilder categories = new StringBuilder();
+        for (HeapFootprint.Category category : HeapFootprint.Category.values()) {
+            categories.append(categories.length() == 0 ? "" : ", ").append(category.getKey());
+        }
+        return "Параметры: [--record=<файл>] [--heap-limit=<размер>] [--heap-limit-<категория>=<размер>]\n"
+                + "  размер - число байт или с суффиксом k, m, g (64m)\n"
+                + "  категории: " + categories;
+    }
 }
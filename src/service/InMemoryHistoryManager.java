@@ -1,5 +1,6 @@
 package service;
 
+import service.jfr.HistoryUpdateEvent;
 import task.Task;
 
 import java.util.*;
@@ -15,12 +16,22 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return -1;
         }
+        HistoryUpdateEvent event = new HistoryUpdateEvent();
+        event.begin();
         // удаляем запись, если она была до этого записана в истории
-        if (mapHistory.containsKey(task.getId())) {
+        boolean replaced = mapHistory.containsKey(task.getId());
+        if (replaced) {
             removeIdByHistoryMap(task.getId());
         }
         // добавляем актуальную запись
         mapHistory.put(task.getId(), linkLast(task));
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskId = task.getId();
+            event.replaced = replaced;
+            event.historySize = mapHistory.size();
+            event.commit();
+        }
         return task.getId();
     }
 
@@ -45,6 +56,11 @@ public class InMemoryHistoryManager implements HistoryManager {
         return historyList;
     }
 
+    @Override
+    public int getHistorySize() {
+        return mapHistory.size();
+    }
+
     private Node linkLast(Task task) {
         if (task == null) {
             return null;
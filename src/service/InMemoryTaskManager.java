@@ -3,31 +3,81 @@ package service;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import service.archive.ArchivePolicy;
+import service.archive.TaskArchive;
+import service.jfr.OverlapCheckEvent;
+import service.metrics.HeapFootprint;
+import service.metrics.HeapLayout;
 import task.*;
 
 public class InMemoryTaskManager implements TaskManager {
 
     // Хранилища для задач разных типов.
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final Map<Integer, Task> tasks;
+    protected final Map<Integer, Epic> epics;
+    protected final Map<Integer, Subtask> subtasks;
 
-    // Дерево для хранения приоритетных задач, отсортированных по времени начала.
-    // Используем TreeSet для автоматической сортировки и исключения дубликатов, если
-    // задачи начинаются в одно и то же время.  Если задачи имеют одинаковое время начала,
-    // то нужно предусмотреть логику сравнения по другим полям, чтобы избежать потери данных в TreeSet.
-    private final TreeSet<Task> prioritizedTasksSet = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    // Приоритетные задачи, отсортированные по времени начала. Индекс хранит id и интервалы,
+    // сами задачи берутся из хранилищ при выдаче списка
+    private final PrioritizedIndex prioritizedTasksSet = new PrioritizedIndex();
 
     HistoryManager historyManager = Managers.getDefaultHistoryManager();
 
     private int idTask = 0;
 
+    // Архив завершённых задач. Пока архив не подключён, задачи хранятся только в памяти
+    private TaskArchive archive;
+
+    // Версии данных: общая, по типам задач и по отдельным задачам.
+    // Каждое изменение увеличивает общую версию и присваивает её типу и задаче
+    private long version = 0;
+    private final long[] typeVersions = new long[TaskStatus.values().length];
+    private final Map<Integer, Long> entityVersions = new HashMap<>();
+    private long historyVersion = 0;
+    private final long versionEpoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+
+    private final List<TaskChangeListener> changeListeners = new ArrayList<>();
+
+    // Индексы для выборок TaskQuery, по одному на тип задач
+    private final TaskIndex[] indexes = {new TaskIndex(), new TaskIndex(), new TaskIndex()};
+    // Индексы и приоритеты нужно перестроить по хранилищам перед первым чтением (см. restoreIndexesLater)
+    private boolean indexesStale;
+
+    // Оценка занятой памяти; создаётся при первом обращении, до этого не ведётся
+    private HeapFootprint footprint;
+    private boolean entityFootprint; // размер каждой задачи ведётся в footprint (см. trackStoredFootprint)
+
+    public InMemoryTaskManager() {
+        this(new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    // Конструктор для менеджеров с собственными хранилищами (например, PagedTaskManager)
+    protected InMemoryTaskManager(Map<Integer, Task> tasks, Map<Integer, Epic> epics, Map<Integer, Subtask> subtasks) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+    }
+
     private int generateId() {
         return ++idTask;
     }
 
+    // Восстановление счётчика id после загрузки задач из внешнего хранилища
+    protected void restoreIdCounter(int lastId) {
+        idTask = Math.max(idTask, lastId);
+    }
+
+    // Восстановление множества приоритетных задач после загрузки из внешнего хранилища
+    protected void restorePrioritized(Task task) {
+        if (!(task instanceof Epic) && isValidateDateAndDuration(task)) {
+            prioritizedTasksSet.add(task);
+        }
+    }
+
     //-------------------------------------------------------------------------
     // Валидация данных
     //-------------------------------------------------------------------------
@@ -45,30 +95,221 @@ public class InMemoryTaskManager implements TaskManager {
     // Проверка на пересечение задач по времени
     private boolean isAllTasksNotOverlap(Task task) {
         // проверка на пустоту. Если задач нет, то пересечения не будет и можно добавлять
-        if (prioritizedTasksSet.isEmpty()) {
+        if (prioritized().isEmpty()) {
             return true;
         }
 
+        OverlapCheckEvent event = new OverlapCheckEvent();
+        event.begin();
         LocalDateTime taskStart = task.getStartTime();
         LocalDateTime taskEnd = task.getEndTime();
 
         // Проверяем, что новая задача не пересекается ни с одной из существующих
-        return prioritizedTasksSet.stream().allMatch(task1 -> {
-            LocalDateTime existingStart = task1.getStartTime();
-            LocalDateTime existingEnd = task1.getEndTime();
+        int candidates = 0;
+        boolean overlaps = false;
+        for (PrioritizedIndex.Slot slot : prioritized().slots()) {
+            candidates++;
+            LocalDateTime existingStart = slot.getStart();
+            LocalDateTime existingEnd = slot.getEnd();
 
             // Два интервала не пересекаются, если один заканчивается раньше, чем начинается другой
-            return taskEnd.isBefore(existingStart) || taskStart.isAfter(existingEnd);
-        });
+            if (!(taskEnd.isBefore(existingStart) || taskStart.isAfter(existingEnd))) {
+                overlaps = true;
+                break;
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.taskId = task.getId();
+            event.candidates = candidates;
+            event.prioritizedSize = prioritized().size();
+            event.overlaps = overlaps;
+            event.commit();
+        }
+        return !overlaps;
+    }
+
+    //-------------------------------------------------------------------------
+    // Версии данных
+    //-------------------------------------------------------------------------
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public long getVersion(TaskStatus type) {
+        return typeVersions[type.ordinal()];
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return entityVersions.getOrDefault(id, 0L);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    @Override
+    public long getVersionEpoch() {
+        return versionEpoch;
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    // Отметка об изменении задачи: вызывается из всех путей создания, изменения и удаления
+    protected void markChanged(TaskStatus type, int id, ChangeType change) {
+        Task current = change == ChangeType.DELETED ? null : storage(type).get(id);
+        reindex(type, id, current);
+        if (entityFootprint) {
+            footprint.update(type, id, current);
+        }
+        version++;
+        typeVersions[type.ordinal()] = version;
+        if (change == ChangeType.DELETED) {
+            entityVersions.remove(id);
+        } else {
+            entityVersions.put(id, version);
+        }
+        for (TaskChangeListener listener : changeListeners) {
+            listener.onChange(type, id, change, version);
+        }
+    }
+
+    // Задача индексируется в текущем состоянии хранилища: удалённая или перенесённая в архив убирается из индекса
+    private void reindex(TaskStatus type, int id, Task current) {
+        ensureIndexes();
+        if (current == null) {
+            indexes[type.ordinal()].remove(id);
+        } else {
+            indexes[type.ordinal()].put(current);
+        }
+    }
+
+    // Перестроение индексов и приоритетов после загрузки задач из внешнего хранилища
+    protected void restoreIndexes() {
+        indexesStale = false;
+        prioritizedTasksSet.clear();
+        for (TaskStatus type : TaskStatus.values()) {
+            TaskIndex index = indexes[type.ordinal()];
+            index.clear();
+            forEachStored(type, task -> {
+                index.put(task);
+                restorePrioritized(task);
+            });
+        }
+        if (entityFootprint) {
+            recountFootprint();
+        }
+    }
+
+    // Отложенное перестроение: выполнится при первом чтении индексов или приоритетов.
+    // Изменения до этого момента попадают в хранилища, а перестроение учитывает их состояние на момент чтения
+    protected void restoreIndexesLater() {
+        indexesStale = true;
+    }
+
+    private void ensureIndexes() {
+        if (indexesStale) {
+            restoreIndexes();
+        }
+    }
+
+    // Приоритеты для чтения и изменения: отложенное перестроение выполняется до первого обращения
+    private PrioritizedIndex prioritized() {
+        ensureIndexes();
+        return prioritizedTasksSet;
+    }
+
+    // Обход задач хранилища для перестроения индексов. Хранилища, подгружающие задачи с диска,
+    // переопределяют его, чтобы не держать прочитанные задачи в памяти
+    protected void forEachStored(TaskStatus type, Consumer<Task> action) {
+        storage(type).values().forEach(action);
+    }
+
+    // Учёт памяти включается при первом вызове: хранилища обходятся один раз, дальше оценка меняется в markChanged.
+    // Первый вызов должен быть до начала работы с менеджером из нескольких потоков (HttpTaskServer - в конструкторе)
+    public HeapFootprint getHeapFootprint() {
+        if (footprint == null) {
+            footprint = new HeapFootprint();
+            footprint.trackEntries(HeapFootprint.Category.PRIORITIZED, prioritizedTasksSet::size,
+                    HeapFootprint.TREE_ENTRY_BYTES);
+            footprint.trackEntries(HeapFootprint.Category.HISTORY, historyManager::getHistorySize,
+                    HeapFootprint.HASH_ENTRY_BYTES + HeapLayout.shallowSize("service.InMemoryHistoryManager$Node"));
+            footprint.trackEntries(HeapFootprint.Category.INDEXES,
+                    () -> indexes[0].size() + indexes[1].size() + indexes[2].size(),
+                    TaskIndex.entryBytes() + HeapFootprint.HASH_ENTRY_BYTES + HeapLayout.shallowSize(Long.class));
+            entityFootprint = trackStoredFootprint(footprint);
+            if (entityFootprint) {
+                recountFootprint();
+            }
+        }
+        return footprint;
+    }
+
+    // Учёт задач хранилищ. По умолчанию размер каждой задачи считается при её изменении (true).
+    // Хранилища, вытесняющие задачи на диск, регистрируют в footprint свою оценку и возвращают false:
+    // обход хранилищ подгрузил бы с диска все задачи и учёл бы вытесненные как находящиеся в памяти
+    protected boolean trackStoredFootprint(HeapFootprint footprint) {
+        return true;
+    }
+
+    private void recountFootprint() {
+        footprint.clearEntities();
+        for (TaskStatus type : TaskStatus.values()) {
+            storage(type).values().forEach(task -> footprint.update(type, task.getId(), task));
+        }
+    }
+
+    private Map<Integer, ? extends Task> storage(TaskStatus type) {
+        return switch (type) {
+            case TASK -> tasks;
+            case EPIC -> epics;
+            case SUBTASK -> subtasks;
+        };
+    }
+
+    @Override
+    public Optional<Task> findById(TaskStatus type, int id) {
+        Task task = storage(type).get(id);
+        return task != null ? Optional.of(task) : findInArchive(id, type);
+    }
+
+    private void addToHistory(Task task) {
+        historyManager.addTaskInMapHistory(task);
+        historyVersion++;
     }
 
     //-------------------------------------------------------------------------
     // Вывод задач
     //-------------------------------------------------------------------------
 
+    @Override
+    public int getCount(TaskStatus type) {
+        return storage(type).size();
+    }
+
+    @Override
+    public int getPrioritizedCount() {
+        return prioritized().size();
+    }
+
     // Вывод списка всех приоритетных задач
     public Collection<Task> getPrioritizedTasks() {
-        return prioritizedTasksSet.stream().toList();
+        List<Task> prioritized = new ArrayList<>(prioritized().size());
+        for (PrioritizedIndex.Slot slot : prioritized().slots()) {
+            Task task = storage(slot.getType()).get(slot.getId());
+            if (task != null) {
+                prioritized.add(task);
+            }
+        }
+        return prioritized;
     }
 
     // Вывод всех задач
@@ -88,6 +329,41 @@ public class InMemoryTaskManager implements TaskManager {
         return subtasks.values();
     }
 
+    //-------------------------------------------------------------------------
+    // Выборка задач по индексам
+    //-------------------------------------------------------------------------
+
+    @Override
+    public TaskPage<Task> queryTasks(TaskQuery query) {
+        return query(TaskStatus.TASK, tasks, query);
+    }
+
+    @Override
+    public TaskPage<Epic> queryEpics(TaskQuery query) {
+        return query(TaskStatus.EPIC, epics, query);
+    }
+
+    @Override
+    public TaskPage<Subtask> querySubtasks(TaskQuery query) {
+        return query(TaskStatus.SUBTASK, subtasks, query);
+    }
+
+    // Из индекса берётся на один id больше limit: так без отдельного подсчёта известно, есть ли следующая страница.
+    // Из хранилища читаются только задачи самой страницы
+    private <T extends Task> TaskPage<T> query(TaskStatus type, Map<Integer, T> storage, TaskQuery query) {
+        ensureIndexes();
+        int limit = query.getLimit();
+        List<Integer> ids = indexes[type.ordinal()].select(query, limit == Integer.MAX_VALUE ? limit : limit + 1);
+        boolean hasMore = ids.size() > limit;
+        int count = hasMore ? limit : ids.size();
+
+        List<T> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(storage.get(ids.get(i)));
+        }
+        return new TaskPage<>(items, hasMore ? ids.get(count - 1) : -1);
+    }
+
     //-------------------------------------------------------------------------
     // Удаление всех задач
     //-------------------------------------------------------------------------
@@ -95,19 +371,30 @@ public class InMemoryTaskManager implements TaskManager {
     // Удаление Tasks
     @Override
     public void removeTasks() {
+        new ArrayList<>(tasks.keySet()).forEach(id -> markChanged(TaskStatus.TASK, id, ChangeType.DELETED));
         tasks.clear();
-        prioritizedTasksSet.removeIf(task -> task instanceof Task); // проверяем тип задачи
+        prioritized().removeType(TaskStatus.TASK);
+        removeArchived(TaskStatus.TASK);
     }
 
     // Удаление Epics
     @Override
     public void removeEpics() {
         epics.values().forEach(epic -> {
-            epic.getEpicSubtask().forEach(subtasks::remove);
-            prioritizedTasksSet.removeIf(task -> subtasks.containsKey(task.getId()));
+            epic.getEpicSubtask().forEach(subtaskId -> {
+                subtasks.remove(subtaskId);
+                if (archive != null) {
+                    archive.remove(subtaskId);
+                }
+                markChanged(TaskStatus.SUBTASK, subtaskId, ChangeType.DELETED);
+            });
         });
+        prioritized().removeType(TaskStatus.SUBTASK);
+        // архивные подзадачи без эпика тоже удаляются
+        removeArchived(TaskStatus.SUBTASK);
 
         // Очищаем список эпиков.
+        new ArrayList<>(epics.keySet()).forEach(id -> markChanged(TaskStatus.EPIC, id, ChangeType.DELETED));
         epics.clear();
     }
 
@@ -122,8 +409,10 @@ public class InMemoryTaskManager implements TaskManager {
 
 
         // Очищаем список подзадач.
+        new ArrayList<>(subtasks.keySet()).forEach(id -> markChanged(TaskStatus.SUBTASK, id, ChangeType.DELETED));
         subtasks.clear();
-        prioritizedTasksSet.removeIf(task -> task instanceof Subtask);
+        prioritized().removeType(TaskStatus.SUBTASK);
+        removeArchived(TaskStatus.SUBTASK);
     }
 
     //-------------------------------------------------------------------------
@@ -135,10 +424,13 @@ public class InMemoryTaskManager implements TaskManager {
     public Optional<Task> getByIdTask(int id) {
         if (tasks.containsKey(id)) {
             Task task = tasks.get(id);
-            historyManager.addTaskInMapHistory(task);
+            addToHistory(task);
             return Optional.ofNullable(task);
         }
-        return Optional.empty(); // Возвращаем null, если задача не найдена
+        // задачи нет среди активных - ищем в архиве
+        Optional<Task> archived = findInArchive(id, TaskStatus.TASK);
+        archived.ifPresent(this::addToHistory);
+        return archived;
     }
 
     // Получение эпика по идентификатору
@@ -146,7 +438,7 @@ public class InMemoryTaskManager implements TaskManager {
     public Optional<Epic> getByIdEpic(int id) {
         if (epics.containsKey(id)) {
             Epic epic = epics.get(id);
-            historyManager.addTaskInMapHistory(epic);
+            addToHistory(epic);
             return Optional.ofNullable(epic);
         }
         return Optional.empty(); // Возвращаем null, если эпик не найден
@@ -157,10 +449,12 @@ public class InMemoryTaskManager implements TaskManager {
     public Optional<Subtask> getByIdSubtask(int id) {
         if (subtasks.containsKey(id)) {
             Subtask subtask = subtasks.get(id);
-            historyManager.addTaskInMapHistory(subtask);
+            addToHistory(subtask);
             return Optional.ofNullable(subtask);
         }
-        return Optional.empty(); // Возвращаем null, если подзадача не найдена
+        Optional<Subtask> archived = findInArchive(id, TaskStatus.SUBTASK).map(Subtask.class::cast);
+        archived.ifPresent(this::addToHistory);
+        return archived;
     }
 
     //-------------------------------------------------------------------------
@@ -185,10 +479,11 @@ public class InMemoryTaskManager implements TaskManager {
                     return -1;
                 }
                 tasks.put(idTask, newTask); // если не пересекаются, то добавляем в мапу и в множество
-                prioritizedTasksSet.add(newTask);
+                prioritized().add(newTask);
             } else {
                 tasks.put(idTask, newTask); // если времени нет, то просто добавляем задачу в мапу
             }
+            markChanged(TaskStatus.TASK, idTask, ChangeType.CREATED);
             return idTask;
 
         } catch (CloneNotSupportedException e) {
@@ -207,6 +502,7 @@ public class InMemoryTaskManager implements TaskManager {
         int idEpic = generateId();
         epic.setId(idEpic);
         epics.put(idEpic, epic); // добавляем в мапу
+        markChanged(TaskStatus.EPIC, idEpic, ChangeType.CREATED);
         return idEpic;
     }
 
@@ -234,12 +530,14 @@ public class InMemoryTaskManager implements TaskManager {
                     return -1;
                 }
                 subtasks.put(idSubtask, newSubtask);
-                prioritizedTasksSet.add(newSubtask);
+                prioritized().add(newSubtask);
             } else {
                 subtasks.put(idSubtask, newSubtask);
             }
             // методы по изменению статуса Epic в зависимости от subtask
             epic.addEpicSubtask(idSubtask); // добавляет в хранилище лист EpicSubtaskId id subtask
+            markChanged(TaskStatus.SUBTASK, idSubtask, ChangeType.CREATED);
+            markChanged(TaskStatus.EPIC, epic.getId(), ChangeType.UPDATED); // изменился список подзадач эпика
             updateEpicStatus(epic.getId()); // меняет статус Epic
             return idSubtask;
 
@@ -249,6 +547,55 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
+    // Пакетное создание: каждый элемент проходит ту же проверку, что и при одиночном создании
+    @Override
+    public List<Integer> createAll(List<? extends Task> items) {
+        List<Integer> ids = new ArrayList<>(items.size());
+        for (Task item : items) {
+            if (item instanceof Epic epic) {
+                ids.add(createEpic(epic));
+            } else if (item instanceof Subtask subtask) {
+                ids.add(createSubtask(subtask));
+            } else if (item != null) {
+                ids.add(createTask(item));
+            } else {
+                ids.add(-1);
+            }
+        }
+        return ids;
+    }
+
+    // Загрузка готовой доски (BoardGenerator): элементы сохраняются со своими id и без проверки пересечений,
+    // поэтому загрузка занимает O(n log n), а не O(n^2), как через createAll. Интервалы не должны пересекаться,
+    // id - расти и быть больше уже выданных, эпик - идти раньше своих подзадач и уже содержать их список.
+    // Объекты не копируются. Каждый элемент проходит через markChanged, как созданный
+    public void loadAll(Iterable<? extends Task> items) {
+        for (Task item : items) {
+            if (item.getId() <= idTask) {
+                throw new IllegalArgumentException("id " + item.getId() + " уже выдан, следующий свободный: "
+                        + (idTask + 1));
+            }
+            TaskStatus type;
+            if (item instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+                type = TaskStatus.EPIC;
+            } else if (item instanceof Subtask subtask) {
+                if (!epics.containsKey(subtask.getEpicId())) {
+                    throw new IllegalArgumentException("Нет эпика " + subtask.getEpicId()
+                            + " для подзадачи " + subtask.getId());
+                }
+                subtasks.put(subtask.getId(), subtask);
+                type = TaskStatus.SUBTASK;
+            } else {
+                tasks.put(item.getId(), item);
+                type = TaskStatus.TASK;
+            }
+            restoreIdCounter(item.getId());
+            restorePrioritized(item);
+            markChanged(type, item.getId(), ChangeType.CREATED);
+        }
+    }
+
     //-------------------------------------------------------------------------
     // Изменение задач
     //-------------------------------------------------------------------------
@@ -262,17 +609,19 @@ public class InMemoryTaskManager implements TaskManager {
 
         if (!isValidateDateAndDuration(task)) {
             tasks.put(task.getId(), task);
+            markChanged(TaskStatus.TASK, task.getId(), ChangeType.UPDATED);
             return task.getId();
         }
         // Перед обновлением задачи, удаляем её из prioritizedTasksSet, если она там есть
-        prioritizedTasksSet.removeIf(t -> t.getId() == task.getId());
+        prioritized().remove(task.getId());
 
         if (!isAllTasksNotOverlap(task)) {
             return -1;
         }
 
         tasks.put(task.getId(), task);
-        prioritizedTasksSet.add(task);
+        prioritized().add(task);
+        markChanged(TaskStatus.TASK, task.getId(), ChangeType.UPDATED);
         return task.getId();
     }
 
@@ -283,6 +632,7 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         epics.put(epic.getId(), epic);
+        markChanged(TaskStatus.EPIC, epic.getId(), ChangeType.UPDATED);
         updateEpicStatus(epic.getId());
         return epic.getId();
     }
@@ -295,20 +645,22 @@ public class InMemoryTaskManager implements TaskManager {
 
         if (!isValidateDateAndDuration(subtask)) {
             subtasks.put(subtask.getId(), subtask);
+            markChanged(TaskStatus.SUBTASK, subtask.getId(), ChangeType.UPDATED);
             return subtask.getId();
         }
         // обновляем статус
         updateEpicStatus(subtask.getId());
 
         // Перед обновлением подзадачи, удаляем её из prioritizedTasksSet, если она там есть
-        prioritizedTasksSet.removeIf(s -> s.getId() == subtask.getId());
+        prioritized().remove(subtask.getId());
 
         if (!isAllTasksNotOverlap(subtask)) {
             return -1;
         }
 
         subtasks.put(subtask.getId(), subtask);
-        prioritizedTasksSet.add(subtask);
+        prioritized().add(subtask);
+        markChanged(TaskStatus.SUBTASK, subtask.getId(), ChangeType.UPDATED);
         return subtask.getId();
     }
 
@@ -320,7 +672,13 @@ public class InMemoryTaskManager implements TaskManager {
     public int removeTaskById(int id) {
         if (tasks.containsKey(id)) {
             tasks.remove(id);
-            prioritizedTasksSet.removeIf(task -> task.getId() == id);
+            prioritized().remove(id);
+            markChanged(TaskStatus.TASK, id, ChangeType.DELETED);
+            return 1;
+        }
+        if (findInArchive(id, TaskStatus.TASK).isPresent()) {
+            archive.remove(id);
+            markChanged(TaskStatus.TASK, id, ChangeType.DELETED);
             return 1;
         }
         return -1;
@@ -333,11 +691,16 @@ public class InMemoryTaskManager implements TaskManager {
             if (epic == null) {
                 return -1;
             }
-            for (int subtaskId : epic.getEpicSubtask()) { // удаление подзадач Epic
-                prioritizedTasksSet.removeIf(task -> task.getId() == subtaskId);
+            for (int subtaskId : epic.getEpicSubtask()) { // удаление подзадач Epic, в том числе архивных
+                prioritized().remove(subtaskId);
                 subtasks.remove(subtaskId);
+                if (archive != null) {
+                    archive.remove(subtaskId);
+                }
+                markChanged(TaskStatus.SUBTASK, subtaskId, ChangeType.DELETED);
             }
             epics.remove(id);
+            markChanged(TaskStatus.EPIC, id, ChangeType.DELETED);
             return 1;
         }
         return -1;
@@ -346,17 +709,26 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public int removeSubtaskById(int id) {
         Subtask subtask = subtasks.get(id);
-        if (subtask != null) {
-            Epic epic = epics.get(subtask.getEpicId());
-            if (epic != null) {
-                epic.removeSubtaskById(id);
-                updateEpicStatus(epic.getId()); // Обновляем статус эпика после удаления подзадачи
+        if (subtask == null) {
+            // архивная подзадача удаляется из архива и из своего эпика так же, как живая
+            Optional<Subtask> archived = findInArchive(id, TaskStatus.SUBTASK).map(Subtask.class::cast);
+            if (archived.isEmpty()) {
+                return -1;
             }
-            subtasks.remove(id);
-            prioritizedTasksSet.removeIf(task -> task.getId() == id);
-            return 1;
+            archive.remove(id);
+            subtask = archived.get();
         }
-        return -1;
+
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic != null) {
+            epic.removeSubtaskById(id);
+            markChanged(TaskStatus.EPIC, epic.getId(), ChangeType.UPDATED);
+            updateEpicStatus(epic.getId()); // Обновляем статус эпика после удаления подзадачи
+        }
+        subtasks.remove(id);
+        prioritized().remove(id);
+        markChanged(TaskStatus.SUBTASK, id, ChangeType.DELETED);
+        return 1;
     }
 
     //-------------------------------------------------------------------------
@@ -370,8 +742,13 @@ public class InMemoryTaskManager implements TaskManager {
             return new ArrayList<>();
         }
 
-        // Преобразуем через stream поток данных, вызываем get и выводим
-        return epic.getEpicSubtask().stream().map(subtasks::get).collect(Collectors.toList());
+        // Преобразуем через stream поток данных, вызываем get и выводим.
+        // Подзадачи, перенесённые в архив, читаются из него
+        return epic.getEpicSubtask().stream()
+                .map(id -> subtasks.containsKey(id)
+                        ? subtasks.get(id)
+                        : findInArchive(id, TaskStatus.SUBTASK).map(Subtask.class::cast).orElse(null))
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -379,6 +756,89 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(historyManager.getHistoryList());
     }
 
+    //-------------------------------------------------------------------------
+    // Архив завершённых задач
+    //-------------------------------------------------------------------------
+
+    // Подключение архива. Задачи архива, созданного ранее, снова становятся частью менеджера:
+    // счётчик id учитывает архивные id, а архивные подзадачи возвращаются в списки своих эпиков
+    public void setArchive(TaskArchive archive) {
+        this.archive = archive;
+        if (archive == null || archive.size() == 0) {
+            return;
+        }
+        restoreIdCounter(Collections.max(archive.getArchivedIds()));
+        for (Task task : archive.findAll(TaskStatus.SUBTASK, task -> true)) {
+            Epic epic = epics.get(((Subtask) task).getEpicId());
+            if (epic != null && !epic.getEpicSubtask().contains(task.getId())) {
+                epic.addEpicSubtask(task.getId());
+                updateEpicStatus(epic.getId());
+            }
+        }
+    }
+
+    public Optional<TaskArchive> getArchive() {
+        return Optional.ofNullable(archive);
+    }
+
+    // Перенос завершённых задач и подзадач, подходящих под policy, в архив.
+    // Они удаляются из хранилищ и из prioritizedTasksSet, но остаются доступны через getById* и архив.
+    // Возвращает количество перенесённых задач
+    public int archiveCompleted(ArchivePolicy policy, LocalDateTime now) {
+        if (archive == null) {
+            return 0;
+        }
+
+        Set<Integer> archivedIds = new HashSet<>();
+        for (Task task : tasks.values()) {
+            if (task.getStatus() == Status.DONE && policy.shouldArchive(task, now)) {
+                archive.append(task);
+                archivedIds.add(task.getId());
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.getStatus() == Status.DONE && policy.shouldArchive(subtask, now)) {
+                archive.append(subtask);
+                archivedIds.add(subtask.getId());
+            }
+        }
+        if (archivedIds.isEmpty()) {
+            return 0;
+        }
+
+        // id подзадач остаются в эпике, поэтому статус эпика не меняется
+        archivedIds.forEach(id -> {
+            tasks.remove(id);
+            subtasks.remove(id);
+            // задача остаётся доступной по id, поэтому это изменение, а не удаление
+            markChanged(archive.getType(id).orElseThrow(), id, ChangeType.UPDATED);
+        });
+        archivedIds.forEach(prioritized()::remove);
+        return archivedIds.size();
+    }
+
+    // Удаление из архива всех задач типа type при очистке хранилища
+    private void removeArchived(TaskStatus type) {
+        if (archive == null) {
+            return;
+        }
+        List<Integer> ids = archive.getArchivedIds().stream()
+                .filter(id -> archive.getType(id).orElse(null) == type)
+                .collect(Collectors.toList());
+        ids.forEach(id -> {
+            archive.remove(id);
+            markChanged(type, id, ChangeType.DELETED);
+        });
+    }
+
+    // Поиск задачи в архиве с проверкой типа по индексу архива
+    private Optional<Task> findInArchive(int id, TaskStatus type) {
+        if (archive == null || archive.getType(id).orElse(null) != type) {
+            return Optional.empty();
+        }
+        return archive.findById(id);
+    }
+
     //-------------------------------------------------------------------------
     // Методы для работы с Epic
     //-------------------------------------------------------------------------
@@ -394,7 +854,7 @@ public class InMemoryTaskManager implements TaskManager {
 
         List<Integer> subtaskIds = epic.getEpicSubtask();
         if (subtaskIds.isEmpty()) { // если пустой, то возвращаю статус new
-            epic.setStatus(Status.NEW);
+            setEpicStatus(epic, Status.NEW);
             return;
         }
 
@@ -405,6 +865,9 @@ public class InMemoryTaskManager implements TaskManager {
         for (Integer subtaskId : subtaskIds) {
             Subtask subtask = subtasks.get(subtaskId);
             if (subtask == null) {
+                if (archive != null && archive.contains(subtaskId)) {
+                    allNew = false; // в архиве только завершённые подзадачи
+                }
                 continue;
             }
 
@@ -418,14 +881,24 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         if (allNew) {
-            epic.setStatus(Status.NEW);
+            setEpicStatus(epic, Status.NEW);
         } else if (allDone) {
-            epic.setStatus(Status.DONE);
+            setEpicStatus(epic, Status.DONE);
         } else {
-            epic.setStatus(Status.IN_PROGRESS);
+            setEpicStatus(epic, Status.IN_PROGRESS);
         }
     }
 
+    private void setEpicStatus(Epic epic, Status status) {
+        if (epic.getStatus() != status) {
+            epic.setStatus(status);
+            markChanged(TaskStatus.EPIC, epic.getId(), ChangeType.UPDATED);
+        }
+        // эпик изменяется на месте, поэтому явно кладём его обратно: для страничного хранилища
+        // это помечает эпик как изменённый, для HashMap это ничего не меняет
+        epics.put(epic.getId(), epic);
+    }
+
     // Возвращает последнюю подзадачу из Epic
     @Override
     public Optional<Subtask> getSubtaskMaxEndTime() {
@@ -461,6 +934,7 @@ public class InMemoryTaskManager implements TaskManager {
     // и суммируем все в одну
     @Override
     public Duration getDuration() {
-        return prioritizedTasksSet.stream().filter(Subtask.class::isInstance).map(Task::getDuration).reduce(Duration.ZERO, Duration::plus);
+        return prioritized().slots().stream().filter(slot -> slot.getType() == TaskStatus.SUBTASK)
+                .map(PrioritizedIndex.Slot::getDuration).reduce(Duration.ZERO, Duration::plus);
     }
 }
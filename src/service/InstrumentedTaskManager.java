@@ -0,0 +1,368 @@
+package service;
+
+import service.metrics.OperationMetrics;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Обёртка над любым TaskManager, измеряющая каждую операцию: число вызовов, задержки и исход
+// (успех, отказ с -1 или пустым результатом, исключение).
+// Дополнительно даёт текущие размеры хранилища: число задач, эпиков, подзадач и размер списка приоритетов.
+// Запись метрик потокобезопасна, но сам менеджер обёртка не защищает: для многопоточного доступа
+// оборачивается SynchronizedTaskManager, тогда в задержку входит и ожидание блокировки
+public class InstrumentedTaskManager implements TaskManager {
+
+    private final TaskManager delegate;
+    private final List<OperationMetrics> operations = new ArrayList<>();
+
+    private final OperationMetrics getAllTask = operation("getAllTask");
+    private final OperationMetrics getAllEpic = operation("getAllEpic");
+    private final OperationMetrics getAllSubtask = operation("getAllSubtask");
+    private final OperationMetrics queryTasks = operation("queryTasks");
+    private final OperationMetrics queryEpics = operation("queryEpics");
+    private final OperationMetrics querySubtasks = operation("querySubtasks");
+    private final OperationMetrics removeTasks = operation("removeTasks");
+    private final OperationMetrics removeEpics = operation("removeEpics");
+    private final OperationMetrics removeSubtasks = operation("removeSubtasks");
+    private final OperationMetrics getByIdTask = operation("getByIdTask");
+    private final OperationMetrics getByIdEpic = operation("getByIdEpic");
+    private final OperationMetrics getByIdSubtask = operation("getByIdSubtask");
+    private final OperationMetrics findById = operation("findById");
+    private final OperationMetrics createTask = operation("createTask");
+    private final OperationMetrics createEpic = operation("createEpic");
+    private final OperationMetrics createSubtask = operation("createSubtask");
+    private final OperationMetrics createAll = operation("createAll");
+    private final OperationMetrics updateTask = operation("updateTask");
+    private final OperationMetrics updateEpic = operation("updateEpic");
+    private final OperationMetrics updateSubtask = operation("updateSubtask");
+    private final OperationMetrics removeTaskById = operation("removeTaskById");
+    private final OperationMetrics removeEpicById = operation("removeEpicById");
+    private final OperationMetrics removeSubtaskById = operation("removeSubtaskById");
+    private final OperationMetrics getEpicSubtask = operation("getEpicSubtask");
+    private final OperationMetrics updateEpicStatus = operation("updateEpicStatus");
+    private final OperationMetrics getHistory = operation("getHistory");
+    private final OperationMetrics getSubtaskMaxEndTime = operation("getSubtaskMaxEndTime");
+    private final OperationMetrics getSubtaskMinStartTime = operation("getSubtaskMinStartTime");
+    private final OperationMetrics calculateEpicStartTime = operation("calculateEpicStartTime");
+    private final OperationMetrics calculateEpicEndTime = operation("calculateEpicEndTime");
+    private final OperationMetrics getDuration = operation("getDuration");
+    private final OperationMetrics getPrioritizedTasks = operation("getPrioritizedTasks");
+    private final OperationMetrics getVersion = operation("getVersion");
+    private final OperationMetrics getTypeVersion = operation("getVersion(type)");
+    private final OperationMetrics getEntityVersion = operation("getEntityVersion");
+    private final OperationMetrics getHistoryVersion = operation("getHistoryVersion");
+    private final OperationMetrics getVersionEpoch = operation("getVersionEpoch");
+    private final OperationMetrics addChangeListener = operation("addChangeListener");
+
+    public InstrumentedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    // Метрики всех операций в порядке объявления в TaskManager
+    public List<OperationMetrics> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public OperationMetrics getOperation(String name) {
+        for (OperationMetrics operation : operations) {
+            if (operation.getName().equals(name)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+
+    // Текущие размеры читаются у обёрнутого менеджера за O(1), под его блокировкой, и в метрики операций не попадают
+    public int getTaskCount() {
+        return delegate.getCount(TaskStatus.TASK);
+    }
+
+    public int getEpicCount() {
+        return delegate.getCount(TaskStatus.EPIC);
+    }
+
+    public int getSubtaskCount() {
+        return delegate.getCount(TaskStatus.SUBTASK);
+    }
+
+    @Override
+    public int getPrioritizedCount() {
+        return delegate.getPrioritizedCount();
+    }
+
+    private OperationMetrics operation(String name) {
+        OperationMetrics operation = new OperationMetrics(name);
+        operations.add(operation);
+        return operation;
+    }
+
+    // Пустой Optional считается отказом: задача не найдена
+    private <T> T call(OperationMetrics operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            operation.failed(System.nanoTime() - start);
+            throw e;
+        }
+        if (result instanceof Optional<?> optional && optional.isEmpty()) {
+            operation.rejected(System.nanoTime() - start);
+        } else {
+            operation.succeeded(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private int callInt(OperationMetrics operation, IntSupplier call) {
+        long start = System.nanoTime();
+        int result;
+        try {
+            result = call.getAsInt();
+        } catch (RuntimeException e) {
+            operation.failed(System.nanoTime() - start);
+            throw e;
+        }
+        if (result == -1) {
+            operation.rejected(System.nanoTime() - start);
+        } else {
+            operation.succeeded(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private long callLong(OperationMetrics operation, LongSupplier call) {
+        long start = System.nanoTime();
+        try {
+            long result = call.getAsLong();
+            operation.succeeded(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            operation.failed(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void run(OperationMetrics operation, Runnable call) {
+        long start = System.nanoTime();
+        try {
+            call.run();
+            operation.succeeded(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            operation.failed(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Collection<Task> getAllTask() {
+        return call(getAllTask, () -> delegate.getAllTask());
+    }
+
+    @Override
+    public Collection<Epic> getAllEpic() {
+        return call(getAllEpic, () -> delegate.getAllEpic());
+    }
+
+    @Override
+    public Collection<Subtask> getAllSubtask() {
+        return call(getAllSubtask, () -> delegate.getAllSubtask());
+    }
+
+    @Override
+    public TaskPage<Task> queryTasks(TaskQuery query) {
+        return call(queryTasks, () -> delegate.queryTasks(query));
+    }
+
+    @Override
+    public TaskPage<Epic> queryEpics(TaskQuery query) {
+        return call(queryEpics, () -> delegate.queryEpics(query));
+    }
+
+    @Override
+    public TaskPage<Subtask> querySubtasks(TaskQuery query) {
+        return call(querySubtasks, () -> delegate.querySubtasks(query));
+    }
+
+    @Override
+    public void removeTasks() {
+        run(removeTasks, () -> delegate.removeTasks());
+    }
+
+    @Override
+    public void removeEpics() {
+        run(removeEpics, () -> delegate.removeEpics());
+    }
+
+    @Override
+    public void removeSubtasks() {
+        run(removeSubtasks, () -> delegate.removeSubtasks());
+    }
+
+    @Override
+    public Optional<Task> findById(TaskStatus type, int id) {
+        return call(findById, () -> delegate.findById(type, id));
+    }
+
+    @Override
+    public Optional<Task> getByIdTask(int id) {
+        return call(getByIdTask, () -> delegate.getByIdTask(id));
+    }
+
+    @Override
+    public Optional<Epic> getByIdEpic(int id) {
+        return call(getByIdEpic, () -> delegate.getByIdEpic(id));
+    }
+
+    @Override
+    public Optional<Subtask> getByIdSubtask(int id) {
+        return call(getByIdSubtask, () -> delegate.getByIdSubtask(id));
+    }
+
+    @Override
+    public int createTask(Task task) {
+        return callInt(createTask, () -> delegate.createTask(task));
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        return callInt(createEpic, () -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        return callInt(createSubtask, () -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public List<Integer> createAll(List<? extends Task> items) {
+        return call(createAll, () -> delegate.createAll(items));
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        return callInt(updateTask, () -> delegate.updateTask(task));
+    }
+
+    @Override
+    public int updateEpic(Epic epic) {
+        return callInt(updateEpic, () -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public int updateSubtask(Subtask subtask) {
+        return callInt(updateSubtask, () -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public int removeTaskById(int id) {
+        return callInt(removeTaskById, () -> delegate.removeTaskById(id));
+    }
+
+    @Override
+    public int removeEpicById(int id) {
+        return callInt(removeEpicById, () -> delegate.removeEpicById(id));
+    }
+
+    @Override
+    public int removeSubtaskById(int id) {
+        return callInt(removeSubtaskById, () -> delegate.removeSubtaskById(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtask(Epic epic) {
+        return call(getEpicSubtask, () -> delegate.getEpicSubtask(epic));
+    }
+
+    @Override
+    public void updateEpicStatus(int epicId) {
+        run(updateEpicStatus, () -> delegate.updateEpicStatus(epicId));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return call(getHistory, () -> delegate.getHistory());
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskMaxEndTime() {
+        return call(getSubtaskMaxEndTime, () -> delegate.getSubtaskMaxEndTime());
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskMinStartTime() {
+        return call(getSubtaskMinStartTime, () -> delegate.getSubtaskMinStartTime());
+    }
+
+    @Override
+    public LocalDateTime calculateEpicStartTime() {
+        return call(calculateEpicStartTime, () -> delegate.calculateEpicStartTime());
+    }
+
+    @Override
+    public LocalDateTime calculateEpicEndTime() {
+        return call(calculateEpicEndTime, () -> delegate.calculateEpicEndTime());
+    }
+
+    @Override
+    public Duration getDuration() {
+        return call(getDuration, () -> delegate.getDuration());
+    }
+
+    @Override
+    public Collection<Task> getPrioritizedTasks() {
+        return call(getPrioritizedTasks, () -> delegate.getPrioritizedTasks());
+    }
+
+    // Размеры служат датчиками, а не операциями, поэтому не учитываются в метриках
+    @Override
+    public int getCount(TaskStatus type) {
+        return delegate.getCount(type);
+    }
+
+    @Override
+    public long getVersion() {
+        return callLong(getVersion, () -> delegate.getVersion());
+    }
+
+    @Override
+    public long getVersion(TaskStatus type) {
+        return callLong(getTypeVersion, () -> delegate.getVersion(type));
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return callLong(getEntityVersion, () -> delegate.getEntityVersion(id));
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return callLong(getHistoryVersion, () -> delegate.getHistoryVersion());
+    }
+
+    @Override
+    public long getVersionEpoch() {
+        return callLong(getVersionEpoch, () -> delegate.getVersionEpoch());
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        run(addChangeListener, () -> delegate.addChangeListener(listener));
+    }
+}
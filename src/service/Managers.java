@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import service.utils.DurationAdapter;
 import service.utils.LocalDateTimeAdapter;
+import service.utils.TaskTypeAdapterFactory;
 import task.Task;
 import java.io.File;
 import java.time.Duration;
@@ -35,10 +36,19 @@ public final class Managers {
         return new FileBackedTaskManager(file);
     }
 
+    // Менеджер с ограниченным кэшем в памяти поверх файлов в каталоге directory
+    public static PagedTaskManager getPagedTaskManager(File directory, long maxCacheWeight) {
+        return new PagedTaskManager(directory, maxCacheWeight);
+    }
+
+    // Gson неизменяем и потокобезопасен, поэтому один экземпляр используется всеми обработчиками
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new TaskTypeAdapterFactory())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .registerTypeAdapter(Duration.class, new DurationAdapter()).serializeNulls().create();
+
     public static Gson getGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
-                .registerTypeAdapter(Duration.class, new DurationAdapter()).serializeNulls().create();
+        return GSON;
     }
 
 }
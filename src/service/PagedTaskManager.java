@@ -0,0 +1,116 @@
+package service;
+
+import service.cache.CacheStats;
+import service.cache.PagedTaskMap;
+import service.cache.TaskPageFile;
+import service.metrics.HeapFootprint;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.function.Consumer;
+
+// Менеджер для досок, которые не помещаются в память.
+// Задачи хранятся в файлах каталога (tasks.dat, epics.dat, subtasks.dat), а в памяти держится
+// ограниченный по весу кэш горячих задач. Изменения пишутся на диск при вытеснении из кэша или в flush().
+// Индексы и приоритеты хранят только id и поля для выборок, поэтому объём памяти ограничен весом кэша и числом задач.
+public class PagedTaskManager extends InMemoryTaskManager implements Closeable {
+
+    private final PagedTaskMap<Task> pagedTasks;
+    private final PagedTaskMap<Epic> pagedEpics;
+    private final PagedTaskMap<Subtask> pagedSubtasks;
+
+    // maxWeight - общий вес кэша, делится между типами задач: задачи и подзадачи получают по 40%, эпики - 20%
+    public PagedTaskManager(File directory, long maxWeight) {
+        this(new PagedTaskMap<>(Task.class, new TaskPageFile(new File(directory, "tasks.dat")),
+                        Math.max(1, maxWeight * 2 / 5), PagedTaskManager::estimateWeight),
+                new PagedTaskMap<>(Epic.class, new TaskPageFile(new File(directory, "epics.dat")),
+                        Math.max(1, maxWeight / 5), PagedTaskManager::estimateWeight),
+                new PagedTaskMap<>(Subtask.class, new TaskPageFile(new File(directory, "subtasks.dat")),
+                        Math.max(1, maxWeight * 2 / 5), PagedTaskManager::estimateWeight));
+    }
+
+    private PagedTaskManager(PagedTaskMap<Task> tasks, PagedTaskMap<Epic> epics, PagedTaskMap<Subtask> subtasks) {
+        super(tasks, epics, subtasks);
+        this.pagedTasks = tasks;
+        this.pagedEpics = epics;
+        this.pagedSubtasks = subtasks;
+        restoreState();
+    }
+
+    // Примерный размер задачи в памяти в байтах: заголовки объектов плюс строки в UTF-16
+    public static int estimateWeight(Task task) {
+        int weight = 96;
+        if (task.getName() != null) {
+            weight += 2 * task.getName().length();
+        }
+        if (task.getDescription() != null) {
+            weight += 2 * task.getDescription().length();
+        }
+        if (task instanceof Epic epic) {
+            weight += 16 * epic.getEpicSubtask().size();
+        }
+        return weight;
+    }
+
+    // Запись всех изменённых задач на диск
+    public void flush() {
+        pagedTasks.flush();
+        pagedEpics.flush();
+        pagedSubtasks.flush();
+    }
+
+    public CacheStats getCacheStats(TaskStatus type) {
+        return switch (type) {
+            case TASK -> pagedTasks.getStats();
+            case EPIC -> pagedEpics.getStats();
+            case SUBTASK -> pagedSubtasks.getStats();
+        };
+    }
+
+    // В оценку памяти входят только задачи в кэше: их вес и запись кэша. Вытесненные задачи не учитываются
+    @Override
+    protected boolean trackStoredFootprint(HeapFootprint footprint) {
+        footprint.trackCache(HeapFootprint.Category.TASKS, pagedTasks::getStats, HeapFootprint.HASH_ENTRY_BYTES);
+        footprint.trackCache(HeapFootprint.Category.EPICS, pagedEpics::getStats, HeapFootprint.HASH_ENTRY_BYTES);
+        footprint.trackCache(HeapFootprint.Category.SUBTASKS, pagedSubtasks::getStats,
+                HeapFootprint.HASH_ENTRY_BYTES);
+        return false;
+    }
+
+    @Override
+    public void close() {
+        pagedTasks.close();
+        pagedEpics.close();
+        pagedSubtasks.close();
+    }
+
+    // После открытия существующих файлов восстанавливаем счётчик id по ключам без чтения задач.
+    // Индексы и приоритеты строятся при первом обращении к ним одним проходом по файлам (forEachStored)
+    private void restoreState() {
+        int lastId = 0;
+        for (int id : tasks.keySet()) {
+            lastId = Math.max(lastId, id);
+        }
+        for (int id : epics.keySet()) {
+            lastId = Math.max(lastId, id);
+        }
+        for (int id : subtasks.keySet()) {
+            lastId = Math.max(lastId, id);
+        }
+        restoreIdCounter(lastId);
+        restoreIndexesLater();
+    }
+
+    @Override
+    protected void forEachStored(TaskStatus type, Consumer<Task> action) {
+        switch (type) {
+            case TASK -> pagedTasks.forEachStored(action);
+            case EPIC -> pagedEpics.forEachStored(action);
+            case SUBTASK -> pagedSubtasks.forEachStored(action);
+        }
+    }
+}
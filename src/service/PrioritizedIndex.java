@@ -0,0 +1,98 @@
+package service;
+
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Задачи и подзадачи со временем начала, упорядоченные по нему, для getPrioritizedTasks и проверки пересечений.
+// Хранит только id, тип и интервал задачи, а не сами объекты, поэтому PagedTaskManager может вытеснять задачи на диск.
+// Как и прежний TreeSet по времени начала, из задач с одинаковым временем начала хранится первая добавленная
+class PrioritizedIndex {
+
+    private final TreeMap<LocalDateTime, Slot> byStart = new TreeMap<>();
+    private final Map<Integer, Slot> byId = new HashMap<>();
+
+    // Интервал одной задачи
+    static class Slot {
+
+        private final int id;
+        private final TaskStatus type;
+        private final LocalDateTime start;
+        private final Duration duration;
+
+        Slot(int id, TaskStatus type, LocalDateTime start, Duration duration) {
+            this.id = id;
+            this.type = type;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        TaskStatus getType() {
+            return type;
+        }
+
+        LocalDateTime getStart() {
+            return start;
+        }
+
+        LocalDateTime getEnd() {
+            return start.plus(duration);
+        }
+
+        Duration getDuration() {
+            return duration;
+        }
+    }
+
+    // Задача должна иметь время начала и продолжительность
+    void add(Task task) {
+        remove(task.getId());
+        TaskStatus type = task instanceof Subtask ? TaskStatus.SUBTASK : TaskStatus.TASK;
+        Slot slot = new Slot(task.getId(), type, task.getStartTime(), task.getDuration());
+        if (byStart.putIfAbsent(slot.start, slot) == null) {
+            byId.put(slot.id, slot);
+        }
+    }
+
+    void remove(int id) {
+        Slot slot = byId.remove(id);
+        if (slot != null) {
+            byStart.remove(slot.start);
+        }
+    }
+
+    void removeType(TaskStatus type) {
+        byStart.values().removeIf(slot -> slot.type == type);
+        byId.values().removeIf(slot -> slot.type == type);
+    }
+
+    void clear() {
+        byStart.clear();
+        byId.clear();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    boolean isEmpty() {
+        return byId.isEmpty();
+    }
+
+    // Интервалы по возрастанию времени начала, без копирования
+    Collection<Slot> slots() {
+        return Collections.unmodifiableCollection(byStart.values());
+    }
+}
@@ -0,0 +1,326 @@
+package service;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Потокобезопасная обёртка над TaskManager для многопоточного HTTP-сервера.
+// Все вызовы выполняются под одной блокировкой (getById* меняют историю, поэтому даже чтение
+// не может идти параллельно), а коллекции возвращаются копиями, чтобы их можно было обходить вне блокировки.
+// Эпики менеджер меняет на месте (статус, список подзадач), поэтому наружу отдаются их копии, снятые под блокировкой
+public class SynchronizedTaskManager implements TaskManager {
+
+    private final TaskManager delegate;
+    private final Object lock = new Object();
+
+    public SynchronizedTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Collection<Task> getAllTask() {
+        synchronized (lock) {
+            return new ArrayList<>(delegate.getAllTask());
+        }
+    }
+
+    @Override
+    public Collection<Epic> getAllEpic() {
+        synchronized (lock) {
+            List<Epic> epics = new ArrayList<>();
+            delegate.getAllEpic().forEach(epic -> epics.add(snapshot(epic)));
+            return epics;
+        }
+    }
+
+    @Override
+    public Collection<Subtask> getAllSubtask() {
+        synchronized (lock) {
+            return new ArrayList<>(delegate.getAllSubtask());
+        }
+    }
+
+    @Override
+    public TaskPage<Task> queryTasks(TaskQuery query) {
+        synchronized (lock) {
+            return delegate.queryTasks(query);
+        }
+    }
+
+    @Override
+    public TaskPage<Epic> queryEpics(TaskQuery query) {
+        synchronized (lock) {
+            TaskPage<Epic> page = delegate.queryEpics(query);
+            List<Epic> items = new ArrayList<>(page.getItems().size());
+            page.getItems().forEach(epic -> items.add(snapshot(epic)));
+            return new TaskPage<>(items, page.getNextAfterId());
+        }
+    }
+
+    @Override
+    public TaskPage<Subtask> querySubtasks(TaskQuery query) {
+        synchronized (lock) {
+            return delegate.querySubtasks(query);
+        }
+    }
+
+    @Override
+    public void removeTasks() {
+        synchronized (lock) {
+            delegate.removeTasks();
+        }
+    }
+
+    @Override
+    public void removeEpics() {
+        synchronized (lock) {
+            delegate.removeEpics();
+        }
+    }
+
+    @Override
+    public void removeSubtasks() {
+        synchronized (lock) {
+            delegate.removeSubtasks();
+        }
+    }
+
+    @Override
+    public Optional<Task> getByIdTask(int id) {
+        synchronized (lock) {
+            return delegate.getByIdTask(id);
+        }
+    }
+
+    @Override
+    public Optional<Epic> getByIdEpic(int id) {
+        synchronized (lock) {
+            return delegate.getByIdEpic(id).map(SynchronizedTaskManager::snapshot);
+        }
+    }
+
+    @Override
+    public Optional<Subtask> getByIdSubtask(int id) {
+        synchronized (lock) {
+            return delegate.getByIdSubtask(id);
+        }
+    }
+
+    @Override
+    public Optional<Task> findById(TaskStatus type, int id) {
+        synchronized (lock) {
+            return delegate.findById(type, id).map(task -> task instanceof Epic epic ? snapshot(epic) : task);
+        }
+    }
+
+    @Override
+    public int createTask(Task task) {
+        synchronized (lock) {
+            return delegate.createTask(task);
+        }
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        synchronized (lock) {
+            return delegate.createEpic(epic);
+        }
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        synchronized (lock) {
+            return delegate.createSubtask(subtask);
+        }
+    }
+
+    @Override
+    public List<Integer> createAll(List<? extends Task> items) {
+        synchronized (lock) {
+            return delegate.createAll(items);
+        }
+    }
+
+    @Override
+    public int updateTask(Task task) {
+        synchronized (lock) {
+            return delegate.updateTask(task);
+        }
+    }
+
+    @Override
+    public int updateEpic(Epic epic) {
+        synchronized (lock) {
+            return delegate.updateEpic(epic);
+        }
+    }
+
+    @Override
+    public int updateSubtask(Subtask subtask) {
+        synchronized (lock) {
+            return delegate.updateSubtask(subtask);
+        }
+    }
+
+    @Override
+    public int removeTaskById(int id) {
+        synchronized (lock) {
+            return delegate.removeTaskById(id);
+        }
+    }
+
+    @Override
+    public int removeEpicById(int id) {
+        synchronized (lock) {
+            return delegate.removeEpicById(id);
+        }
+    }
+
+    @Override
+    public int removeSubtaskById(int id) {
+        synchronized (lock) {
+            return delegate.removeSubtaskById(id);
+        }
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtask(Epic epic) {
+        synchronized (lock) {
+            return new ArrayList<>(delegate.getEpicSubtask(epic));
+        }
+    }
+
+    @Override
+    public void updateEpicStatus(int epicId) {
+        synchronized (lock) {
+            delegate.updateEpicStatus(epicId);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (lock) {
+            List<Task> history = new ArrayList<>(delegate.getHistory());
+            history.replaceAll(task -> task instanceof Epic epic ? snapshot(epic) : task);
+            return history;
+        }
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskMaxEndTime() {
+        synchronized (lock) {
+            return delegate.getSubtaskMaxEndTime();
+        }
+    }
+
+    @Override
+    public Optional<Subtask> getSubtaskMinStartTime() {
+        synchronized (lock) {
+            return delegate.getSubtaskMinStartTime();
+        }
+    }
+
+    @Override
+    public LocalDateTime calculateEpicStartTime() {
+        synchronized (lock) {
+            return delegate.calculateEpicStartTime();
+        }
+    }
+
+    @Override
+    public LocalDateTime calculateEpicEndTime() {
+        synchronized (lock) {
+            return delegate.calculateEpicEndTime();
+        }
+    }
+
+    @Override
+    public Duration getDuration() {
+        synchronized (lock) {
+            return delegate.getDuration();
+        }
+    }
+
+    @Override
+    public Collection<Task> getPrioritizedTasks() {
+        synchronized (lock) {
+            return new ArrayList<>(delegate.getPrioritizedTasks());
+        }
+    }
+
+    @Override
+    public int getCount(TaskStatus type) {
+        synchronized (lock) {
+            return delegate.getCount(type);
+        }
+    }
+
+    @Override
+    public int getPrioritizedCount() {
+        synchronized (lock) {
+            return delegate.getPrioritizedCount();
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        synchronized (lock) {
+            return delegate.getVersion();
+        }
+    }
+
+    @Override
+    public long getVersion(TaskStatus type) {
+        synchronized (lock) {
+            return delegate.getVersion(type);
+        }
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        synchronized (lock) {
+            return delegate.getEntityVersion(id);
+        }
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        synchronized (lock) {
+            return delegate.getHistoryVersion();
+        }
+    }
+
+    // Эпоха не меняется за время жизни менеджера, поэтому читается без блокировки
+    @Override
+    public long getVersionEpoch() {
+        return delegate.getVersionEpoch();
+    }
+
+    // Подписчики вызываются под той же блокировкой, что и изменяющий метод
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        synchronized (lock) {
+            delegate.addChangeListener(listener);
+        }
+    }
+
+    private static Epic snapshot(Epic epic) {
+        try {
+            return epic.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
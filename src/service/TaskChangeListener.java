@@ -0,0 +1,11 @@
+package service;
+
+import task.TaskStatus;
+
+// Подписчик на изменения задач в менеджере.
+// Вызывается синхронно из метода, изменившего данные, поэтому должен работать быстро
+@FunctionalInterface
+public interface TaskChangeListener {
+
+    void onChange(TaskStatus type, int id, ChangeType change, long version);
+}
@@ -0,0 +1,182 @@
+package service;
+
+import service.metrics.HeapFootprint;
+import service.metrics.HeapLayout;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Индексы задач одного типа для TaskQuery: id по порядку, id по статусу, id подзадач по эпику
+// и id по времени начала. Для каждой задачи хранятся проиндексированные значения полей,
+// поэтому выборка проверяет фильтры без обращения к самим задачам (и без подгрузки их из файла).
+// Индекс обновляет InMemoryTaskManager при каждом изменении задачи
+class TaskIndex {
+
+    private static final NavigableSet<Integer> EMPTY = Collections.emptyNavigableSet();
+
+    private final TreeSet<Integer> ids = new TreeSet<>();
+    private final Map<Status, TreeSet<Integer>> byStatus = new EnumMap<>(Status.class);
+    private final Map<Integer, TreeSet<Integer>> byEpic = new HashMap<>();
+    private final TreeMap<LocalDateTime, TreeSet<Integer>> byStartTime = new TreeMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    void put(Task task) {
+        remove(task.getId());
+        // время эпика вычисляется по подзадачам, в индекс эпиков оно не попадает
+        LocalDateTime startTime = task instanceof Epic ? null : task.getStartTime();
+        int epicId = task instanceof Subtask subtask ? subtask.getEpicId() : 0;
+        Entry entry = new Entry(task.getStatus(), epicId, startTime);
+        int id = task.getId();
+
+        entries.put(id, entry);
+        ids.add(id);
+        if (entry.status != null) {
+            byStatus.computeIfAbsent(entry.status, status -> new TreeSet<>()).add(id);
+        }
+        if (epicId != 0) {
+            byEpic.computeIfAbsent(epicId, key -> new TreeSet<>()).add(id);
+        }
+        if (startTime != null) {
+            byStartTime.computeIfAbsent(startTime, key -> new TreeSet<>()).add(id);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Оценка памяти индекса на одну задачу: запись в entries, id в ids и в корзине статуса,
+    // своя корзина времени начала (пересекающиеся по времени задачи менеджер не принимает)
+    static long entryBytes() {
+        long treeSetBytes = HeapLayout.shallowSize(TreeSet.class) + HeapLayout.shallowSize(TreeMap.class);
+        return HeapFootprint.HASH_ENTRY_BYTES + HeapLayout.shallowSize(Entry.class)
+                + 4 * HeapFootprint.TREE_ENTRY_BYTES + treeSetBytes;
+    }
+
+    void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        ids.remove(id);
+        if (entry.status != null) {
+            removeFrom(byStatus, entry.status, id);
+        }
+        if (entry.epicId != 0) {
+            removeFrom(byEpic, entry.epicId, id);
+        }
+        if (entry.startTime != null) {
+            removeFrom(byStartTime, entry.startTime, id);
+        }
+    }
+
+    void clear() {
+        ids.clear();
+        byStatus.clear();
+        byEpic.clear();
+        byStartTime.clear();
+        entries.clear();
+    }
+
+    // id задач, подходящих под запрос, по возрастанию, не больше maxCount.
+    // Перебор идёт по самому узкому из доступных индексов, остальные фильтры проверяются по записям индекса
+    List<Integer> select(TaskQuery query, int maxCount) {
+        if (query.getEpicId() == null && query.getStatus() == null && query.hasStartRange()) {
+            return selectByStartRange(query, maxCount);
+        }
+        List<Integer> result = new ArrayList<>();
+        for (Integer id : candidates(query).tailSet(query.getAfterId(), false)) {
+            Entry entry = entries.get(id);
+            if (query.matches(entry.status, entry.epicId, entry.startTime)) {
+                result.add(id);
+                if (result.size() >= maxCount) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private NavigableSet<Integer> candidates(TaskQuery query) {
+        if (query.getEpicId() != null) {
+            return orEmpty(byEpic.get(query.getEpicId()));
+        }
+        if (query.getStatus() != null) {
+            return orEmpty(byStatus.get(query.getStatus()));
+        }
+        return ids;
+    }
+
+    // Диапазон времени начала упорядочен по времени, а не по id. Поэтому диапазон обходится как представление
+    // byStartTime, а maxCount наименьших id после курсора отбираются в ограниченную кучу, без копии всего диапазона
+    private List<Integer> selectByStartRange(TaskQuery query, int maxCount) {
+        NavigableMap<LocalDateTime, TreeSet<Integer>> range = byStartTime;
+        if (query.getStartFrom() != null) {
+            range = range.tailMap(query.getStartFrom(), true);
+        }
+        if (query.getStartTo() != null) {
+            range = range.headMap(query.getStartTo(), false);
+        }
+
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(Collections.reverseOrder()); // вершина - наибольший id
+        for (TreeSet<Integer> bucket : range.values()) {
+            for (Integer id : bucket.tailSet(query.getAfterId(), false)) {
+                if (smallest.size() >= maxCount && id > smallest.peek()) {
+                    break; // корзина упорядочена, дальше id только больше
+                }
+                Entry entry = entries.get(id);
+                if (query.matches(entry.status, entry.epicId, entry.startTime)) {
+                    smallest.add(id);
+                    if (smallest.size() > maxCount) {
+                        smallest.poll();
+                    }
+                }
+            }
+        }
+        List<Integer> result = new ArrayList<>(smallest);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static NavigableSet<Integer> orEmpty(NavigableSet<Integer> bucket) {
+        return bucket != null ? bucket : EMPTY;
+    }
+
+    private static <K> void removeFrom(Map<K, TreeSet<Integer>> index, K key, int id) {
+        TreeSet<Integer> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    // Значения полей задачи на момент последней индексации
+    private static class Entry {
+
+        private final Status status;
+        private final int epicId;
+        private final LocalDateTime startTime;
+
+        Entry(Status status, int epicId, LocalDateTime startTime) {
+            this.status = status;
+            this.epicId = epicId;
+            this.startTime = startTime;
+        }
+    }
+}
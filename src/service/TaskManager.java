@@ -3,6 +3,7 @@ package service;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -17,6 +18,13 @@ public interface TaskManager {
 
     Collection<Subtask> getAllSubtask();
 
+    // Выборка по индексам менеджера: фильтры, курсор и размер страницы задаются в TaskQuery
+    TaskPage<Task> queryTasks(TaskQuery query);
+
+    TaskPage<Epic> queryEpics(TaskQuery query);
+
+    TaskPage<Subtask> querySubtasks(TaskQuery query);
+
     void removeTasks();
 
     void removeEpics();
@@ -29,12 +37,20 @@ public interface TaskManager {
 
     Optional<Subtask> getByIdSubtask(int id);
 
+    // Задача по типу и id, включая перенесённые в архив. В отличие от getById* не попадает в историю
+    Optional<Task> findById(TaskStatus type, int id);
+
     int createTask(Task task);
 
     int createEpic(Epic epic);
 
     int createSubtask(Subtask subtask);
 
+    // Пакетное создание задач, эпиков и подзадач (тип определяется по классу элемента).
+    // Возвращает id для каждого элемента в том же порядке, -1 - если элемент отклонён.
+    // Пакет не атомарен: отклонённые элементы не отменяют создание остальных
+    List<Integer> createAll(List<? extends Task> items);
+
     int updateTask(Task task);
 
     int updateEpic(Epic epic);
@@ -65,5 +81,30 @@ public interface TaskManager {
     Duration getDuration();
 
     Collection<Task> getPrioritizedTasks();
+
+    // Число задач указанного типа, без копирования и подгрузки задач
+    int getCount(TaskStatus type);
+
+    // Число задач в getPrioritizedTasks, без копирования списка
+    int getPrioritizedCount();
+
+    // Версия данных: монотонно растёт при каждом создании, изменении и удалении
+    long getVersion();
+
+    // Версия последнего изменения задач указанного типа
+    long getVersion(TaskStatus type);
+
+    // Версия последнего изменения конкретной задачи (0, если задачи нет)
+    long getEntityVersion(int id);
+
+    // Растёт при каждом обращении к задаче, попадающем в историю
+    long getHistoryVersion();
+
+    // Эпоха версий: своя у каждого экземпляра менеджера. Версии начинаются заново при каждом запуске,
+    // поэтому одинаковые номера версий сравнимы только внутри одной эпохи
+    long getVersionEpoch();
+
+    // Подписка на создание, изменение и удаление задач
+    void addChangeListener(TaskChangeListener listener);
 }
 
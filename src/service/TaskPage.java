@@ -0,0 +1,30 @@
+package service;
+
+import task.Task;
+
+import java.util.List;
+
+// Страница результата выборки. Если после неё есть ещё задачи, nextAfterId - курсор следующей страницы
+public class TaskPage<T extends Task> {
+
+    private final List<T> items;
+    private final int nextAfterId;
+
+    public TaskPage(List<T> items, int nextAfterId) {
+        this.items = items;
+        this.nextAfterId = nextAfterId;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return nextAfterId > 0;
+    }
+
+    // Курсор для следующего запроса или -1, если это последняя страница
+    public int getNextAfterId() {
+        return nextAfterId;
+    }
+}
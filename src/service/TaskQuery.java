@@ -0,0 +1,101 @@
+package service;
+
+import task.Status;
+
+import java.time.LocalDateTime;
+
+// Параметры выборки списка задач: фильтры и страница.
+// Страница задаётся курсором afterId (возвращаются задачи с id больше него, по возрастанию id) и limit.
+// Курсор по id стабилен: создание и удаление других задач не сдвигает уже выданные страницы.
+// Фильтры объединяются по "и", незаданный фильтр (null) не ограничивает выборку
+public class TaskQuery {
+
+    private int limit = Integer.MAX_VALUE;
+    private int afterId = 0;
+    private Status status;
+    private Integer epicId;
+    private LocalDateTime startFrom;
+    private LocalDateTime startTo;
+
+    public static TaskQuery all() {
+        return new TaskQuery();
+    }
+
+    public TaskQuery limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit должен быть больше 0");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public TaskQuery afterId(int afterId) {
+        this.afterId = afterId;
+        return this;
+    }
+
+    public TaskQuery status(Status status) {
+        this.status = status;
+        return this;
+    }
+
+    // Только подзадачи указанного эпика
+    public TaskQuery epicId(Integer epicId) {
+        this.epicId = epicId;
+        return this;
+    }
+
+    // Время начала в диапазоне [startFrom, startTo); задачи без времени в такую выборку не попадают
+    public TaskQuery startBetween(LocalDateTime startFrom, LocalDateTime startTo) {
+        this.startFrom = startFrom;
+        this.startTo = startTo;
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getAfterId() {
+        return afterId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public LocalDateTime getStartFrom() {
+        return startFrom;
+    }
+
+    public LocalDateTime getStartTo() {
+        return startTo;
+    }
+
+    boolean hasStartRange() {
+        return startFrom != null || startTo != null;
+    }
+
+    boolean matches(Status taskStatus, int taskEpicId, LocalDateTime startTime) {
+        if (status != null && status != taskStatus) {
+            return false;
+        }
+        if (epicId != null && epicId != taskEpicId) {
+            return false;
+        }
+        if (hasStartRange()) {
+            if (startTime == null) {
+                return false;
+            }
+            if (startFrom != null && startTime.isBefore(startFrom)) {
+                return false;
+            }
+            return startTo == null || startTime.isBefore(startTo);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package service.archive;
+
+import task.Status;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Правило, по которому завершённые задачи переносятся в архив.
+// Менеджер в любом случае архивирует только задачи и подзадачи в статусе DONE
+@FunctionalInterface
+public interface ArchivePolicy {
+
+    boolean shouldArchive(Task task, LocalDateTime now);
+
+    // Задачи в статусе DONE, которые закончились больше чем age назад.
+    // Задачи без времени не архивируются: по ним нельзя понять, как давно они завершены
+    static ArchivePolicy doneOlderThan(Duration age) {
+        return (task, now) -> task.getStatus() == Status.DONE
+                && task.getStartTime() != null
+                && task.getDuration() != null
+                && task.getEndTime().plus(age).isBefore(now);
+    }
+
+    // Все задачи в статусе DONE, независимо от времени окончания
+    static ArchivePolicy allDone() {
+        return (task, now) -> task.getStatus() == Status.DONE;
+    }
+}
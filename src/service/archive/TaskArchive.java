@@ -0,0 +1,176 @@
+package service.archive;
+
+import service.exception.ManagerSaveException;
+import service.utils.TaskRecordCodec;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Холодный архив завершённых задач.
+// Файл только дописывается: каждая запись - заголовок (id, тип, длина) и сжатые deflate данные задачи.
+// В памяти держится только индекс id -> смещение, сами задачи читаются с диска по запросу.
+// Удаление дописывает запись-надгробие без данных, которая при открытии архива убирает id из индекса.
+public class TaskArchive implements Closeable {
+
+    // Заголовок записи: id (int), тип (byte), длина сжатых данных (int)
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+    // Тип записи-надгробия
+    private static final byte TOMBSTONE = -1;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final Map<Integer, Long> offsets = new HashMap<>();
+    private final Map<Integer, TaskStatus> types = new HashMap<>();
+
+    public TaskArchive(File file) {
+        this.file = file;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            rebuildIndex();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при открытии архива " + file);
+        }
+    }
+
+    // Добавление задачи в архив. Повторное архивирование того же id заменяет запись в индексе
+    public void append(Task task) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            try (DataOutputStream out = new DataOutputStream(
+                    new DeflaterOutputStream(buffer, new Deflater(Deflater.BEST_COMPRESSION)))) {
+                TaskRecordCodec.write(out, task);
+            }
+
+            TaskStatus type = TaskRecordCodec.typeOf(task);
+            long offset = raf.length();
+            raf.seek(offset);
+            raf.writeInt(task.getId());
+            raf.writeByte(type.ordinal());
+            raf.writeInt(buffer.size());
+            raf.write(buffer.toByteArray());
+
+            offsets.put(task.getId(), offset);
+            types.put(task.getId(), type);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи задачи " + task.getId() + " в архив " + file);
+        }
+    }
+
+    // Удаление задачи из архива. Возвращает false, если задачи в архиве нет
+    public boolean remove(int id) {
+        if (!offsets.containsKey(id)) {
+            return false;
+        }
+        try {
+            raf.seek(raf.length());
+            raf.writeInt(id);
+            raf.writeByte(TOMBSTONE);
+            raf.writeInt(0);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении задачи " + id + " из архива " + file);
+        }
+        offsets.remove(id);
+        types.remove(id);
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+
+    // Тип задачи по индексу, без чтения самой записи
+    public Optional<TaskStatus> getType(int id) {
+        return Optional.ofNullable(types.get(id));
+    }
+
+    public Optional<Task> findById(int id) {
+        Long offset = offsets.get(id);
+        if (offset == null) {
+            return Optional.empty();
+        }
+        try {
+            raf.seek(offset + Integer.BYTES + 1);
+            byte[] compressed = new byte[raf.readInt()];
+            raf.readFully(compressed);
+            try (DataInputStream in = new DataInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+                return Optional.of(TaskRecordCodec.read(in));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении задачи " + id + " из архива " + file);
+        }
+    }
+
+    // Поиск по типу и условию. Задачи распаковываются по одной, отбор идёт по индексу типов
+    public List<Task> findAll(TaskStatus type, Predicate<Task> filter) {
+        List<Task> result = new ArrayList<>();
+        for (Map.Entry<Integer, TaskStatus> entry : types.entrySet()) {
+            if (entry.getValue() != type) {
+                continue;
+            }
+            findById(entry.getKey()).filter(filter).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    public Set<Integer> getArchivedIds() {
+        return Collections.unmodifiableSet(offsets.keySet());
+    }
+
+    public int size() {
+        return offsets.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии архива " + file);
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        long length = raf.length();
+        long offset = 0;
+        while (offset + HEADER_SIZE <= length) {
+            raf.seek(offset);
+            int id = raf.readInt();
+            byte type = raf.readByte();
+            int size = raf.readInt();
+            if (offset + HEADER_SIZE + size > length) {
+                break; // недописанная запись в конце файла
+            }
+            if (type == TOMBSTONE) {
+                offsets.remove(id);
+                types.remove(id);
+            } else {
+                offsets.put(id, offset);
+                types.put(id, TaskStatus.values()[type]);
+            }
+            offset += HEADER_SIZE + size;
+        }
+        if (offset < length) {
+            raf.setLength(offset);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package service.cache;
+
+// Снимок метрик кэша: попадания, промахи, вытеснения и отложенные записи на диск
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long writeBacks;
+    private final int size;
+    private final long weight;
+
+    public CacheStats(long hits, long misses, long evictions, long writeBacks, int size, long weight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.writeBacks = writeBacks;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getWriteBacks() {
+        return writeBacks;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    // Доля попаданий среди всех обращений (0, если обращений не было)
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", writeBacks=" + writeBacks +
+                ", size=" + size +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -0,0 +1,152 @@
+package service.cache;
+
+import task.Task;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// Хранилище задач одного типа: горячие задачи лежат в SegmentedLruCache, холодные - в TaskPageFile.
+// Подменяет HashMap в InMemoryTaskManager, поэтому вся логика менеджера работает без изменений.
+// В памяти всегда хранится только множество id, сами объекты подгружаются с диска по требованию.
+public class PagedTaskMap<V extends Task> extends AbstractMap<Integer, V> {
+
+    private final Class<V> type;
+    private final TaskPageFile pageFile;
+    private final SegmentedLruCache<Integer, V> cache;
+    private final Set<Integer> ids;
+
+    public PagedTaskMap(Class<V> type, TaskPageFile pageFile, long maxWeight, ToIntFunction<V> weigher) {
+        this.type = type;
+        this.pageFile = pageFile;
+        this.cache = new SegmentedLruCache<>(maxWeight, weigher, (id, task) -> pageFile.write(task));
+        this.ids = new HashSet<>(pageFile.ids());
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Integer id) || !ids.contains(id)) {
+            return null;
+        }
+
+        V value = cache.get(id);
+        if (value == null) { // холодная задача - подгружаем с диска
+            value = type.cast(pageFile.read(id));
+            if (value != null) {
+                cache.put(id, value, false);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && ids.contains(key);
+    }
+
+    // В отличие от HashMap предыдущее значение не подгружается с диска ради возврата
+    @Override
+    public V put(Integer id, V value) {
+        ids.add(id);
+        cache.put(id, value, true);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Integer id) || !ids.remove(id)) {
+            return null;
+        }
+        cache.invalidate(id);
+        pageFile.delete(id);
+        return null;
+    }
+
+    @Override
+    public void clear() {
+        ids.clear();
+        cache.invalidateAll();
+        pageFile.clear();
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    // Ключи отдаются без подгрузки задач с диска
+    @Override
+    public Set<Integer> keySet() {
+        return Collections.unmodifiableSet(ids);
+    }
+
+    @Override
+    public Set<Entry<Integer, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                // обходим копию id, чтобы менеджер мог изменять хранилище во время обхода
+                Iterator<Integer> idIterator = new ArrayList<>(ids).iterator();
+                return new Iterator<>() {
+                    private Integer current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return idIterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<Integer, V> next() {
+                        current = idIterator.next();
+                        return new SimpleImmutableEntry<>(current, get(current));
+                    }
+
+                    @Override
+                    public void remove() {
+                        PagedTaskMap.this.remove(current);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ids.size();
+            }
+        };
+    }
+
+    // Обход всех задач без помещения в кэш: изменённые сначала записываются на диск, затем задачи читаются
+    // из файла по одной и сразу становятся мусором. Для перестроения индексов, не вытесняя горячие задачи
+    public void forEachStored(Consumer<? super V> action) {
+        cache.flush();
+        for (Integer id : new ArrayList<>(ids)) {
+            V value = type.cast(pageFile.read(id));
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    // Запись всех изменённых задач на диск и сжатие файла, если в нём накопилось много мусора
+    public void flush() {
+        cache.flush();
+        if (pageFile.getGarbageRatio() > 0.5) {
+            pageFile.compact();
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    public void close() {
+        flush();
+        pageFile.close();
+    }
+}
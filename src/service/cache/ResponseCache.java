@@ -0,0 +1,155 @@
+package service.cache;
+
+import service.ChangeType;
+import service.metrics.HeapLayout;
+import task.TaskStatus;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Кэш готовых JSON-ответов для GET-запросов.
+// Ключ - маршрут ("tasks", "epic-5"), запись хранит версию менеджера, для которой она сериализована.
+// Запись отдаётся только при совпадении версии, а изменения в менеджере сразу удаляют затронутые записи.
+// Объём ограничен суммарным размером тел, вытесняются давно не использованные записи.
+// Методы синхронизированы: кэш общий для всех потоков HTTP-сервера
+public class ResponseCache {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // maxBytes - общий объём кэша, maxEntryBytes - максимальный размер одного ответа
+    public ResponseCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    // Ключ списка задач типа, например "tasks"
+    public static String listKey(TaskStatus type) {
+        return scope(type) + "s";
+    }
+
+    // Ключ отдельной задачи, например "task-5"
+    public static String entityKey(TaskStatus type, int id) {
+        return scope(type) + "-" + id;
+    }
+
+    private static String scope(TaskStatus type) {
+        return switch (type) {
+            case TASK -> "task";
+            case EPIC -> "epic";
+            case SUBTASK -> "subtask";
+        };
+    }
+
+    // Служебная память на запись сверх самих ответов (вес в CacheStats): узел LinkedHashMap, Entry,
+    // заголовки двух массивов и ключ вида "subtask-12345"
+    public static long entryOverheadBytes() {
+        return HeapLayout.shallowSize("java.util.LinkedHashMap$Entry") + HeapLayout.shallowSize(Entry.class)
+                + 2L * HeapLayout.ARRAY_HEADER + HeapLayout.stringSize("subtask-12345");
+    }
+
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public synchronized Entry get(String key, long version) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != version) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    public synchronized void put(String key, long version, byte[] body) {
+        if (body.length > maxEntryBytes) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(version, body));
+        if (previous != null) {
+            bytes -= previous.size();
+        }
+        bytes += body.length;
+        evictOverflow();
+    }
+
+    // Слушатель изменений менеджера: удаляет список типа и запись самой задачи
+    public synchronized void onChange(TaskStatus type, int id, ChangeType change, long version) {
+        invalidate(listKey(type));
+        invalidate(entityKey(type, id));
+    }
+
+    // Вес в статистике - занятый объём в байтах
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, 0, entries.size(), bytes);
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    // Сохранение gzip-версии ответа, если запись за это время не была заменена или удалена
+    public synchronized void putGzipped(String key, Entry entry, byte[] gzipped) {
+        if (entries.get(key) == entry && entry.gzipped == null) {
+            entry.gzipped = gzipped;
+            bytes += gzipped.length;
+            evictOverflow();
+        }
+    }
+
+    private void invalidate(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size();
+            invalidations++;
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            bytes -= eldest.size();
+            evictions++;
+        }
+    }
+
+    // Сериализованный ответ и, если его уже запрашивали со сжатием, его gzip-версия
+    public static class Entry {
+
+        private final long version;
+        private final byte[] body;
+        private volatile byte[] gzipped;
+
+        Entry(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        private long size() {
+            byte[] gz = gzipped;
+            return body.length + (gz == null ? 0 : gz.length);
+        }
+    }
+}
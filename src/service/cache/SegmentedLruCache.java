@@ -0,0 +1,190 @@
+package service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+// Сегментированный LRU-кэш с ограничением по весу.
+// Новые записи попадают в испытательный сегмент (probation), а при повторном обращении
+// переносятся в защищённый сегмент (protected). Так однократные обращения (например, полный обход)
+// не вытесняют из кэша действительно горячие записи.
+// Изменённые (dirty) записи не пишутся сразу, а сбрасываются через writeBack при вытеснении или flush().
+// Класс не потокобезопасен, как и InMemoryTaskManager, который им пользуется.
+public class SegmentedLruCache<K, V> {
+
+    // Доля общего веса, отводимая защищённому сегменту
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final long maxWeight;
+    private final long maxProtectedWeight;
+    private final ToIntFunction<V> weigher;
+    private final BiConsumer<K, V> writeBack;
+
+    private long probationWeight;
+    private long protectedWeight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeBacks;
+
+    public SegmentedLruCache(long maxWeight, ToIntFunction<V> weigher, BiConsumer<K, V> writeBack) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Вес кэша должен быть положительным");
+        }
+        this.maxWeight = maxWeight;
+        this.maxProtectedWeight = (long) (maxWeight * PROTECTED_RATIO);
+        this.weigher = weigher;
+        this.writeBack = writeBack;
+    }
+
+    // Получение значения. Повторное обращение к записи из probation переносит её в protected
+    public V get(K key) {
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry != null) {
+            hits++;
+            return entry.value;
+        }
+
+        entry = probation.remove(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        probationWeight -= entry.weight;
+        protectedSegment.put(key, entry);
+        protectedWeight += entry.weight;
+        demoteOverflow();
+        return entry.value;
+    }
+
+    public boolean contains(K key) {
+        return protectedSegment.containsKey(key) || probation.containsKey(key);
+    }
+
+    // Добавление или замена значения. dirty = true означает, что значение ещё не записано на диск
+    public void put(K key, V value, boolean dirty) {
+        int weight = Math.max(1, weigher.applyAsInt(value));
+
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry != null) {
+            protectedWeight += weight - entry.weight;
+            entry.update(value, weight, dirty);
+            demoteOverflow();
+        } else if ((entry = probation.get(key)) != null) {
+            probationWeight += weight - entry.weight;
+            entry.update(value, weight, dirty);
+        } else {
+            probation.put(key, new Entry<>(value, weight, dirty));
+            probationWeight += weight;
+        }
+        evictOverflow();
+    }
+
+    // Удаление записи без записи на диск (значение удалено из хранилища)
+    public void invalidate(K key) {
+        Entry<V> entry = protectedSegment.remove(key);
+        if (entry != null) {
+            protectedWeight -= entry.weight;
+            return;
+        }
+        entry = probation.remove(key);
+        if (entry != null) {
+            probationWeight -= entry.weight;
+        }
+    }
+
+    public void invalidateAll() {
+        protectedSegment.clear();
+        probation.clear();
+        protectedWeight = 0;
+        probationWeight = 0;
+    }
+
+    // Сброс всех изменённых записей через writeBack. Записи остаются в кэше
+    public void flush() {
+        flushSegment(protectedSegment);
+        flushSegment(probation);
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, writeBacks,
+                protectedSegment.size() + probation.size(), protectedWeight + probationWeight);
+    }
+
+    private void flushSegment(Map<K, Entry<V>> segment) {
+        for (Map.Entry<K, Entry<V>> e : segment.entrySet()) {
+            if (e.getValue().dirty) {
+                writeBack(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    // Переполненный protected отдаёт самые старые записи обратно в probation
+    private void demoteOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> it = protectedSegment.entrySet().iterator();
+        while (protectedWeight > maxProtectedWeight && it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            protectedWeight -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationWeight += eldest.getValue().weight;
+        }
+    }
+
+    // Вытеснение самых старых записей сначала из probation, затем из protected
+    private void evictOverflow() {
+        evictFrom(probation, true);
+        evictFrom(protectedSegment, false);
+    }
+
+    private void evictFrom(LinkedHashMap<K, Entry<V>> segment, boolean isProbation) {
+        Iterator<Map.Entry<K, Entry<V>>> it = segment.entrySet().iterator();
+        while (protectedWeight + probationWeight > maxWeight && it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            if (isProbation) {
+                probationWeight -= eldest.getValue().weight;
+            } else {
+                protectedWeight -= eldest.getValue().weight;
+            }
+            evictions++;
+            if (eldest.getValue().dirty) {
+                writeBack(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void writeBack(K key, Entry<V> entry) {
+        writeBack.accept(key, entry.value);
+        entry.dirty = false;
+        writeBacks++;
+    }
+
+    // Запись кэша: значение, его вес и признак несохранённых изменений
+    private static class Entry<V> {
+
+        private V value;
+        private int weight;
+        private boolean dirty;
+
+        Entry(V value, int weight, boolean dirty) {
+            this.value = value;
+            this.weight = weight;
+            this.dirty = dirty;
+        }
+
+        void update(V value, int weight, boolean dirty) {
+            this.value = value;
+            this.weight = weight;
+            this.dirty = this.dirty || dirty;
+        }
+    }
+}
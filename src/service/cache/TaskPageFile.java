@@ -0,0 +1,195 @@
+package service.cache;
+
+import service.exception.ManagerSaveException;
+import service.utils.TaskRecordCodec;
+import task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Файл-хранилище задач с индексом id -> смещение записи.
+// Записи только дописываются в конец: обновление добавляет новую версию, удаление - пометку об удалении.
+// Индекс восстанавливается при открытии файла, устаревшие версии убираются методом compact().
+public class TaskPageFile implements Closeable {
+
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 0;
+
+    // Заголовок записи: id (int), флаг (byte), длина данных (int)
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+
+    private final File file;
+    private final Map<Integer, Long> offsets = new HashMap<>();
+    private RandomAccessFile raf;
+    private long liveBytes;
+
+    public TaskPageFile(File file) {
+        this.file = file;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            rebuildIndex();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при открытии файла " + file);
+        }
+    }
+
+    public boolean contains(int id) {
+        return offsets.containsKey(id);
+    }
+
+    public Set<Integer> ids() {
+        return offsets.keySet();
+    }
+
+    public Task read(int id) {
+        Long offset = offsets.get(id);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            raf.seek(offset + Integer.BYTES + 1);
+            byte[] payload = new byte[raf.readInt()];
+            raf.readFully(payload);
+            return TaskRecordCodec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении задачи " + id + " из файла " + file);
+        }
+    }
+
+    public void write(Task task) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+            TaskRecordCodec.write(new DataOutputStream(buffer), task);
+            Long previous = offsets.put(task.getId(), append(task.getId(), LIVE, buffer.toByteArray()));
+            if (previous != null) {
+                liveBytes -= recordSize(previous);
+            }
+            liveBytes += HEADER_SIZE + buffer.size();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи задачи " + task.getId() + " в файл " + file);
+        }
+    }
+
+    public void delete(int id) {
+        Long previous = offsets.remove(id);
+        if (previous == null) {
+            return;
+        }
+        try {
+            liveBytes -= recordSize(previous);
+            append(id, DELETED, new byte[0]);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении задачи " + id + " из файла " + file);
+        }
+    }
+
+    public void clear() {
+        try {
+            raf.setLength(0);
+            offsets.clear();
+            liveBytes = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при очистке файла " + file);
+        }
+    }
+
+    // Доля места в файле, занятая устаревшими версиями и пометками об удалении
+    public double getGarbageRatio() {
+        try {
+            long length = raf.length();
+            return length == 0 ? 0.0 : 1.0 - (double) liveBytes / length;
+        } catch (IOException e) {
+            return 0.0;
+        }
+    }
+
+    // Переписывает файл, оставляя только актуальные версии записей
+    public void compact() {
+        File compacted = new File(file.getPath() + ".compact");
+        Map<Integer, Long> newOffsets = new HashMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+                byte[] record = new byte[(int) recordSize(entry.getValue())]; // recordSize сдвигает позицию файла
+                raf.seek(entry.getValue());
+                raf.readFully(record);
+                newOffsets.put(entry.getKey(), out.getFilePointer());
+                out.write(record);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сжатии файла " + file);
+        }
+
+        try {
+            raf.close();
+            Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            raf = new RandomAccessFile(file, "rw");
+            offsets.clear();
+            offsets.putAll(newOffsets);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при замене файла " + file);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии файла " + file);
+        }
+    }
+
+    private long append(int id, byte flag, byte[] payload) throws IOException {
+        long offset = raf.length();
+        raf.seek(offset);
+        raf.writeInt(id);
+        raf.writeByte(flag);
+        raf.writeInt(payload.length);
+        raf.write(payload);
+        return offset;
+    }
+
+    private long recordSize(long offset) throws IOException {
+        raf.seek(offset + Integer.BYTES + 1);
+        return HEADER_SIZE + raf.readInt();
+    }
+
+    // Последняя запись для каждого id определяет, жива ли задача
+    private void rebuildIndex() throws IOException {
+        long length = raf.length();
+        long offset = 0;
+        raf.seek(0);
+        while (offset + HEADER_SIZE <= length) {
+            int id = raf.readInt();
+            byte flag = raf.readByte();
+            int size = raf.readInt();
+            if (offset + HEADER_SIZE + size > length) {
+                break; // недописанная запись в конце файла
+            }
+            Long previous = flag == LIVE ? offsets.put(id, offset) : offsets.remove(id);
+            if (previous != null) {
+                liveBytes -= recordSize(previous);
+            }
+            if (flag == LIVE) {
+                liveBytes += HEADER_SIZE + size;
+            }
+            offset += HEADER_SIZE + size;
+            raf.seek(offset);
+        }
+        if (offset < length) {
+            raf.setLength(offset);
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package service.engine;
+
+import com.sun.net.httpserver.Headers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Соединение NIO-движка. Чтение, разбор запросов и запись в сокет выполняются только в потоке цикла событий;
+// поток обработчика лишь добавляет буферы ответа в очередь (enqueue) и сообщает о завершении ответа.
+// Пока запрос обрабатывается, соединение не читается: следующие запросы ждут в буфере чтения или в сокете
+class NioConnection {
+
+    // Максимальный размер тела запроса
+    static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+    // Начальный буфер тела: дальше он растёт по мере прихода данных, а не по заявленному Content-Length
+    private static final int INITIAL_BODY_BYTES = 8 * 1024;
+
+    // Сколько байт ответа может ждать отправки, прежде чем поток обработчика остановится
+    private static final long MAX_QUEUED_BYTES = 256 * 1024;
+    // Сколько поток обработчика ждёт, пока клиент заберёт ответ, прежде чем соединение будет закрыто
+    private static final long WRITE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final NioServerEngine engine;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final BufferPool pool;
+    private final InetSocketAddress remoteAddress;
+    private final InetSocketAddress localAddress;
+
+    // Состояние потока цикла
+    private ByteBuffer readBuffer; // в режиме записи: готов к channel.read
+    private RequestHead head;      // заголовки запроса, тело которого ещё читается
+    private byte[] body;
+    private int bodyFilled;
+    private boolean busy;          // запрос передан обработчику
+    private boolean closing;       // закрыть после отправки очереди
+
+    private volatile boolean closed;
+
+    // Очередь ответа: пишет поток обработчика, отправляет поток цикла
+    private final ConcurrentLinkedQueue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private long queuedBytes;
+
+    NioConnection(NioServerEngine engine, SocketChannel channel, SelectionKey key, BufferPool pool) throws IOException {
+        this.engine = engine;
+        this.channel = channel;
+        this.key = key;
+        this.pool = pool;
+        this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+        this.readBuffer = pool.acquire();
+    }
+
+    InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    BufferPool getPool() {
+        return pool;
+    }
+
+    //-------------------------------------------------------------------------
+    // Поток цикла событий
+    //-------------------------------------------------------------------------
+
+    void onReadable() throws IOException {
+        if (channel.read(readBuffer) < 0) {
+            closeNow();
+            return;
+        }
+        processInput();
+    }
+
+    void onWritable() throws IOException {
+        writeQueued();
+    }
+
+    // Разбор запросов из буфера чтения, пока соединение не занято
+    private void processInput() {
+        while (!busy && !closing && !closed) {
+            readBuffer.flip();
+            NioHttpExchange exchange;
+            try {
+                exchange = parse();
+            } catch (BadRequestException e) {
+                readBuffer.compact();
+                reject(e.status, e.getMessage());
+                return;
+            }
+            readBuffer.compact();
+            if (exchange == null) {
+                if (head == null && !readBuffer.hasRemaining()) {
+                    reject(431, "Слишком большие заголовки запроса");
+                    return;
+                }
+                break;
+            }
+            busy = true;
+            if (!engine.dispatch(exchange)) {
+                busy = false;
+                reject(503, "Сервер перегружен");
+                return;
+            }
+        }
+        updateInterest();
+    }
+
+    // Запрос целиком или null, если данных пока не хватает. Буфер в режиме чтения
+    private NioHttpExchange parse() throws BadRequestException {
+        if (head == null) {
+            int end = findHeadEnd(readBuffer);
+            if (end < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[end - readBuffer.position()];
+            readBuffer.get(bytes);
+            head = RequestHead.parse(bytes);
+            body = new byte[Math.min(head.contentLength, INITIAL_BODY_BYTES)];
+            bodyFilled = 0;
+        }
+        int count = Math.min(readBuffer.remaining(), head.contentLength - bodyFilled);
+        if (bodyFilled + count > body.length) { // растим буфер вдвое, но не больше Content-Length
+            body = Arrays.copyOf(body, Math.min(head.contentLength, Math.max(body.length * 2, bodyFilled + count)));
+        }
+        readBuffer.get(body, bodyFilled, count);
+        bodyFilled += count;
+        if (bodyFilled < head.contentLength) {
+            return null;
+        }
+        NioHttpExchange exchange = new NioHttpExchange(this, head.method, head.target, head.protocol,
+                head.headers, body, head.keepAlive);
+        head = null;
+        body = null;
+        return exchange;
+    }
+
+    // Позиция сразу после пустой строки, завершающей заголовки, или -1
+    private static int findHeadEnd(ByteBuffer buffer) {
+        for (int i = buffer.position(); i + 3 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n' && buffer.get(i + 2) == '\r'
+                    && buffer.get(i + 3) == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    // Ответ с ошибкой из потока цикла и закрытие соединения после его отправки
+    private void reject(int status, String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        String responseHead = "HTTP/1.1 " + status + " " + NioHttpExchange.reasonPhrase(status) + "\r\n"
+                + "Content-Type: text/plain\r\nContent-Length: " + text.length + "\r\nConnection: close\r\n\r\n";
+        byte[] headBytes = responseHead.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer buffer = pool.acquire();
+        if (headBytes.length + text.length <= buffer.capacity()) {
+            buffer.put(headBytes).put(text).flip();
+            writeQueue.add(buffer);
+        } else {
+            pool.release(buffer);
+        }
+        closing = true;
+        try {
+            writeQueued();
+        } catch (IOException e) {
+            closeNow();
+        }
+    }
+
+    // Отправка очереди ответа; то, что не поместилось в сокет, уйдёт по OP_WRITE
+    private void writeQueued() throws IOException {
+        long written = 0;
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.peek()) != null) {
+            int before = buffer.remaining();
+            channel.write(buffer);
+            written += before - buffer.remaining();
+            if (buffer.hasRemaining()) {
+                break;
+            }
+            writeQueue.poll();
+            pool.release(buffer);
+        }
+        if (written > 0) {
+            lock.lock();
+            try {
+                queuedBytes -= written;
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (closing && !busy && writeQueue.isEmpty()) {
+            closeNow();
+            return;
+        }
+        updateInterest();
+    }
+
+    private void updateInterest() {
+        if (closed || !key.isValid()) {
+            return;
+        }
+        int ops = busy || closing ? 0 : SelectionKey.OP_READ;
+        if (!writeQueue.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    private void onWriteScheduled() {
+        writeScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        try {
+            writeQueued();
+        } catch (IOException e) {
+            closeNow();
+        }
+    }
+
+    // Ответ отправлен в очередь целиком: соединение закрывается или переходит к следующему запросу
+    private void onResponseComplete(boolean keepAlive) {
+        busy = false;
+        if (closed) {
+            return;
+        }
+        if (!keepAlive) {
+            closing = true;
+        }
+        try {
+            writeQueued();
+        } catch (IOException e) {
+            closeNow();
+            return;
+        }
+        processInput(); // запросы, присланные подряд (pipelining), уже могут лежать в буфере
+    }
+
+    void closeNow() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // соединение уже разорвано
+        }
+        if (readBuffer != null) {
+            pool.release(readBuffer);
+            readBuffer = null;
+        }
+        ByteBuffer buffer;
+        while ((buffer = writeQueue.poll()) != null) {
+            pool.release(buffer);
+        }
+        lock.lock();
+        try {
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        engine.connectionClosed(this);
+    }
+
+    //-------------------------------------------------------------------------
+    // Поток обработчика
+    //-------------------------------------------------------------------------
+
+    // Буфер ответа в режиме чтения. Если в очереди слишком много неотправленных данных, поток обработчика ждёт:
+    // медленный клиент не заставляет держать весь ответ в памяти. Ожидание ограничено WRITE_TIMEOUT_NANOS,
+    // после него соединение закрывается. Поток цикла не ждёт никогда - освободить очередь может только он
+    void enqueue(ByteBuffer buffer) throws IOException {
+        lock.lock();
+        try {
+            long remaining = WRITE_TIMEOUT_NANOS;
+            while (queuedBytes > MAX_QUEUED_BYTES && !closed && !engine.isLoopThread()) {
+                if (remaining <= 0) {
+                    engine.runOnLoop(this::closeNow);
+                    pool.release(buffer);
+                    throw new IOException("Клиент не забирает ответ");
+                }
+                remaining = drained.awaitNanos(remaining);
+            }
+            if (closed) {
+                pool.release(buffer);
+                throw new IOException("Соединение закрыто");
+            }
+            queuedBytes += buffer.remaining();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.release(buffer);
+            throw new InterruptedIOException("Отправка ответа прервана");
+        } finally {
+            lock.unlock();
+        }
+        writeQueue.add(buffer);
+        if (writeScheduled.compareAndSet(false, true)) {
+            engine.runOnLoop(this::onWriteScheduled);
+        }
+    }
+
+    void responseComplete(boolean keepAlive) {
+        engine.runOnLoop(() -> onResponseComplete(keepAlive));
+    }
+
+    //-------------------------------------------------------------------------
+    // Разбор заголовков запроса
+    //-------------------------------------------------------------------------
+
+    private static class RequestHead {
+
+        private String method;
+        private String target;
+        private String protocol;
+        private final Headers headers = new Headers();
+        private int contentLength;
+        private boolean keepAlive;
+
+        static RequestHead parse(byte[] bytes) throws BadRequestException {
+            String[] lines = new String(bytes, StandardCharsets.ISO_8859_1).split("\r\n");
+            String[] requestLine = lines[0].split(" ");
+            if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) {
+                throw new BadRequestException(400, "Неверная строка запроса");
+            }
+            RequestHead head = new RequestHead();
+            head.method = requestLine[0];
+            head.target = requestLine[1];
+            head.protocol = requestLine[2];
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon <= 0) {
+                    throw new BadRequestException(400, "Неверный заголовок запроса");
+                }
+                head.headers.add(lines[i].substring(0, colon).trim(), lines[i].substring(colon + 1).trim());
+            }
+
+            if (head.headers.containsKey("Transfer-Encoding")) {
+                throw new BadRequestException(411, "Тело запроса должно передаваться с Content-Length");
+            }
+            String length = head.headers.getFirst("Content-Length");
+            if (length != null) {
+                long value;
+                try {
+                    value = Long.parseLong(length);
+                } catch (NumberFormatException e) {
+                    throw new BadRequestException(400, "Неверный Content-Length");
+                }
+                if (value < 0) {
+                    throw new BadRequestException(400, "Неверный Content-Length");
+                }
+                if (value > MAX_BODY_BYTES) {
+                    throw new BadRequestException(413, "Слишком большое тело запроса");
+                }
+                head.contentLength = (int) value;
+            }
+
+            // HTTP/1.1 держит соединение по умолчанию, HTTP/1.0 - только по явной просьбе клиента
+            String connection = head.headers.getFirst("Connection");
+            head.keepAlive = head.protocol.equals("HTTP/1.0")
+                    ? "keep-alive".equalsIgnoreCase(connection)
+                    : !"close".equalsIgnoreCase(connection);
+            return head;
+        }
+    }
+
+    private static class BadRequestException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package service.engine;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpPrincipal;
+import service.metrics.CountedExchange;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// HttpExchange NIO-движка, поэтому обработчики работают с ним так же, как с com.sun HttpServer.
+// Ответ пишется в direct-буферы из пула и передаётся соединению по мере заполнения.
+// Семантика sendResponseHeaders та же: длина -1 - без тела, 0 - передача частями (chunked), иначе Content-Length.
+// HttpContext у NIO-движка нет, getHttpContext() возвращает null
+class NioHttpExchange extends HttpExchange implements CountedExchange {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final NioConnection connection;
+    private final String method;
+    private final URI requestUri;
+    private final String protocol;
+    private final Headers requestHeaders;
+    private final Headers responseHeaders = new Headers();
+    private final Map<String, Object> attributes = new HashMap<>();
+    private final boolean keepAlive;
+    private final ResponseBody rawResponseBody = new ResponseBody();
+
+    private InputStream requestBody;
+    private OutputStream responseBody = rawResponseBody;
+    private int responseCode = -1;
+
+    NioHttpExchange(NioConnection connection, String method, String target, String protocol, Headers requestHeaders,
+                    byte[] body, boolean keepAlive) {
+        this.connection = connection;
+        this.method = method;
+        this.requestUri = URI.create(target);
+        this.protocol = protocol;
+        this.requestHeaders = requestHeaders;
+        this.requestBody = new ByteArrayInputStream(body);
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public long getResponseBodyBytes() {
+        return rawResponseBody.written;
+    }
+
+    NioConnection getConnection() {
+        return connection;
+    }
+
+    // Выполнение обработчика в потоке executor. Если обработчик не отправил ответ, клиент получает 500;
+    // если он упал посреди ответа, соединение закрывается, чтобы клиент не принял обрывок за целый ответ
+    void run(HttpHandler handler) {
+        boolean failed = false;
+        try {
+            handler.handle(this);
+        } catch (Exception e) {
+            failed = true;
+            if (!(e instanceof IOException)) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            if (responseCode < 0) {
+                sendResponseHeaders(500, -1);
+                close();
+            } else if (failed) {
+                rawResponseBody.abort();
+            } else {
+                close();
+            }
+        } catch (IOException e) {
+            rawResponseBody.abort();
+        }
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return requestUri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    // Закрывает тело ответа (с учётом обёрток из setStreams), после чего соединение переходит к следующему запросу
+    @Override
+    public void close() {
+        try {
+            requestBody.close();
+            responseBody.close();
+        } catch (IOException e) {
+            rawResponseBody.abort();
+        }
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return requestBody;
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return responseBody;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) throws IOException {
+        if (responseCode >= 0) {
+            throw new IOException("Заголовки ответа уже отправлены");
+        }
+        responseCode = rCode;
+        boolean noBody = responseLength < 0 || rCode == 304 || rCode == 204 || rCode < 200 || "HEAD".equals(method);
+
+        StringBuilder head = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(rCode).append(' ').append(reasonPhrase(rCode)).append("\r\n");
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                head.append(header.getKey()).append(": ").append(value).append("\r\n");
+            }
+        }
+        if (noBody) {
+            if (rCode != 304 && rCode != 204) {
+                head.append("Content-Length: 0\r\n");
+            }
+            rawResponseBody.mode = BodyMode.NONE;
+        } else if (responseLength == 0) {
+            head.append("Transfer-Encoding: chunked\r\n");
+            rawResponseBody.mode = BodyMode.CHUNKED;
+        } else {
+            head.append("Content-Length: ").append(responseLength).append("\r\n");
+            rawResponseBody.mode = BodyMode.FIXED;
+            rawResponseBody.remaining = responseLength;
+        }
+        if (!keepAlive) {
+            head.append("Connection: close\r\n");
+        } else if (protocol.equals("HTTP/1.0")) {
+            head.append("Connection: keep-alive\r\n");
+        }
+        head.append("\r\n");
+        rawResponseBody.put(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return connection.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+        if (i != null) {
+            requestBody = i;
+        }
+        if (o != null) {
+            responseBody = o;
+        }
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+
+    static String reasonPhrase(int code) {
+        return switch (code) {
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 204 -> "No Content";
+            case 304 -> "Not Modified";
+            case 400 -> "Bad Request";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 406 -> "Not Acceptable";
+            case 411 -> "Length Required";
+            case 413 -> "Payload Too Large";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 503 -> "Service Unavailable";
+            default -> "Unknown";
+        };
+    }
+
+    private enum BodyMode {
+        NOT_STARTED, NONE, FIXED, CHUNKED
+    }
+
+    // Тело ответа: данные копируются в буфер из пула, заполненный буфер уходит в очередь соединения
+    private class ResponseBody extends OutputStream {
+
+        private BodyMode mode = BodyMode.NOT_STARTED;
+        private long remaining;
+        private ByteBuffer current;
+        private byte[] chunk;
+        private int chunkFilled;
+        private boolean completed;
+        private long written;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (completed) {
+                throw new IOException("Тело ответа уже закрыто");
+            }
+            switch (mode) {
+                case NOT_STARTED -> throw new IOException("Сначала нужно вызвать sendResponseHeaders");
+                case NONE -> throw new IOException("У ответа нет тела");
+                case FIXED -> {
+                    if (length > remaining) {
+                        throw new IOException("Тело длиннее указанного Content-Length");
+                    }
+                    remaining -= length;
+                    written += length;
+                    put(bytes, offset, length);
+                }
+                case CHUNKED -> {
+                    written += length;
+                    if (chunk == null) {
+                        chunk = new byte[CHUNK_SIZE];
+                    }
+                    while (length > 0) {
+                        int count = Math.min(length, chunk.length - chunkFilled);
+                        System.arraycopy(bytes, offset, chunk, chunkFilled, count);
+                        chunkFilled += count;
+                        offset += count;
+                        length -= count;
+                        if (chunkFilled == chunk.length) {
+                            writeChunk();
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (completed || mode == BodyMode.NOT_STARTED) {
+                return;
+            }
+            if (mode == BodyMode.CHUNKED) {
+                writeChunk();
+            }
+            sendCurrent();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (completed || mode == BodyMode.NOT_STARTED) {
+                return;
+            }
+            boolean reusable = keepAlive;
+            if (mode == BodyMode.CHUNKED) {
+                writeChunk();
+                put("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            } else if (mode == BodyMode.FIXED && remaining > 0) {
+                reusable = false; // клиент ждёт недостающие байты, соединение можно только закрыть
+            }
+            completed = true;
+            sendCurrent();
+            connection.responseComplete(reusable);
+        }
+
+        // Соединение разорвано: ответ уже не отправить, освобождаем буфер и соединение
+        void abort() {
+            if (current != null) {
+                connection.getPool().release(current);
+                current = null;
+            }
+            if (!completed) {
+                completed = true;
+                connection.responseComplete(false);
+            }
+        }
+
+        private void writeChunk() throws IOException {
+            if (chunkFilled == 0) {
+                return;
+            }
+            put((Integer.toHexString(chunkFilled) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            put(chunk, 0, chunkFilled);
+            put(CRLF);
+            chunkFilled = 0;
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            put(bytes, 0, bytes.length);
+        }
+
+        private void put(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (current == null) {
+                    current = connection.getPool().acquire();
+                }
+                int count = Math.min(length, current.remaining());
+                current.put(bytes, offset, count);
+                offset += count;
+                length -= count;
+                if (!current.hasRemaining()) {
+                    sendCurrent();
+                }
+            }
+        }
+
+        private void sendCurrent() throws IOException {
+            if (current == null || current.position() == 0) {
+                return;
+            }
+            ByteBuffer buffer = current;
+            current = null;
+            buffer.flip();
+            connection.enqueue(buffer);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package service.engine;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Неблокирующий HTTP/1.1-движок на Selector.
+// Один поток цикла событий принимает соединения, читает запросы в direct-буферы из пула и записывает ответы.
+// Обработчик выполняется в executor и пишет ответ в очередь буферов соединения, поток цикла отправляет её в сокет.
+// Соединения живут между запросами (keep-alive), а несколько запросов, присланных подряд без ожидания ответа
+// (pipelining), выполняются по очереди, и ответы уходят в том же порядке.
+// Обработчик никогда не выполняется в потоке цикла: если executor отклоняет запрос (или пытается выполнить
+// его в вызывающем потоке, как CallerRunsPolicy), клиент получает 503 и соединение закрывается
+public class NioServerEngine implements ServerEngine {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int DEFAULT_MAX_POOLED_BUFFERS = 1024;
+
+    private final BufferPool pool;
+    private final ConcurrentLinkedQueue<Runnable> loopTasks = new ConcurrentLinkedQueue<>();
+    private final Set<NioConnection> connections = new HashSet<>(); // только поток цикла
+    private final AtomicLong requests = new AtomicLong();
+
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread loopThread;
+    private HttpHandler handler;
+    private ExecutorService executor;
+
+    public NioServerEngine() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+    }
+
+    // bufferSize - размер буфера чтения и записи (ограничивает и размер заголовков запроса),
+    // maxPooledBuffers - сколько свободных буферов держать в пуле
+    public NioServerEngine(int bufferSize, int maxPooledBuffers) {
+        this.pool = new BufferPool(bufferSize, maxPooledBuffers);
+    }
+
+    @Override
+    public void start(int port, int backlog, HttpHandler handler, ExecutorService executor) throws IOException {
+        this.handler = handler;
+        this.executor = executor;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), backlog);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        loopThread = new Thread(this::runLoop, "nio-http-loop-" + port);
+        loopThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            loopThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "nio";
+    }
+
+    // Сколько direct-буферов выделено за всё время работы
+    public int getAllocatedBuffers() {
+        return pool.getAllocated();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    // Выполнение действия в потоке цикла событий: только он меняет состояние соединений и ключей
+    void runOnLoop(Runnable task) {
+        loopTasks.add(task);
+        selector.wakeup();
+    }
+
+    // Передача разобранного запроса обработчику. Возвращает false, если executor его не принял
+    boolean dispatch(NioHttpExchange exchange) {
+        requests.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                if (isLoopThread()) {
+                    // обработчик в потоке цикла остановил бы все соединения, а его ответ некому было бы отправить
+                    throw new RejectedExecutionException("Запрос нельзя выполнять в потоке цикла событий");
+                }
+                exchange.run(handler);
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    boolean isLoopThread() {
+        return Thread.currentThread() == loopThread;
+    }
+
+    void connectionClosed(NioConnection connection) {
+        connections.remove(connection);
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                e.printStackTrace();
+                break;
+            }
+            Runnable task;
+            while ((task = loopTasks.poll()) != null) {
+                task.run();
+            }
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                handleKey(key);
+            }
+        }
+        shutdown();
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.onWritable();
+            }
+        } catch (IOException | CancelledKeyException e) {
+            connection.closeNow();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                NioConnection connection = new NioConnection(this, channel, key, pool);
+                key.attach(connection);
+                connections.add(connection);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void shutdown() {
+        for (NioConnection connection : new ArrayList<>(connections)) {
+            connection.closeNow();
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package service.engine;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+// HTTP-движок, на котором работает HttpTaskServer. Запросы в обоих движках передаются одним и тем же
+// обработчикам HttpHandler, поэтому обработчики не зависят от способа работы с сокетами
+public interface ServerEngine {
+
+    // handler получает все запросы, executor выполняет его, backlog - очередь соединений, ожидающих приёма
+    void start(int port, int backlog, HttpHandler handler, ExecutorService executor) throws IOException;
+
+    // Немедленная остановка: открытые соединения закрываются, executor останавливает вызывающий
+    void stop();
+
+    // Название для логов и бенчмарков
+    String getName();
+}
@@ -0,0 +1,57 @@
+package service.engine;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+
+// Движок на com.sun.net.httpserver.HttpServer из JDK: поток-диспетчер принимает соединения
+// и читает запросы, обработчик выполняется в executor
+public class SunHttpServerEngine implements ServerEngine {
+
+    // По умолчанию HttpServer оставляет алгоритм Нейгла включённым: заголовки и тело ответа уходят
+    // отдельными сегментами, и второй ждёт отложенного ACK клиента (около 40 мс на каждый ответ).
+    // Отключить его можно только этим свойством, и HttpServer читает его один раз при первом создании сервера
+    // в JVM, поэтому настройка общая для всех серверов процесса
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final boolean noDelay;
+    private HttpServer httpServer;
+
+    // Настройки JDK по умолчанию, системные свойства не меняются
+    public SunHttpServerEngine() {
+        this(false);
+    }
+
+    // noDelay - отключить алгоритм Нейгла (TCP_NODELAY). Свойство задаётся перед созданием первого сервера;
+    // явное -Dsun.net.httpserver.nodelay=false сохраняется. Если в JVM уже создавался сервер, флаг не действует
+    public SunHttpServerEngine(boolean noDelay) {
+        this.noDelay = noDelay;
+    }
+
+    @Override
+    public void start(int port, int backlog, HttpHandler handler, ExecutorService executor) throws IOException {
+        if (noDelay) {
+            System.getProperties().putIfAbsent(NODELAY_PROPERTY, "true");
+        }
+        httpServer = HttpServer.create(new InetSocketAddress(port), backlog);
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/", handler);
+        httpServer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0); // 0 означает немедленную остановку
+            httpServer = null;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "sun";
+    }
+}
@@ -0,0 +1,47 @@
+package service.events;
+
+import service.ChangeType;
+import task.TaskStatus;
+
+// Одно изменение в менеджере. version - версия менеджера после изменения, она же id события:
+// версии растут монотонно, поэтому по ней клиент может продолжить с того места, где остановился
+public class ChangeEvent {
+
+    private final long version;
+    private final TaskStatus type;
+    private final int id;
+    private final ChangeType change;
+
+    public ChangeEvent(long version, TaskStatus type, int id, ChangeType change) {
+        this.version = version;
+        this.type = type;
+        this.id = id;
+        this.change = change;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public TaskStatus getType() {
+        return type;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public ChangeType getChange() {
+        return change;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "version=" + version +
+                ", type=" + type +
+                ", id=" + id +
+                ", change=" + change +
+                '}';
+    }
+}
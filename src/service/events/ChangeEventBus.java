@@ -0,0 +1,95 @@
+package service.events;
+
+import service.ChangeType;
+import service.TaskChangeListener;
+import task.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Шина изменений менеджера: подписывается на TaskManager и раздаёт события подписчикам.
+// Последние события хранятся в ChangeLog, поэтому новый подписчик может продолжить с Last-Event-ID.
+// onChange вызывается синхронно из изменяющего метода менеджера, поэтому только раскладывает событие
+// по очередям и никогда не ждёт подписчиков
+public class ChangeEventBus implements TaskChangeListener {
+
+    private final ChangeLog log;
+    private final int subscriberCapacity;
+    private final int maxSubscribers;
+    private final List<Subscription> subscribers = new ArrayList<>();
+
+    private long published;
+    private long slowConsumerDisconnects;
+
+    // baseVersion - текущая версия менеджера, logCapacity - сколько событий хранить для повторной отправки,
+    // subscriberCapacity - очередь одного подписчика, maxSubscribers - предел одновременных подписок
+    public ChangeEventBus(long baseVersion, int logCapacity, int subscriberCapacity, int maxSubscribers) {
+        this.log = new ChangeLog(logCapacity, baseVersion);
+        this.subscriberCapacity = subscriberCapacity;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    @Override
+    public synchronized void onChange(TaskStatus type, int id, ChangeType change, long version) {
+        ChangeEvent event = new ChangeEvent(version, type, id, change);
+        log.append(event);
+        published++;
+        subscribers.removeIf(subscription -> {
+            if (subscription.offer(event)) {
+                return false;
+            }
+            if (subscription.isOverflowed()) {
+                slowConsumerDisconnects++;
+            }
+            return true;
+        });
+    }
+
+    // Подписка на события после lastEventId (или только на новые, если lastEventId < 0).
+    // Если журнал уже не содержит всех событий после lastEventId, подписка помечается isReset().
+    // null - достигнут предел подписчиков
+    public synchronized Subscription subscribe(long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        List<ChangeEvent> missed = lastEventId < 0 ? List.of() : log.since(lastEventId);
+        boolean reset = missed == null || missed.size() > subscriberCapacity;
+        Subscription subscription = new Subscription(this, subscriberCapacity, reset);
+        if (!reset) {
+            missed.forEach(subscription::offer);
+        }
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    synchronized void unsubscribe(Subscription subscription) {
+        subscribers.remove(subscription);
+    }
+
+    // Закрытие всех подписок, например при остановке сервера
+    public synchronized void closeAll() {
+        subscribers.forEach(Subscription::closeQueue);
+        subscribers.clear();
+    }
+
+    // События после version или null, если журнал их уже не хранит
+    public synchronized List<ChangeEvent> since(long version) {
+        return log.since(version);
+    }
+
+    public synchronized long getLastVersion() {
+        return log.getLastVersion();
+    }
+
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public synchronized long getPublished() {
+        return published;
+    }
+
+    public synchronized long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects;
+    }
+}
@@ -0,0 +1,83 @@
+package service.events;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Кольцевой буфер последних изменений менеджера.
+// Хранит не больше capacity событий; более старые вытесняются. baseVersion - версия менеджера на момент
+// создания журнала: изменения до неё в журнал не попадали.
+// Не потокобезопасен, синхронизацию обеспечивает владелец (ChangeEventBus)
+public class ChangeLog {
+
+    private final ChangeEvent[] ring;
+    private long lastVersion;
+    private long firstVersion; // версия, после которой журнал полон
+    private int head;          // позиция следующей записи
+    private int size;
+
+    public ChangeLog(int capacity, long baseVersion) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер журнала изменений должен быть больше 0");
+        }
+        this.ring = new ChangeEvent[capacity];
+        this.firstVersion = baseVersion;
+        this.lastVersion = baseVersion;
+    }
+
+    public void append(ChangeEvent event) {
+        if (size == ring.length) {
+            firstVersion = ring[head].getVersion(); // вытесняемое событие становится границей журнала
+        } else {
+            size++;
+        }
+        ring[head] = event;
+        head = (head + 1) % ring.length;
+        lastVersion = event.getVersion();
+    }
+
+    // События с версией больше version по порядку или null, если журнал их уже не содержит
+    // (версия старше журнала или новее последнего известного изменения)
+    public List<ChangeEvent> since(long version) {
+        if (version < firstVersion || version > lastVersion) {
+            return null;
+        }
+        List<ChangeEvent> events = new ArrayList<>();
+        int start = (head - size + ring.length) % ring.length;
+        for (int i = 0; i < size; i++) {
+            ChangeEvent event = ring[(start + i) % ring.length];
+            if (event.getVersion() > version) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    // Только последнее событие по каждой задаче, в порядке версий: несколько изменений одной задачи
+    // сводятся к одному, удаление после создания остаётся удалением
+    public static List<ChangeEvent> latestPerTask(List<ChangeEvent> events) {
+        Map<Integer, ChangeEvent> latest = new LinkedHashMap<>();
+        for (ChangeEvent event : events) {
+            latest.remove(event.getId()); // повторное изменение переносит задачу в конец
+            latest.put(event.getId(), event);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    public long getFirstVersion() {
+        return firstVersion;
+    }
+
+    public long getLastVersion() {
+        return lastVersion;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+}
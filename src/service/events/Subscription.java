@@ -0,0 +1,80 @@
+package service.events;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Подписка на изменения с ограниченной очередью.
+// Если подписчик не успевает забирать события и очередь переполняется, подписка закрывается (overflowed):
+// медленный клиент отключается и переподключается с Last-Event-ID, вместо того чтобы копить события в памяти
+public class Subscription {
+
+    // Пустое событие, которым будят ожидающий poll при закрытии подписки
+    private static final ChangeEvent CLOSED = new ChangeEvent(-1, null, 0, null);
+
+    private final ChangeEventBus bus;
+    private final ArrayBlockingQueue<ChangeEvent> queue;
+    private final boolean reset;
+    private volatile boolean closed;
+    private volatile boolean overflowed;
+
+    Subscription(ChangeEventBus bus, int capacity, boolean reset) {
+        this.bus = bus;
+        this.queue = new ArrayBlockingQueue<>(capacity + 1); // место под CLOSED
+        this.reset = reset;
+    }
+
+    // true, если пропущенные события восстановить нельзя и клиенту нужно заново загрузить данные
+    public boolean isReset() {
+        return reset;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Подписка закрыта из-за переполнения очереди
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+
+    // Следующее событие, null по истечении timeout или после закрытия подписки
+    public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (closed && queue.isEmpty()) {
+            return null;
+        }
+        ChangeEvent event = queue.poll(timeout, unit);
+        return event == CLOSED ? null : event;
+    }
+
+    // Следующее уже полученное событие без ожидания
+    public ChangeEvent pollNow() {
+        ChangeEvent event = queue.poll();
+        return event == CLOSED ? null : event;
+    }
+
+    public void close() {
+        bus.unsubscribe(this);
+        closeQueue();
+    }
+
+    // Вызывается шиной под её блокировкой
+    boolean offer(ChangeEvent event) {
+        if (closed) {
+            return false;
+        }
+        if (queue.remainingCapacity() <= 1) {
+            overflowed = true;
+            closeQueue();
+            return false;
+        }
+        queue.offer(event);
+        return true;
+    }
+
+    void closeQueue() {
+        if (!closed) {
+            closed = true;
+            queue.offer(CLOSED);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package service.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import service.utils.ConcurrencyLimiter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Допуск запросов к обработчикам: отдельные ограничители для чтения (GET, HEAD), для записи
+// и для долгоживущих потоков событий, каждый из которых занимает поток обработчика на всё время подписки.
+// Запрос, не получивший места, сразу получает 503 с Retry-After и не занимает поток обработчиком
+public class AdmissionController {
+
+    // Потоков событий по умолчанию: заметно меньше лимита чтения, чтобы подписчики не заняли все потоки
+    public static final int DEFAULT_STREAMS = 16;
+
+    private final ConcurrencyLimiter reads;
+    private final ConcurrencyLimiter writes;
+    private final ConcurrencyLimiter streams;
+    private final int retryAfterSeconds;
+
+    public AdmissionController(ConcurrencyLimiter reads, ConcurrencyLimiter writes, int retryAfterSeconds) {
+        this(reads, writes, new ConcurrencyLimiter("streams", DEFAULT_STREAMS, 0, Duration.ZERO), retryAfterSeconds);
+    }
+
+    public AdmissionController(ConcurrencyLimiter reads, ConcurrencyLimiter writes, ConcurrencyLimiter streams,
+                               int retryAfterSeconds) {
+        this.reads = reads;
+        this.writes = writes;
+        this.streams = streams;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    // Чтение: до 64 запросов одновременно и 256 в очереди, запись: до 8 и 64 в очереди, ожидание до 1 секунды.
+    // Запись ограничена сильнее: все изменения идут под общей блокировкой менеджера
+    public static AdmissionController defaults() {
+        return new AdmissionController(
+                new ConcurrencyLimiter("read", 64, 256, Duration.ofSeconds(1)),
+                new ConcurrencyLimiter("write", 8, 64, Duration.ofSeconds(1)),
+                1);
+    }
+
+    // Без ограничений чтения и записи: для тестов и бенчмарков, где важна сама обработка запросов.
+    // Потоки событий ограничены и здесь: каждый держит поток обработчика
+    public static AdmissionController unlimited() {
+        return new AdmissionController(
+                new ConcurrencyLimiter("read", Integer.MAX_VALUE, 0, Duration.ZERO),
+                new ConcurrencyLimiter("write", Integer.MAX_VALUE, 0, Duration.ZERO),
+                1);
+    }
+
+    // Адаптивные лимиты: растут, пока задержка не выше targetLatency, и снижаются при её превышении
+    public static AdmissionController adaptive(Duration targetLatency) {
+        return new AdmissionController(
+                new ConcurrencyLimiter("read", 32, 4, 256, 256, Duration.ofSeconds(1), targetLatency),
+                new ConcurrencyLimiter("write", 8, 1, 32, 64, Duration.ofSeconds(1), targetLatency),
+                1);
+    }
+
+    // Обёртка обработчика next, пропускающая запросы через ограничители
+    public HttpHandler protect(HttpHandler next) {
+        return protect(next, false);
+    }
+
+    // Обёртка обработчика долгоживущего потока (например, событий): без очереди, по лимиту streams
+    public HttpHandler protectStream(HttpHandler next) {
+        return protect(next, true);
+    }
+
+    private HttpHandler protect(HttpHandler next, boolean stream) {
+        return exchange -> {
+            ConcurrencyLimiter limiter = stream ? streams : limiterFor(exchange.getRequestMethod());
+            boolean acquired;
+            try {
+                acquired = limiter.tryAcquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                reject(exchange);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                next.handle(exchange);
+            } finally {
+                limiter.release(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public ConcurrencyLimiter getReads() {
+        return reads;
+    }
+
+    public ConcurrencyLimiter getWrites() {
+        return writes;
+    }
+
+    public ConcurrencyLimiter getStreams() {
+        return streams;
+    }
+
+    private ConcurrencyLimiter limiterFor(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) ? reads : writes;
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        byte[] body = "Сервер перегружен, повторите запрос позже".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfterSeconds));
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(503, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -1,73 +1,400 @@
 package service.handler;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import service.TaskManager;
+import service.TaskPage;
+import service.TaskQuery;
+import service.cache.ResponseCache;
+import service.utils.LocalDateTimeAdapter;
+import service.utils.TaskField;
+import service.utils.TaskTypeAdapterFactory;
+import task.Status;
+import task.Task;
+import task.TaskStatus;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 public class BaseHttpHandler implements HttpHandler {
 
     protected final TaskManager taskManager;
     protected final Gson gson;
+    protected final ResponseCompression compression;
+    protected final ResponseCache responseCache;
+    private volatile Router ownRoutes;
 
     public BaseHttpHandler(TaskManager taskManager, Gson gson) {
+        this(taskManager, gson, ResponseCompression.defaults());
+    }
+
+    public BaseHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        this(taskManager, gson, compression, null);
+    }
+
+    // responseCache может быть null - тогда ответы всегда сериализуются заново
+    public BaseHttpHandler(TaskManager taskManager, Gson gson, ResponseCompression compression,
+                           ResponseCache responseCache) {
         this.taskManager = taskManager;
         this.gson = gson;
+        this.compression = compression;
+        this.responseCache = responseCache;
     }
 
     protected void sendText(HttpExchange exchange, String text, int statusCode) throws IOException {
+        sendBytes(exchange, text.getBytes(StandardCharsets.UTF_8), "application/json", statusCode);
+    }
+
+    // Потоковая отправка JSON: объект сериализуется прямо в тело ответа, без промежуточной строки и byte[].
+    // Длина заранее неизвестна, поэтому ответ передаётся частями (chunked)
+    protected void sendJson(HttpExchange exchange, Object value, int statusCode) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
-        byte[] response = text.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(statusCode, response.length);
+        try (JsonWriter writer = openJsonWriter(openBody(exchange, statusCode))) {
+            writeValue(writer, value);
+        }
+    }
+
+    // Потоковая отправка списка: элементы сериализуются по одному, поэтому память на запрос
+    // не зависит от размера списка
+    protected void sendJsonArray(HttpExchange exchange, Iterable<?> items, int statusCode) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (JsonWriter writer = openJsonWriter(openBody(exchange, statusCode))) {
+            writeArray(writer, items);
+        }
+    }
+
+    // Отправка ответа 200 через кэш ответов. При попадании в кэш (та же версия менеджера) готовые байты
+    // отправляются без сериализации, при промахе ответ пишется потоком и одновременно сохраняется в кэш
+    protected void sendJsonCached(HttpExchange exchange, String key, long version, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (responseCache == null) {
+            try (JsonWriter writer = openJsonWriter(openBody(exchange, 200))) {
+                body.write(writer);
+            }
+            return;
+        }
+
+        ResponseCache.Entry entry = responseCache.get(key, version);
+        if (entry != null) {
+            sendCachedEntry(exchange, key, entry);
+            return;
+        }
+
+        CapturingOutputStream capture = new CapturingOutputStream(openBody(exchange, 200), responseCache.getMaxEntryBytes());
+        try (JsonWriter writer = openJsonWriter(capture)) {
+            body.write(writer);
+        }
+        byte[] captured = capture.getCapturedBytes();
+        if (captured != null) {
+            responseCache.put(key, version, captured);
+        }
+    }
+
+    private void sendCachedEntry(HttpExchange exchange, String key, ResponseCache.Entry entry) throws IOException {
+        byte[] body = entry.getBody();
+        if (!compression.shouldCompress(body.length) || !isGzipAccepted(exchange)) {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+            return;
+        }
+
+        byte[] gzipped = entry.getGzipped();
+        if (gzipped == null) { // сжимаем один раз и храним рядом с исходным ответом
+            long start = ResponseCompression.cpuTime();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer) {
+                {
+                    def.setLevel(compression.getLevel());
+                }
+            }) {
+                gzip.write(body);
+            }
+            gzipped = buffer.toByteArray();
+            compression.record(body.length, gzipped.length, ResponseCompression.cpuTime() - start);
+            responseCache.putGzipped(key, entry, gzipped);
+        }
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, gzipped.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response);
+            os.write(gzipped);
         }
     }
 
-    protected void sendNotFound(HttpExchange exchange) throws IOException {
-        String response = "Объект не найден";
-        exchange.getResponseHeaders().set("Content-Type", "text/plain");
-        exchange.sendResponseHeaders(404, response.length());
+    protected void writeValue(JsonWriter writer, Object value) {
+        gson.toJson(value, value.getClass(), writer);
+    }
+
+    protected void writeArray(JsonWriter writer, Iterable<?> items) throws IOException {
+        writer.beginArray();
+        for (Object item : items) {
+            gson.toJson(item, item.getClass(), writer);
+        }
+        writer.endArray();
+    }
+
+    protected JsonWriter openJsonWriter(OutputStream body) throws IOException {
+        return gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8)));
+    }
+
+    // Тело ответа неизвестной длины: со сжатием, если клиент его принимает, иначе передача частями
+    protected OutputStream openBody(HttpExchange exchange, int statusCode) throws IOException {
+        if (isGzipAccepted(exchange)) {
+            return new CompressingOutputStream(exchange, statusCode, compression);
+        }
+        exchange.sendResponseHeaders(statusCode, 0);
+        return exchange.getResponseBody();
+    }
+
+    // Отправка готового тела: длина известна, поэтому сжимается только тело больше порога
+    protected void sendBytes(HttpExchange exchange, byte[] body, String contentType, int statusCode) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (compression.shouldCompress(body.length) && isGzipAccepted(exchange)) {
+            try (OutputStream os = new CompressingOutputStream(exchange, statusCode, compression)) {
+                os.write(body);
+            }
+            return;
+        }
+        exchange.sendResponseHeaders(statusCode, body.length);
         try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+            os.write(body);
+        }
+    }
+
+    private boolean isGzipAccepted(HttpExchange exchange) {
+        if (!compression.isEnabled()) {
+            return false;
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        return compression.isAccepted(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+    }
+
+    // ETag строится из эпохи версий, области данных и версий менеджера, например "k3x9f1-tasks-42".
+    // Без эпохи ETag, выданный до перезапуска сервера, совпал бы с ETag других данных после него
+    protected String etag(String scope, long... versions) {
+        StringBuilder etag = new StringBuilder().append('"')
+                .append(Long.toString(taskManager.getVersionEpoch(), 36)).append('-').append(scope);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    // Условный GET: выставляет ETag и, если он совпал с If-None-Match, отвечает 304 без сериализации.
+    // Версию нужно читать до данных, тогда ETag никогда не окажется новее отданного содержимого
+    protected boolean isNotModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return true;
+            }
         }
+        return false;
+    }
+
+    protected void sendNotFound(HttpExchange exchange) throws IOException {
+        sendBytes(exchange, "Объект не найден".getBytes(StandardCharsets.UTF_8), "text/plain", 404);
     }
 
     protected void sendHasIntersections(HttpExchange exchange) throws IOException {
-        String response = "Задача пересекается с существующими";
-        exchange.getResponseHeaders().set("Content-Type", "text/plain");
-        exchange.sendResponseHeaders(406, response.length());
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+        sendBytes(exchange, "Задача пересекается с существующими".getBytes(StandardCharsets.UTF_8), "text/plain", 406);
+    }
+
+    // Потоковый разбор тела запроса: JSON читается прямо из getRequestBody(), без промежуточной строки.
+    // Для пустого тела возвращает null. Неверный JSON, значение поля или тип задачи дают JsonParseException,
+    // обработчики отвечают на него 400
+    protected <T> T readJson(HttpExchange exchange, Class<T> type) throws IOException {
+        try (JsonReader reader = openJsonReader(exchange)) {
+            return gson.fromJson(reader, type);
+        }
+    }
+
+    // GET списка с параметрами: limit, afterId (курсор), status, epicId, startFrom, startTo и fields (проекция).
+    // Фильтры и страница вычисляются менеджером по индексам, обработчик только разбирает параметры и пишет ответ.
+    // Курсор следующей страницы возвращается в заголовке X-Next-After-Id.
+    // Таких ответов слишком много вариантов, поэтому они не кэшируются, но поддерживают условный GET
+    protected <T extends Task> void sendQueryPage(HttpExchange exchange, TaskStatus type,
+                                                  Function<TaskQuery, TaskPage<T>> query) throws IOException {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        TaskQuery taskQuery;
+        Set<TaskField> fields;
+        try {
+            Map<String, String> params = parseQueryParams(rawQuery);
+            taskQuery = toTaskQuery(params);
+            fields = TaskField.parse(params.get("fields"));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            sendText(exchange, "Неверные параметры запроса: " + e.getMessage(), 400);
+            return;
+        }
+
+        long version = taskManager.getVersion(type);
+        if (isNotModified(exchange, etag(ResponseCache.listKey(type) + "?" + rawQuery, version))) {
+            return;
+        }
+        TaskPage<T> page = query.apply(taskQuery);
+        if (page.hasMore()) {
+            exchange.getResponseHeaders().set("X-Next-After-Id", Integer.toString(page.getNextAfterId()));
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (JsonWriter writer = openJsonWriter(openBody(exchange, 200))) {
+            writer.beginArray();
+            for (T item : page.getItems()) {
+                TaskTypeAdapterFactory.writeFields(writer, item, fields);
+            }
+            writer.endArray();
+        }
+    }
+
+    private static TaskQuery toTaskQuery(Map<String, String> params) {
+        TaskQuery query = TaskQuery.all();
+        if (params.containsKey("limit")) {
+            query.limit(Integer.parseInt(params.get("limit")));
+        }
+        if (params.containsKey("afterId")) {
+            query.afterId(Integer.parseInt(params.get("afterId")));
+        }
+        if (params.containsKey("status")) {
+            query.status(Status.valueOf(params.get("status")));
+        }
+        if (params.containsKey("epicId")) {
+            query.epicId(Integer.parseInt(params.get("epicId")));
+        }
+        if (params.containsKey("startFrom") || params.containsKey("startTo")) {
+            query.startBetween(parseTime(params.get("startFrom")), parseTime(params.get("startTo")));
         }
+        return query;
     }
 
-    protected String readBody(HttpExchange exchange) throws IOException {
-        try (InputStream is = exchange.getRequestBody()) {
-            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+    // Время в формате ответов (dd-MM-yyyy HH:mm:ss) или ISO-8601 (2024-01-31T10:00)
+    private static LocalDateTime parseTime(String text) {
+        if (text == null) {
+            return null;
         }
+        try {
+            return LocalDateTimeAdapter.parse(text);
+        } catch (DateTimeException e) {
+            return LocalDateTime.parse(text);
+        }
+    }
+
+    // Разбор строки запроса a=1&b=2 с декодированием значений
+    protected static Map<String, String> parseQueryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
     }
 
-    protected Integer extractIdFromPath(HttpExchange exchange) {
-        String path = exchange.getRequestURI().getPath();
-        String[] pathSegments = path.split("/");
-        if (pathSegments.length == 3) {
-            try {
-                return Integer.parseInt(pathSegments[2]);
-            } catch (NumberFormatException e) {
-                return null; // Неверный формат ID
+    // Пакетное создание: тело - JSON-массив элементов типа type. Массив разбирается поэлементно,
+    // все допустимые элементы создаются одним вызовом менеджера (и одним сохранением файла),
+    // в ответ возвращается результат для каждого элемента.
+    // Пакет не атомарен: ответ 200 означает, что созданы элементы со статусом CREATED, а отклонённые
+    // (REJECTED) не помешали созданию остальных. Если тело не разбирается как JSON, не создаётся ничего (400).
+    // Если созданные задачи не удалось сохранить в файл, ответ 500, а задачи остаются в памяти менеджера
+    protected <T extends Task> void handleBatch(HttpExchange exchange, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        List<Integer> itemIndexes = new ArrayList<>();
+        List<BatchItemResult> results = new ArrayList<>();
+
+        try (JsonReader reader = openJsonReader(exchange)) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                sendText(exchange, "Ожидается JSON-массив", 400);
+                return;
             }
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                T item = gson.fromJson(reader, type);
+                if (item == null) {
+                    results.add(BatchItemResult.rejected(index, "Пустой элемент"));
+                } else if (item.getId() != 0) {
+                    results.add(BatchItemResult.rejected(index, "Пакетный запрос только создаёт задачи, id должен быть 0"));
+                } else {
+                    items.add(item);
+                    itemIndexes.add(index);
+                }
+            }
+            reader.endArray();
+        } catch (JsonParseException | MalformedJsonException | EOFException | IllegalStateException e) {
+            sendText(exchange, "Неверный формат JSON", 400);
+            return;
+        }
+
+        List<Integer> ids = taskManager.createAll(items);
+        for (int i = 0; i < ids.size(); i++) {
+            int id = ids.get(i);
+            results.add(id > 0
+                    ? BatchItemResult.created(itemIndexes.get(i), id)
+                    : BatchItemResult.rejected(itemIndexes.get(i), "Задача не прошла проверку или пересекается с существующими"));
         }
-        return null; // ID не найден в пути
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        sendJsonArray(exchange, results, 200);
     }
 
+    private JsonReader openJsonReader(HttpExchange exchange) {
+        return gson.newJsonReader(new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)));
+    }
+
+    // Запись тела ответа в JsonWriter
+    @FunctionalInterface
+    protected interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    // Маршруты обработчика. HttpTaskServer собирает маршруты всех обработчиков в один Router
+    public void registerRoutes(Router router) {
+    }
+
+    // Обработчик можно подключить и отдельно: тогда запрос разбирается по его собственным маршрутам
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-
+        Router router = ownRoutes;
+        if (router == null) {
+            router = new Router();
+            registerRoutes(router);
+            ownRoutes = router;
+        }
+        router.handle(exchange);
     }
 }
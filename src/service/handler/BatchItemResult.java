@@ -0,0 +1,41 @@
+package service.handler;
+
+// Результат обработки одного элемента пакетного запроса
+public class BatchItemResult {
+
+    private final int index;
+    private final int id;
+    private final String status;
+    private final String error;
+
+    private BatchItemResult(int index, int id, String status, String error) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, int id) {
+        return new BatchItemResult(index, id, "CREATED", null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, -1, "REJECTED", error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
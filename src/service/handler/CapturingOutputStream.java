@@ -0,0 +1,51 @@
+package service.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Пропускает данные в тело ответа и параллельно копирует их для кэша ответов.
+// Если ответ превысил limit, копия выбрасывается, а передача продолжается без буферизации
+class CapturingOutputStream extends OutputStream {
+
+    private final OutputStream delegate;
+    private final int limit;
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream(256);
+
+    CapturingOutputStream(OutputStream delegate, int limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        delegate.write(bytes, offset, length);
+        if (copy != null) {
+            if (copy.size() + length > limit) {
+                copy = null;
+            } else {
+                copy.write(bytes, offset, length);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    // Полная копия ответа или null, если ответ оказался больше лимита
+    byte[] getCapturedBytes() {
+        return copy == null ? null : copy.toByteArray();
+    }
+}
@@ -0,0 +1,104 @@
+package service.handler;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import service.ChangeType;
+import service.TaskManager;
+import service.events.ChangeEvent;
+import service.events.ChangeEventBus;
+import service.events.ChangeLog;
+import service.utils.TaskField;
+import service.utils.TaskTypeAdapterFactory;
+import task.Task;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+// GET /tasks/changes?since=N - изменения после версии менеджера N для клиентов без постоянного соединения.
+// Ответ: {"version":V,"snapshot":false,"changes":[...]}, где для созданной или изменённой задачи передаётся
+// её текущее состояние ("task"), а для удалённой - только тип и id (tombstone). Следующий запрос делается с since=V.
+// Если журнал изменений уже не покрывает N (или since не указан), возвращается полный снимок:
+// {"version":V,"snapshot":true,"tasks":[...],"epics":[...],"subtasks":[...]}.
+// Задачи читаются после версии V и могут оказаться новее неё - это безопасно: следующая синхронизация
+// просто передаст их ещё раз
+public class ChangesHandler extends BaseHttpHandler {
+
+    private final ChangeEventBus bus;
+
+    public ChangesHandler(TaskManager taskManager, Gson gson, ResponseCompression compression, ChangeEventBus bus) {
+        super(taskManager, gson, compression);
+        this.bus = bus;
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/changes", (exchange, id) -> handleChanges(exchange));
+    }
+
+    private void handleChanges(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI().getRawQuery());
+        long since;
+        try {
+            since = params.containsKey("since") ? Long.parseLong(params.get("since")) : -1;
+        } catch (NumberFormatException e) {
+            sendText(exchange, "Неверный параметр since", 400);
+            return;
+        }
+
+        long version = taskManager.getVersion();
+        if (isNotModified(exchange, etag("changes-" + since, version))) {
+            return;
+        }
+        List<ChangeEvent> events = since < 0 ? null : bus.since(since);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        try (JsonWriter writer = openJsonWriter(openBody(exchange, 200))) {
+            if (events == null) {
+                writeSnapshot(writer, version);
+            } else {
+                writeChanges(writer, ChangeLog.latestPerTask(events));
+            }
+        }
+    }
+
+    private void writeChanges(JsonWriter writer, List<ChangeEvent> events) throws IOException {
+        long version = events.isEmpty() ? bus.getLastVersion() : events.get(events.size() - 1).getVersion();
+        writer.beginObject();
+        writer.name("version").value(version);
+        writer.name("snapshot").value(false);
+        writer.name("changes").beginArray();
+        for (ChangeEvent event : events) {
+            // задача могла быть удалена уже после чтения журнала - тогда она тоже передаётся как удалённая.
+            // Перенесённая в архив задача доступна по id, поэтому передаётся как изменённая
+            Task task = event.getChange() == ChangeType.DELETED
+                    ? null
+                    : taskManager.findById(event.getType(), event.getId()).orElse(null);
+            writer.beginObject();
+            writer.name("type").value(event.getType().name());
+            writer.name("id").value(event.getId());
+            writer.name("change").value(task == null ? ChangeType.DELETED.name() : event.getChange().name());
+            writer.name("version").value(event.getVersion());
+            if (task != null) {
+                writer.name("task");
+                TaskTypeAdapterFactory.writeFields(writer, task, TaskField.ALL);
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private void writeSnapshot(JsonWriter writer, long version) throws IOException {
+        writer.beginObject();
+        writer.name("version").value(version);
+        writer.name("snapshot").value(true);
+        writer.name("tasks");
+        writeArray(writer, taskManager.getAllTask());
+        writer.name("epics");
+        writeArray(writer, taskManager.getAllEpic());
+        writer.name("subtasks");
+        writeArray(writer, taskManager.getAllSubtask());
+        writer.endObject();
+    }
+}
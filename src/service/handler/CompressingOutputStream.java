@@ -0,0 +1,102 @@
+package service.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import service.metrics.CountingOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Тело ответа, которое само решает, сжимать ли его.
+// Первые minSize байт копятся в буфере: если ответ в них уместился, он уходит без сжатия с точной
+// Content-Length, иначе заголовки отправляются с Content-Encoding: gzip, и дальше данные
+// сжимаются потоком, без буферизации всего ответа
+class CompressingOutputStream extends OutputStream {
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final ResponseCompression compression;
+    private final byte[] buffer;
+
+    private int buffered;
+    private GZIPOutputStream out;
+    private CountingOutputStream wire; // байты, реально ушедшие в сеть после сжатия
+    private long originalBytes;
+    private long cpuNanos;
+    private boolean closed;
+
+    CompressingOutputStream(HttpExchange exchange, int statusCode, ResponseCompression compression) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.compression = compression;
+        this.buffer = new byte[compression.getMinSize()];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (out == null && !compression.shouldCompress(buffered + length)) {
+            System.arraycopy(bytes, offset, buffer, buffered, length);
+            buffered += length;
+            return;
+        }
+        if (out == null) {
+            startGzip();
+        }
+        originalBytes += length;
+        long start = ResponseCompression.cpuTime();
+        out.write(bytes, offset, length);
+        cpuNanos += ResponseCompression.cpuTime() - start;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (out == null) { // ответ меньше порога - отправляем как есть
+            exchange.sendResponseHeaders(statusCode, buffered == 0 ? -1 : buffered);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(buffer, 0, buffered);
+            }
+            return;
+        }
+
+        long start = ResponseCompression.cpuTime();
+        out.finish();
+        cpuNanos += ResponseCompression.cpuTime() - start;
+        // учитываем до закрытия: после него клиент уже получил весь ответ
+        compression.record(originalBytes, wire.getCount(), cpuNanos);
+        out.close();
+    }
+
+    private void startGzip() throws IOException {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(statusCode, 0);
+        wire = new CountingOutputStream(exchange.getResponseBody());
+        out = new GZIPOutputStream(wire, 8192) {
+            {
+                def.setLevel(compression.getLevel());
+            }
+        };
+        int pending = buffered;
+        buffered = 0;
+        originalBytes += pending;
+        long start = ResponseCompression.cpuTime();
+        out.write(buffer, 0, pending);
+        cpuNanos += ResponseCompression.cpuTime() - start;
+    }
+}
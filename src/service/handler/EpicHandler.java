@@ -1,13 +1,15 @@
 package service.handler;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
+import service.cache.ResponseCache;
 import task.Epic;
+import task.Task;
+import task.TaskStatus;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 
 public class EpicHandler extends BaseHttpHandler {
@@ -15,57 +17,58 @@ public class EpicHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            String path = exchange.getRequestURI().getPath();
+    public EpicHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            if (path.startsWith("/epics")) {
-                switch (method) {
-                    case "GET":
-                        handleGetEpics(exchange);
-                        break;
-                    case "POST":
-                        handlePostEpic(exchange);
-                        break;
-                    case "DELETE":
-                        handleDeleteEpic(exchange);
-                        break;
-                    default:
-                        sendText(exchange, "Метод не поддерживается", 405);
-                }
-            } else {
-                sendNotFound(exchange);
-            }
+    public EpicHandler(TaskManager taskManager, Gson gson, ResponseCompression compression,
+                       ResponseCache responseCache) {
+        super(taskManager, gson, compression, responseCache);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendText(exchange, "Внутренняя ошибка сервера", 500);
-        }
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/epic", (exchange, id) -> handleGetEpics(exchange))
+                .get("/tasks/epic/{id}", this::handleGetEpic)
+                .post("/tasks/epic", (exchange, id) -> handlePostEpic(exchange))
+                .post("/tasks/epic/batch", (exchange, id) -> handleBatch(exchange, Epic.class))
+                .delete("/tasks/epic", (exchange, id) -> sendText(exchange, "Не указан ID эпика", 400))
+                .delete("/tasks/epic/{id}", this::handleDeleteEpic);
     }
 
+    // GET /tasks/epic
     private void handleGetEpics(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) { // GET /epics/{id}
-            Optional<Epic> epic = taskManager.getByIdEpic(id);
-            if (epic.isPresent()) {
-                String response = gson.toJson(epic.get());
-                sendText(exchange, response, 200);
-            } else {
-                sendNotFound(exchange);
+        if (exchange.getRequestURI().getRawQuery() != null) { // GET /tasks/epic?limit=..&status=..
+            sendQueryPage(exchange, TaskStatus.EPIC, taskManager::queryEpics);
+            return;
+        }
+        long version = taskManager.getVersion(TaskStatus.EPIC);
+        String key = ResponseCache.listKey(TaskStatus.EPIC);
+        if (isNotModified(exchange, etag(key, version))) {
+            return;
+        }
+        sendJsonCached(exchange, key, version, writer -> writeArray(writer, taskManager.getAllEpic()));
+    }
+
+    // GET /tasks/epic/{id}
+    private void handleGetEpic(HttpExchange exchange, int id) throws IOException {
+        long version = taskManager.getEntityVersion(id);
+        Optional<Epic> epic = taskManager.getByIdEpic(id); // обращение попадает в историю и при ответе 304
+        if (epic.isPresent()) {
+            String key = ResponseCache.entityKey(TaskStatus.EPIC, id);
+            if (isNotModified(exchange, etag(key, version))) {
+                return;
             }
-        } else { // GET /epics
-            List<Epic> epics = taskManager.getAllEpic().stream().toList();
-            String response = gson.toJson(epics);
-            sendText(exchange, response, 200);
+            sendJsonCached(exchange, key, version, writer -> writeValue(writer, epic.get()));
+        } else {
+            sendNotFound(exchange);
         }
     }
 
+    // POST /tasks/epic: создание при id = 0, иначе обновление
     private void handlePostEpic(HttpExchange exchange) throws IOException {
-        String body = readBody(exchange);
         try {
-            Epic epic = gson.fromJson(body, Epic.class);
+            Epic epic = readJson(exchange, Epic.class);
             if (epic == null) {
                 sendText(exchange, "Неверный формат JSON", 400);
                 return;
@@ -74,8 +77,10 @@ public class EpicHandler extends BaseHttpHandler {
             if (epic.getId() == 0) { // Create
                 int id = taskManager.createEpic(epic);
                 if (id > 0) {
-                    epic.setId(id);
-                    sendText(exchange, gson.toJson(epic), 201);
+                    // createEpic хранит сам объект запроса: отдаём снимок, снятый под блокировкой менеджера,
+                    // иначе параллельное создание подзадачи изменит эпик во время сериализации
+                    Task created = taskManager.findById(TaskStatus.EPIC, id).orElse(epic);
+                    sendJson(exchange, created, 201);
                 } else {
                     sendHasIntersections(exchange); // Или другой код ошибки, если create возвращает ошибку
                 }
@@ -88,22 +93,18 @@ public class EpicHandler extends BaseHttpHandler {
                 }
             }
 
-        } catch (JsonSyntaxException e) {
+        } catch (JsonParseException e) {
             sendText(exchange, "Неверный формат JSON", 400);
         }
     }
 
-    private void handleDeleteEpic(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) {
-            int result = taskManager.removeEpicById(id);
-            if (result > 0) {
-                sendText(exchange, "Эпик удален", 201); // Успешное удаление
-            } else {
-                sendNotFound(exchange);
-            }
+    // DELETE /tasks/epic/{id}
+    private void handleDeleteEpic(HttpExchange exchange, int id) throws IOException {
+        int result = taskManager.removeEpicById(id);
+        if (result > 0) {
+            sendText(exchange, "Эпик удален", 201); // Успешное удаление
         } else {
-            sendText(exchange, "Не указан ID эпика", 400);
+            sendNotFound(exchange);
         }
     }
 }
@@ -0,0 +1,106 @@
+package service.handler;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import service.TaskManager;
+import service.events.ChangeEvent;
+import service.events.ChangeEventBus;
+import service.events.Subscription;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// GET /tasks/events - поток изменений задач в формате Server-Sent Events.
+// Каждое событие: id - версия менеджера, event - change, data - {"type","id","change","version"}.
+// Клиент, переподключаясь, присылает Last-Event-ID (или параметр lastEventId) и получает пропущенные события;
+// если журнал их уже не хранит, первым приходит событие reset - данные нужно загрузить заново.
+// Пока событий нет, раз в heartbeatMillis отправляется комментарий: так обнаруживаются отключившиеся клиенты.
+// Соединение держит поток обработчика всё время подписки, поэтому потоки событий учитываются
+// отдельным лимитом AdmissionController (streams), а не лимитом обычных запросов на чтение
+public class EventsHandler extends BaseHttpHandler {
+
+    private final ChangeEventBus bus;
+    private final long heartbeatMillis;
+    private final HttpHandler admitted;
+
+    public EventsHandler(TaskManager taskManager, Gson gson, ChangeEventBus bus, long heartbeatMillis,
+                         AdmissionController admission) {
+        super(taskManager, gson, ResponseCompression.disabled());
+        this.bus = bus;
+        this.heartbeatMillis = heartbeatMillis;
+        this.admitted = admission.protectStream(this::handleEvents);
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/events", (exchange, id) -> admitted.handle(exchange));
+    }
+
+    private void handleEvents(HttpExchange exchange) throws IOException {
+        long lastEventId;
+        try {
+            lastEventId = lastEventId(exchange);
+        } catch (NumberFormatException e) {
+            sendText(exchange, "Неверный Last-Event-ID", 400);
+            return;
+        }
+        Subscription subscription = bus.subscribe(lastEventId);
+        if (subscription == null) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            sendText(exchange, "Слишком много подписчиков", 503);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0); // без сжатия: события нельзя копить в буфере gzip
+        try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            if (subscription.isReset()) {
+                writer.write("event: reset\ndata: {}\n\n");
+            }
+            writer.write("retry: 1000\n\n");
+            writer.flush();
+            while (true) {
+                ChangeEvent event = subscription.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    if (subscription.isClosed()) {
+                        break; // очередь переполнена или сервер остановлен: клиент переподключится с Last-Event-ID
+                    }
+                    writer.write(": ping\n\n");
+                } else {
+                    // всё, что уже лежит в очереди, отправляется одной пачкой
+                    do {
+                        writeEvent(writer, event);
+                        event = subscription.pollNow();
+                    } while (event != null);
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // клиент отключился
+        } finally {
+            subscription.close();
+        }
+    }
+
+    private static long lastEventId(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Last-Event-ID");
+        if (header != null) {
+            return Long.parseLong(header.trim());
+        }
+        String param = parseQueryParams(exchange.getRequestURI().getRawQuery()).get("lastEventId");
+        return param == null ? -1 : Long.parseLong(param);
+    }
+
+    private static void writeEvent(Writer writer, ChangeEvent event) throws IOException {
+        writer.write("id: " + event.getVersion() + "\nevent: change\ndata: {\"type\":\"" + event.getType()
+                + "\",\"id\":" + event.getId() + ",\"change\":\"" + event.getChange()
+                + "\",\"version\":" + event.getVersion() + "}\n\n");
+    }
+}
@@ -3,32 +3,29 @@ package service.handler;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
-import task.Task;
 
 import java.io.IOException;
-import java.util.List;
 
 public class HistoryHandler extends BaseHttpHandler {
     public HistoryHandler(TaskManager taskManager, Gson gson) {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
+    public HistoryHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            if ("GET".equals(method)) {
-                List<Task> history = taskManager.getHistory();
-                String response = gson.toJson(history);
-                sendText(exchange, response, 200);
-            } else {
-                sendText(exchange, "Метод не поддерживается", 405);
-            }
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/history", (exchange, id) -> handleGetHistory(exchange));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendText(exchange, "Внутренняя ошибка сервера", 500);
+    private void handleGetHistory(HttpExchange exchange) throws IOException {
+        // история зависит и от порядка обращений, и от содержимого задач
+        String etag = etag("history", taskManager.getHistoryVersion(), taskManager.getVersion());
+        if (isNotModified(exchange, etag)) {
+            return;
         }
+        sendJsonArray(exchange, taskManager.getHistory(), 200);
     }
 }
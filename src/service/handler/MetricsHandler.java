@@ -0,0 +1,180 @@
+package service.handler;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import service.InstrumentedTaskManager;
+import service.TaskManager;
+import service.metrics.HeapFootprint;
+import service.metrics.HeapLayout;
+import service.metrics.HttpMetrics;
+import service.metrics.LatencyHistogram;
+import service.metrics.OperationMetrics;
+import service.metrics.RouteMetrics;
+import service.utils.ConcurrencyLimiter;
+
+import java.io.IOException;
+import java.util.List;
+
+// GET /metrics - метрики HTTP-сервера в JSON: по каждому маршруту число запросов, коды ответов,
+// задержки (p50, p99, p999, max и среднее в микросекундах), объём запросов и ответов, выполняющиеся запросы.
+// Отдельно - счётчики ограничителей AdmissionController и, если менеджер обёрнут в InstrumentedTaskManager,
+// метрики его операций и размеры хранилища.
+// В "heap" - оценка памяти по категориям HeapFootprint (байты, записи, мягкие лимиты) и параметры модели HeapLayout
+public class MetricsHandler extends BaseHttpHandler {
+
+    private final HttpMetrics metrics;
+    private final AdmissionController admission;
+    private final InstrumentedTaskManager instrumented;
+    private final HeapFootprint footprint;
+
+    public MetricsHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics, AdmissionController admission) {
+        this(taskManager, gson, metrics, admission, null);
+    }
+
+    // instrumented - менеджер с метриками операций или null
+    public MetricsHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics, AdmissionController admission,
+                          InstrumentedTaskManager instrumented) {
+        this(taskManager, gson, metrics, admission, instrumented, null);
+    }
+
+    // footprint - оценка памяти или null
+    public MetricsHandler(TaskManager taskManager, Gson gson, HttpMetrics metrics, AdmissionController admission,
+                          InstrumentedTaskManager instrumented, HeapFootprint footprint) {
+        super(taskManager, gson, ResponseCompression.disabled());
+        this.metrics = metrics;
+        this.admission = admission;
+        this.instrumented = instrumented;
+        this.footprint = footprint;
+    }
+
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/metrics", (exchange, id) -> handleMetrics(exchange));
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        try (JsonWriter writer = openJsonWriter(openBody(exchange, 200))) {
+            writer.beginObject();
+            writer.name("inFlight").value(metrics.getInFlight());
+            writer.name("routes").beginArray();
+            for (RouteMetrics route : metrics.getRoutes()) {
+                if (route.getRequests() > 0 || route.getInFlight() > 0) {
+                    writeRoute(writer, route);
+                }
+            }
+            writer.endArray();
+            if (admission != null) {
+                writer.name("admission").beginObject();
+                writeLimiter(writer, admission.getReads());
+                writeLimiter(writer, admission.getWrites());
+                writeLimiter(writer, admission.getStreams());
+                writer.endObject();
+            }
+            if (instrumented != null) {
+                writeManager(writer, instrumented);
+            }
+            if (footprint != null) {
+                writeHeap(writer, footprint);
+            }
+            writer.endObject();
+        }
+    }
+
+    private static void writeManager(JsonWriter writer, InstrumentedTaskManager manager) throws IOException {
+        writer.name("manager").beginObject();
+        writer.name("tasks").value(manager.getTaskCount());
+        writer.name("epics").value(manager.getEpicCount());
+        writer.name("subtasks").value(manager.getSubtaskCount());
+        writer.name("prioritized").value(manager.getPrioritizedCount());
+        writer.name("operations").beginArray();
+        for (OperationMetrics operation : manager.getOperations()) {
+            if (operation.getCalls() == 0) {
+                continue;
+            }
+            writer.beginObject();
+            writer.name("name").value(operation.getName());
+            writer.name("calls").value(operation.getCalls());
+            writer.name("succeeded").value(operation.getSucceeded());
+            writer.name("rejected").value(operation.getRejected());
+            writer.name("failed").value(operation.getFailed());
+            writeLatency(writer, "latencyNanos", operation.getLatency(), 1);
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private static void writeHeap(JsonWriter writer, HeapFootprint footprint) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        List<HeapFootprint.Usage> usage = footprint.getUsage();
+        long total = 0;
+        writer.name("heap").beginObject();
+        writer.name("categories").beginObject();
+        for (HeapFootprint.Usage category : usage) {
+            total += category.getBytes();
+            writer.name(category.getCategory().getKey()).beginObject();
+            writer.name("entries").value(category.getEntries());
+            writer.name("bytes").value(category.getBytes());
+            if (category.getSoftLimit() > 0) {
+                writer.name("softLimit").value(category.getSoftLimit());
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+        writer.name("estimatedBytes").value(total);
+        writer.name("softLimit").value(footprint.getTotalSoftLimit());
+        writer.name("warnings").value(footprint.getWarnings());
+        writer.name("usedHeap").value(runtime.totalMemory() - runtime.freeMemory());
+        writer.name("maxHeap").value(runtime.maxMemory());
+        writer.name("layout").beginObject();
+        writer.name("compressedOops").value(HeapLayout.isCompressedOops());
+        writer.name("objectHeader").value(HeapLayout.OBJECT_HEADER);
+        writer.name("reference").value(HeapLayout.REFERENCE);
+        writer.name("alignment").value(HeapLayout.ALIGNMENT);
+        writer.endObject();
+        writer.endObject();
+    }
+
+    private static void writeRoute(JsonWriter writer, RouteMetrics route) throws IOException {
+        writer.beginObject();
+        writer.name("method").value(route.getMethod());
+        writer.name("route").value(route.getRoute());
+        writer.name("requests").value(route.getRequests());
+        writer.name("inFlight").value(route.getInFlight());
+        writer.name("status").beginObject();
+        for (int status : route.getStatuses()) {
+            writer.name(Integer.toString(status)).value(route.getStatusCount(status));
+        }
+        writer.endObject();
+        writeLatency(writer, "latencyMicros", route.getLatency(), 1000);
+        writer.name("requestBytes").value(route.getRequestBytes());
+        writer.name("responseBytes").value(route.getResponseBytes());
+        writer.endObject();
+    }
+
+    // Операции менеджера обычно короче микросекунды, поэтому их задержки пишутся в наносекундах (unit = 1)
+    private static void writeLatency(JsonWriter writer, String name, LatencyHistogram latency, long unit)
+            throws IOException {
+        writer.name(name).beginObject();
+        writer.name("p50").value(latency.percentile(0.5) / unit);
+        writer.name("p99").value(latency.percentile(0.99) / unit);
+        writer.name("p999").value(latency.percentile(0.999) / unit);
+        writer.name("max").value(latency.getMax() / unit);
+        writer.name("mean").value(Math.round(latency.getMean() / unit));
+        writer.endObject();
+    }
+
+    private static void writeLimiter(JsonWriter writer, ConcurrencyLimiter limiter) throws IOException {
+        writer.name(limiter.getName()).beginObject();
+        writer.name("limit").value(limiter.getLimit());
+        writer.name("inFlight").value(limiter.getInFlight());
+        writer.name("queueDepth").value(limiter.getQueueDepth());
+        writer.name("admitted").value(limiter.getAdmitted());
+        writer.name("rejected").value(limiter.getRejected());
+        writer.name("timedOut").value(limiter.getTimedOut());
+        writer.endObject();
+    }
+}
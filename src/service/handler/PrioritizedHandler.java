@@ -5,30 +5,29 @@ import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.List;
 
 public class PrioritizedHandler extends BaseHttpHandler {
     public PrioritizedHandler(TaskManager taskManager, Gson gson) {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
+    public PrioritizedHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            if ("GET".equals(method)) {
-                List<Object> prioritizedTasks = Collections.singletonList(taskManager.getPrioritizedTasks().stream().toList());
-                String response = gson.toJson(prioritizedTasks);
-                sendText(exchange, response, 200);
-            } else {
-                sendText(exchange, "Метод не поддерживается", 405);
-            }
+    // /prioritized - короткая форма пути, /tasks/prioritized - в одном ряду с /tasks/history
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/prioritized", (exchange, id) -> handleGetPrioritized(exchange))
+                .get("/tasks/prioritized", (exchange, id) -> handleGetPrioritized(exchange));
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendText(exchange, "Внутренняя ошибка сервера", 500);
+    // Порядок зависит только от задач и подзадач, поэтому ETag строится по общей версии менеджера
+    private void handleGetPrioritized(HttpExchange exchange) throws IOException {
+        String etag = etag("prioritized", taskManager.getVersion());
+        if (isNotModified(exchange, etag)) {
+            return;
         }
+        sendJsonArray(exchange, taskManager.getPrioritizedTasks(), 200);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package service.handler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+// Настройки и метрики gzip-сжатия ответов.
+// Ответ сжимается, только если клиент прислал Accept-Encoding: gzip и тело больше minSize байт.
+// Порог проверяется только через shouldCompress, одинаково для потоковых, готовых и кэшированных ответов
+public class ResponseCompression {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final boolean enabled;
+    private final int minSize;
+    private final int level;
+
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+
+    public ResponseCompression(boolean enabled, int minSize, int level) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Уровень сжатия должен быть от 1 до 9");
+        }
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.level = level;
+    }
+
+    // Сжатие ответов больше 1 КБ с уровнем 6 (баланс между скоростью и степенью сжатия)
+    public static ResponseCompression defaults() {
+        return new ResponseCompression(true, DEFAULT_MIN_SIZE, 6);
+    }
+
+    public static ResponseCompression disabled() {
+        return new ResponseCompression(false, Integer.MAX_VALUE, 6);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    // Нужно ли сжимать тело такой длины: тело ровно в minSize байт уходит без сжатия
+    public boolean shouldCompress(long length) {
+        return length > minSize;
+    }
+
+    // Разбор заголовка Accept-Encoding: gzip допустим, если указан без q=0
+    public boolean isAccepted(String acceptEncoding) {
+        if (!enabled || acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Процессорное время текущего потока (или обычное время, если JVM его не поддерживает)
+    static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    void record(long originalBytes, long gzippedBytes, long nanos) {
+        compressedResponses.incrementAndGet();
+        uncompressedBytes.addAndGet(originalBytes);
+        compressedBytes.addAndGet(gzippedBytes);
+        cpuNanos.addAndGet(nanos);
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    public long getBytesSaved() {
+        return uncompressedBytes.get() - compressedBytes.get();
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos.get();
+    }
+}
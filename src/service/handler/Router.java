@@ -0,0 +1,262 @@
+package service.handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import jdk.jfr.EventType;
+import service.jfr.HttpExchangeEvent;
+import service.metrics.CountedExchange;
+import service.metrics.CountingOutputStream;
+import service.metrics.HttpMetrics;
+import service.metrics.RouteMetrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Единая таблица маршрутов HTTP-сервера.
+// Шаблон пути вида "/tasks/task/{id}" разбирается один раз при регистрации, а при запросе путь сравнивается
+// с шаблонами посимвольно: без split, регулярных выражений и промежуточных строк, id читается прямо из пути.
+// Путь совпал, а метод нет - ответ 405 с заголовком Allow, путь не совпал ни с одним шаблоном - 404.
+// Для каждого маршрута в HttpMetrics ведутся счётчики кодов ответа, задержки и объёма данных
+public class Router implements HttpHandler {
+
+    // Значение id для маршрутов без параметра
+    public static final int NO_ID = -1;
+
+    private static final int NO_MATCH = Integer.MIN_VALUE;
+    private static final String ID_PARAM = "{id}";
+    private static final EventType EXCHANGE_EVENT = EventType.getEventType(HttpExchangeEvent.class);
+
+    private final List<Route> routes = new ArrayList<>();
+    private final HttpMetrics metrics;
+    private HttpHandler fallback;
+
+    public Router() {
+        this(new HttpMetrics());
+    }
+
+    // metrics - общий реестр метрик, если маршруты сервера распределены по нескольким таблицам
+    public Router(HttpMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Обработчик маршрута: id из пути или NO_ID, если в шаблоне нет {id}
+    @FunctionalInterface
+    public interface RouteHandler {
+        void handle(HttpExchange exchange, int id) throws IOException;
+    }
+
+    public Router add(String method, String template, RouteHandler handler) {
+        routes.add(new Route(method, compile(template), handler, metrics.register(method, template)));
+        return this;
+    }
+
+    public Router get(String template, RouteHandler handler) {
+        return add("GET", template, handler);
+    }
+
+    public Router post(String template, RouteHandler handler) {
+        return add("POST", template, handler);
+    }
+
+    public Router delete(String template, RouteHandler handler) {
+        return add("DELETE", template, handler);
+    }
+
+    // Обработчик запросов, путь которых не совпал ни с одним шаблоном (вместо ответа 404)
+    public Router fallback(HttpHandler handler) {
+        this.fallback = handler;
+        return this;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath(); // без декодирования: шаблоны состоят из ASCII
+        Route found = null;
+        int id = NO_MATCH;
+        boolean pathMatched = false;
+        for (Route route : routes) {
+            int routeId = match(route.segments, path);
+            if (routeId == NO_MATCH) {
+                continue;
+            }
+            if (route.method.equals(method)) {
+                found = route;
+                id = routeId;
+                break;
+            }
+            pathMatched = true;
+        }
+        if (found == null && !pathMatched && fallback != null) {
+            fallback.handle(exchange); // метрики записывает таблица, в которую передан запрос
+            return;
+        }
+
+        RouteMetrics routeMetrics = found != null ? found.metrics : metrics.getUnmatched();
+        // тело оборачивается для подсчёта байт, только если движок не считает их сам
+        CountingOutputStream responseBody = null;
+        if (!(exchange instanceof CountedExchange)) {
+            responseBody = new CountingOutputStream(exchange.getResponseBody());
+            exchange.setStreams(null, responseBody);
+        }
+        metrics.started(routeMetrics);
+        // событие создаётся, только если его записывает хотя бы одна запись JFR
+        HttpExchangeEvent event = EXCHANGE_EVENT.isEnabled() ? new HttpExchangeEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        try {
+            if (found != null) {
+                found.handler.handle(exchange, id);
+            } else if (pathMatched) {
+                exchange.getResponseHeaders().set("Allow", allowedMethods(path));
+                send(exchange, "Метод не поддерживается", 405);
+            } else {
+                send(exchange, "Объект не найден", 404);
+            }
+        } catch (Exception e) {
+            // метод и маршрут - те же, что в строке метрик маршрута, по ним ошибку можно связать с её 500
+            System.err.println("Ошибка обработки запроса: method=" + method + " route=" + routeMetrics.getRoute()
+                    + " uri=" + exchange.getRequestURI() + " error=" + e);
+            e.printStackTrace();
+            send(exchange, "Внутренняя ошибка сервера", 500);
+        } finally {
+            long requestLength = requestLength(exchange);
+            long responseLength = responseBody != null
+                    ? responseBody.getCount()
+                    : ((CountedExchange) exchange).getResponseBodyBytes();
+            metrics.finished(routeMetrics, exchange.getResponseCode(), System.nanoTime() - start,
+                    requestLength, responseLength);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = method;
+                    event.route = routeMetrics.getRoute();
+                    event.status = exchange.getResponseCode();
+                    event.requestBytes = requestLength;
+                    event.responseBytes = responseLength;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    public HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Размер тела запроса по Content-Length; тело без длины (chunked) не учитывается
+    private static long requestLength(HttpExchange exchange) {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Шаблон разбивается на сегменты один раз; параметр {id} хранится как null
+    private static String[] compile(String template) {
+        if (!template.startsWith("/")) {
+            throw new IllegalArgumentException("Шаблон пути должен начинаться с '/': " + template);
+        }
+        String[] segments = template.substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].equals(ID_PARAM)) {
+                segments[i] = null;
+            } else if (segments[i].isEmpty() || segments[i].indexOf('{') >= 0) {
+                throw new IllegalArgumentException("Неверный шаблон пути: " + template);
+            }
+        }
+        return segments;
+    }
+
+    // Сопоставление пути с шаблоном: id из пути, NO_ID для шаблона без параметра или NO_MATCH.
+    // Допускается завершающий '/', id - неотрицательное число в пределах int
+    static int match(String[] segments, String path) {
+        int length = path.length();
+        int pos = 0;
+        int id = NO_ID;
+        for (String segment : segments) {
+            if (pos >= length || path.charAt(pos) != '/') {
+                return NO_MATCH;
+            }
+            pos++;
+            if (segment == null) {
+                int start = pos;
+                long value = 0;
+                while (pos < length && path.charAt(pos) != '/') {
+                    int digit = path.charAt(pos) - '0';
+                    if (digit < 0 || digit > 9) {
+                        return NO_MATCH;
+                    }
+                    value = value * 10 + digit;
+                    if (value > Integer.MAX_VALUE) {
+                        return NO_MATCH;
+                    }
+                    pos++;
+                }
+                if (pos == start) {
+                    return NO_MATCH;
+                }
+                id = (int) value;
+            } else {
+                if (!path.startsWith(segment, pos)) {
+                    return NO_MATCH;
+                }
+                pos += segment.length();
+                if (pos < length && path.charAt(pos) != '/') {
+                    return NO_MATCH;
+                }
+            }
+        }
+        if (pos == length - 1 && path.charAt(pos) == '/') {
+            pos++;
+        }
+        return pos == length ? id : NO_MATCH;
+    }
+
+    private String allowedMethods(String path) {
+        StringBuilder allow = new StringBuilder();
+        for (Route route : routes) {
+            if (match(route.segments, path) != NO_MATCH && allow.indexOf(route.method) < 0) {
+                if (allow.length() > 0) {
+                    allow.append(", ");
+                }
+                allow.append(route.method);
+            }
+        }
+        return allow.toString();
+    }
+
+    private static void send(HttpExchange exchange, String text, int statusCode) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    private static class Route {
+
+        private final String method;
+        private final String[] segments;
+        private final RouteHandler handler;
+        private final RouteMetrics metrics;
+
+        Route(String method, String[] segments, RouteHandler handler, RouteMetrics metrics) {
+            this.method = method;
+            this.segments = segments;
+            this.handler = handler;
+            this.metrics = metrics;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package service.handler;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
+import service.cache.ResponseCache;
 import task.Subtask;
+import task.TaskStatus;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 
 public class SubtaskHandler extends BaseHttpHandler {
@@ -15,57 +16,58 @@ public class SubtaskHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            String path = exchange.getRequestURI().getPath();
+    public SubtaskHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            if (path.startsWith("/subtasks")) {
-                switch (method) {
-                    case "GET":
-                        handleGetSubtasks(exchange);
-                        break;
-                    case "POST":
-                        handlePostSubtask(exchange);
-                        break;
-                    case "DELETE":
-                        handleDeleteSubtask(exchange);
-                        break;
-                    default:
-                        sendText(exchange, "Метод не поддерживается", 405);
-                }
-            } else {
-                sendNotFound(exchange);
-            }
+    public SubtaskHandler(TaskManager taskManager, Gson gson, ResponseCompression compression,
+                       ResponseCache responseCache) {
+        super(taskManager, gson, compression, responseCache);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendText(exchange, "Внутренняя ошибка сервера", 500);
-        }
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/subtask", (exchange, id) -> handleGetSubtasks(exchange))
+                .get("/tasks/subtask/{id}", this::handleGetSubtask)
+                .post("/tasks/subtask", (exchange, id) -> handlePostSubtask(exchange))
+                .post("/tasks/subtask/batch", (exchange, id) -> handleBatch(exchange, Subtask.class))
+                .delete("/tasks/subtask", (exchange, id) -> sendText(exchange, "Не указан ID подзадачи", 400))
+                .delete("/tasks/subtask/{id}", this::handleDeleteSubtask);
     }
 
+    // GET /tasks/subtask
     private void handleGetSubtasks(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) { // GET /subtasks/{id}
-            Optional<Subtask> subtask = taskManager.getByIdSubtask(id);
-            if (subtask.isPresent()) {
-                String response = gson.toJson(subtask.get());
-                sendText(exchange, response, 200);
-            } else {
-                sendNotFound(exchange);
+        if (exchange.getRequestURI().getRawQuery() != null) { // GET /tasks/subtask?limit=..&status=..
+            sendQueryPage(exchange, TaskStatus.SUBTASK, taskManager::querySubtasks);
+            return;
+        }
+        long version = taskManager.getVersion(TaskStatus.SUBTASK);
+        String key = ResponseCache.listKey(TaskStatus.SUBTASK);
+        if (isNotModified(exchange, etag(key, version))) {
+            return;
+        }
+        sendJsonCached(exchange, key, version, writer -> writeArray(writer, taskManager.getAllSubtask()));
+    }
+
+    // GET /tasks/subtask/{id}
+    private void handleGetSubtask(HttpExchange exchange, int id) throws IOException {
+        long version = taskManager.getEntityVersion(id);
+        Optional<Subtask> subtask = taskManager.getByIdSubtask(id); // обращение попадает в историю и при ответе 304
+        if (subtask.isPresent()) {
+            String key = ResponseCache.entityKey(TaskStatus.SUBTASK, id);
+            if (isNotModified(exchange, etag(key, version))) {
+                return;
             }
-        } else { // GET /subtasks
-            List<Subtask> subtasks = taskManager.getAllSubtask().stream().toList();
-            String response = gson.toJson(subtasks);
-            sendText(exchange, response, 200);
+            sendJsonCached(exchange, key, version, writer -> writeValue(writer, subtask.get()));
+        } else {
+            sendNotFound(exchange);
         }
     }
 
+    // POST /tasks/subtask: создание при id = 0, иначе обновление
     private void handlePostSubtask(HttpExchange exchange) throws IOException {
-        String body = readBody(exchange);
         try {
-            Subtask subtask = gson.fromJson(body, Subtask.class);
+            Subtask subtask = readJson(exchange, Subtask.class);
             if (subtask == null) {
                 sendText(exchange, "Неверный формат JSON", 400);
                 return;
@@ -75,7 +77,7 @@ public class SubtaskHandler extends BaseHttpHandler {
                 int id = taskManager.createSubtask(subtask);
                 if (id > 0) {
                     subtask.setId(id);
-                    sendText(exchange, gson.toJson(subtask), 201);
+                    sendJson(exchange, subtask, 201);
                 } else {
                     sendHasIntersections(exchange); // Или другой код ошибки, если create возвращает ошибку
                 }
@@ -88,22 +90,18 @@ public class SubtaskHandler extends BaseHttpHandler {
                 }
             }
 
-        } catch (JsonSyntaxException e) {
+        } catch (JsonParseException e) {
             sendText(exchange, "Неверный формат JSON", 400);
         }
     }
 
-    private void handleDeleteSubtask(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) {
-            int result = taskManager.removeSubtaskById(id);
-            if (result > 0) {
-                sendText(exchange, "Подзадача удалена", 201); // Успешное удаление
-            } else {
-                sendNotFound(exchange);
-            }
+    // DELETE /tasks/subtask/{id}
+    private void handleDeleteSubtask(HttpExchange exchange, int id) throws IOException {
+        int result = taskManager.removeSubtaskById(id);
+        if (result > 0) {
+            sendText(exchange, "Подзадача удалена", 201); // Успешное удаление
         } else {
-            sendText(exchange, "Не указан ID подзадачи", 400);
+            sendNotFound(exchange);
         }
     }
 }
@@ -1,13 +1,14 @@
 package service.handler;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
 import com.sun.net.httpserver.HttpExchange;
 import service.TaskManager;
+import service.cache.ResponseCache;
 import task.Task;
+import task.TaskStatus;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 
 public class TaskHandler extends BaseHttpHandler {
@@ -16,57 +17,58 @@ public class TaskHandler extends BaseHttpHandler {
         super(taskManager, gson);
     }
 
-    @Override
-    public void handle(HttpExchange exchange) throws IOException {
-        try {
-            String method = exchange.getRequestMethod();
-            String path = exchange.getRequestURI().getPath();
+    public TaskHandler(TaskManager taskManager, Gson gson, ResponseCompression compression) {
+        super(taskManager, gson, compression);
+    }
 
-            if (path.startsWith("/tasks/task")) {
-                switch (method) {
-                    case "GET":
-                        handleGetTasks(exchange);
-                        break;
-                    case "POST":
-                        handlePostTask(exchange);
-                        break;
-                    case "DELETE":
-                        handleDeleteTask(exchange);
-                        break;
-                    default:
-                        sendText(exchange, "Метод не поддерживается", 405);
-                }
-            } else {
-                sendNotFound(exchange);
-            }
+    public TaskHandler(TaskManager taskManager, Gson gson, ResponseCompression compression,
+                       ResponseCache responseCache) {
+        super(taskManager, gson, compression, responseCache);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendText(exchange, "Внутренняя ошибка сервера", 500);
-        }
+    @Override
+    public void registerRoutes(Router router) {
+        router.get("/tasks/task", (exchange, id) -> handleGetTasks(exchange))
+                .get("/tasks/task/{id}", this::handleGetTask)
+                .post("/tasks/task", (exchange, id) -> handlePostTask(exchange))
+                .post("/tasks/task/batch", (exchange, id) -> handleBatch(exchange, Task.class))
+                .delete("/tasks/task", (exchange, id) -> sendText(exchange, "Не указан ID задачи", 400))
+                .delete("/tasks/task/{id}", this::handleDeleteTask);
     }
 
+    // GET /tasks/task
     private void handleGetTasks(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) { // GET /tasks/{id}
-            Optional<Task> task = taskManager.getByIdTask(id);
-            if (task.isPresent()) {
-                String response = gson.toJson(task.get());
-                sendText(exchange, response, 200);
-            } else {
-                sendNotFound(exchange);
+        if (exchange.getRequestURI().getRawQuery() != null) { // GET /tasks/task?limit=..&status=..
+            sendQueryPage(exchange, TaskStatus.TASK, taskManager::queryTasks);
+            return;
+        }
+        long version = taskManager.getVersion(TaskStatus.TASK);
+        String key = ResponseCache.listKey(TaskStatus.TASK);
+        if (isNotModified(exchange, etag(key, version))) {
+            return;
+        }
+        sendJsonCached(exchange, key, version, writer -> writeArray(writer, taskManager.getAllTask()));
+    }
+
+    // GET /tasks/task/{id}
+    private void handleGetTask(HttpExchange exchange, int id) throws IOException {
+        long version = taskManager.getEntityVersion(id);
+        Optional<Task> task = taskManager.getByIdTask(id); // обращение попадает в историю и при ответе 304
+        if (task.isPresent()) {
+            String key = ResponseCache.entityKey(TaskStatus.TASK, id);
+            if (isNotModified(exchange, etag(key, version))) {
+                return;
             }
-        } else { // GET /tasks
-            List<Task> tasks = taskManager.getAllTask().stream().toList();
-            String response = gson.toJson(tasks);
-            sendText(exchange, response, 200);
+            sendJsonCached(exchange, key, version, writer -> writeValue(writer, task.get()));
+        } else {
+            sendNotFound(exchange);
         }
     }
 
+    // POST /tasks/task: создание при id = 0, иначе обновление
     private void handlePostTask(HttpExchange exchange) throws IOException {
-        String body = readBody(exchange);
         try {
-            Task task = gson.fromJson(body, Task.class);
+            Task task = readJson(exchange, Task.class);
             if (task == null) {
                 sendText(exchange, "Неверный формат JSON", 400);
                 return;
@@ -76,7 +78,7 @@ public class TaskHandler extends BaseHttpHandler {
                 int id = taskManager.createTask(task);
                 if (id > 0) {
                     task.setId(id);
-                    sendText(exchange, gson.toJson(task), 201);
+                    sendJson(exchange, task, 201);
                 } else {
                     sendHasIntersections(exchange); // Или другой код ошибки, если create возвращает ошибку
                 }
@@ -89,22 +91,18 @@ public class TaskHandler extends BaseHttpHandler {
                 }
             }
 
-        } catch (JsonSyntaxException e) {
+        } catch (JsonParseException e) {
             sendText(exchange, "Неверный формат JSON", 400);
         }
     }
 
-    private void handleDeleteTask(HttpExchange exchange) throws IOException {
-        Integer id = extractIdFromPath(exchange);
-        if (id != null) {
-            int result = taskManager.removeTaskById(id);
-            if (result > 0) {
-                sendText(exchange, "Задача удалена", 201); // Успешное удаление
-            } else {
-                sendNotFound(exchange);
-            }
+    // DELETE /tasks/task/{id}
+    private void handleDeleteTask(HttpExchange exchange, int id) throws IOException {
+        int result = taskManager.removeTaskById(id);
+        if (result > 0) {
+            sendText(exchange, "Задача удалена", 201); // Успешное удаление
         } else {
-            sendText(exchange, "Не указан ID задачи", 400);
+            sendNotFound(exchange);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Запись обращения к задаче в историю просмотров. Происходит на каждый getById*, поэтому по умолчанию выключено
+@Name("kanban.HistoryUpdate")
+@Label("History Update")
+@Category({"Kanban", "Manager"})
+@Description("Добавление задачи в историю просмотров")
+@StackTrace(false)
+@Enabled(false)
+public class HistoryUpdateEvent extends Event {
+
+    @Label("Task Id")
+    public int taskId;
+
+    @Label("Replaced")
+    @Description("Задача уже была в истории и перенесена в конец")
+    public boolean replaced;
+
+    @Label("History Size")
+    public int historySize;
+}
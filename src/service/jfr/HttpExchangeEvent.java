@@ -0,0 +1,38 @@
+package service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Обработка одного HTTP-запроса маршрутом Router
+@Name("kanban.HttpExchange")
+@Label("HTTP Exchange")
+@Category({"Kanban", "HTTP"})
+@Description("Обработка HTTP-запроса от сопоставления маршрута до отправки ответа")
+@StackTrace(false)
+@Threshold("10 ms")
+public class HttpExchangeEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    @Description("Шаблон пути, например /tasks/task/{id}")
+    public String route;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+}
@@ -0,0 +1,32 @@
+package service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Проверка пересечения задачи по времени с задачами из списка приоритетов
+@Name("kanban.OverlapCheck")
+@Label("Overlap Check")
+@Category({"Kanban", "Manager"})
+@Description("Проверка пересечения новой или изменённой задачи с уже запланированными")
+@StackTrace(false)
+@Threshold("1 ms")
+public class OverlapCheckEvent extends Event {
+
+    @Label("Task Id")
+    public int taskId;
+
+    @Label("Candidates")
+    @Description("Сколько запланированных задач проверено до результата")
+    public int candidates;
+
+    @Label("Prioritized Size")
+    public int prioritizedSize;
+
+    @Label("Overlaps")
+    public boolean overlaps;
+}
@@ -0,0 +1,34 @@
+package service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Загрузка FileBackedTaskManager из файла
+@Name("kanban.TaskFileLoad")
+@Label("Task File Load")
+@Category({"Kanban", "Persistence"})
+@Description("Чтение задач из CSV-файла в FileBackedTaskManager.loadFromFile")
+@StackTrace(false)
+@Threshold("0 ms")
+public class TaskFileLoadEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Skipped Lines")
+    @Description("Строки, которые не удалось разобрать")
+    public int skipped;
+}
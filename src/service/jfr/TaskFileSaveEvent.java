@@ -0,0 +1,30 @@
+package service.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Сохранение FileBackedTaskManager в файл
+@Name("kanban.TaskFileSave")
+@Label("Task File Save")
+@Category({"Kanban", "Persistence"})
+@Description("Запись всех задач FileBackedTaskManager в CSV-файл")
+@StackTrace(false)
+@Threshold("0 ms")
+public class TaskFileSaveEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Entities")
+    public int entities;
+}
@@ -0,0 +1,331 @@
+package service.load;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import service.InMemoryTaskManager;
+import service.Managers;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// Генератор доски для нагрузочных тестов и бенчмарков. Одинаковые параметры и seed дают одинаковую доску.
+// Доска: tasks отдельных задач и epics эпиков, число подзадач эпика распределено по Парето (много маленьких
+// эпиков и несколько огромных), статусы в пропорции NEW 45% / IN_PROGRESS 20% / DONE 35%.
+// Задачи и подзадачи идут друг за другом без пересечений в рабочее время: будни с 9:00 до 18:00.
+// Названия короткие, описания - текст из descriptionChars символов в среднем, без запятых и переводов строк,
+// чтобы строки CSV разбирались как есть.
+// Элементы выдаются по одному (generate), поэтому файлы пишутся потоком и размер доски ограничен только диском.
+// id присваиваются по порядку с 1: сначала задачи, затем каждый эпик и сразу за ним его подзадачи.
+// Запуск: java -cp <классы> service.load.BoardGenerator --format=csv --out=board.csv --tasks=1000000 --epics=100000
+public class BoardGenerator {
+
+    private static final LocalDateTime BOARD_START = LocalDateTime.of(2025, 1, 6, 9, 0); // понедельник
+    private static final LocalTime DAY_START = LocalTime.of(9, 0);
+    private static final LocalTime DAY_END = LocalTime.of(18, 0);
+    private static final int QUARTER_MINUTES = 15;
+    private static final int MAX_DURATION_QUARTERS = 16; // до 4 часов
+    private static final int[] STATUS_PERCENT = {45, 20, 35}; // NEW, IN_PROGRESS, DONE
+
+    private static final String[] WORDS = {
+        "сервис", "отчёт", "клиент", "релиз", "миграция", "интеграция", "платёж", "доступ", "журнал", "кэш",
+        "поиск", "индекс", "очередь", "экспорт", "импорт", "форма", "проверка", "настройка", "уведомление",
+        "шаблон", "ошибка", "задержка", "нагрузка", "сборка", "тест", "документация", "схема", "запрос", "ответ",
+        "пользователь", "роль", "аудит", "данные", "архив", "файл", "модуль", "версия", "сервер", "база", "метрика"
+    };
+    private static final String[] VERBS = {
+        "Исправить", "Добавить", "Обновить", "Проверить", "Перенести", "Ускорить", "Описать", "Удалить",
+        "Настроить", "Согласовать"
+    };
+
+    private final long seed;
+    private final int tasks;
+    private final int epics;
+    private final int maxSubtasks;
+    private final double skew;
+    private final int descriptionChars;
+
+    // Получатель элементов доски
+    public interface Sink {
+        void accept(Task item) throws IOException;
+    }
+
+    // Внутренний получатель: эпик вместе с подзадачами и вычисленным временем.
+    // Геттеры времени Epic обращаются к его собственному пустому менеджеру, поэтому время передаётся отдельно
+    private interface EpicSink {
+        void accept(Task task, Epic epic, List<Subtask> subtasks, LocalDateTime start, Duration duration)
+                throws IOException;
+    }
+
+    public BoardGenerator(long seed, int tasks, int epics) {
+        this(seed, tasks, epics, 100, 1.2, 400);
+    }
+
+    // maxSubtasks - предел подзадач в эпике; skew - показатель Парето: чем он меньше, тем тяжелее хвост
+    // (при 1.2 у половины эпиков одна подзадача, в среднем 3-4, а отдельные эпики доходят до maxSubtasks)
+    public BoardGenerator(long seed, int tasks, int epics, int maxSubtasks, double skew, int descriptionChars) {
+        if (tasks < 0 || epics < 0 || maxSubtasks < 1 || skew <= 0 || descriptionChars < 0) {
+            throw new IllegalArgumentException("Неверные параметры доски");
+        }
+        this.seed = seed;
+        this.tasks = tasks;
+        this.epics = epics;
+        this.maxSubtasks = maxSubtasks;
+        this.skew = skew;
+        this.descriptionChars = descriptionChars;
+    }
+
+    // Выдаёт задачи, затем эпики, за каждым - его подзадачи. Эпик приходит с заполненным списком подзадач
+    // и статусом, вычисленным по подзадачам
+    public void generate(Sink sink) throws IOException {
+        generate((task, epic, subtasks, start, duration) -> {
+            if (task != null) {
+                sink.accept(task);
+                return;
+            }
+            sink.accept(epic);
+            for (Subtask subtask : subtasks) {
+                sink.accept(subtask);
+            }
+        });
+    }
+
+    // task != null - отдельная задача, иначе эпик. Время эпика - начало первой подзадачи
+    // и сумма длительностей, как в InMemoryTaskManager
+    private void generate(EpicSink sink) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Schedule schedule = new Schedule();
+        int id = 0;
+        for (int i = 0; i < tasks; i++) {
+            Duration duration = duration(random);
+            sink.accept(new Task(++id, title(random), description(random), status(random),
+                    schedule.next(random, duration), duration), null, null, null, null);
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        for (int i = 0; i < epics; i++) {
+            int epicId = ++id;
+            String name = "Эпик: " + title(random);
+            String description = description(random);
+            int count = subtaskCount(random);
+            epicSubtasks.clear();
+            for (int j = 0; j < count; j++) {
+                Duration duration = duration(random);
+                epicSubtasks.add(new Subtask(++id, title(random), description(random), status(random),
+                        schedule.next(random, duration), duration, epicId));
+            }
+            Epic epic = new Epic(epicId, name, description, Status.NEW);
+            epic.setStatus(epicStatus(epicSubtasks));
+            Duration total = Duration.ZERO;
+            for (Subtask subtask : epicSubtasks) {
+                epic.addEpicSubtask(subtask.getId());
+                total = total.plus(subtask.getDuration());
+            }
+            sink.accept(null, epic, epicSubtasks, epicSubtasks.get(0).getStartTime(), total);
+        }
+    }
+
+    // Заполнение пустого менеджера через InMemoryTaskManager.loadAll, с id доски. Интервалы генератора
+    // не пересекаются, поэтому проверка пересечений createTask (O(n) на элемент) не нужна
+    public void fill(InMemoryTaskManager manager) {
+        List<Task> items = new ArrayList<>();
+        try {
+            generate(items::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // генерация в память ввода-вывода не выполняет
+        }
+        manager.loadAll(items);
+    }
+
+    // CSV в формате FileBackedTaskManager. Строка эпика собирается здесь же: Epic.toFileString
+    // берёт время из пустого менеджера эпика и падает
+    public long writeCsv(File file) throws IOException {
+        long[] count = new long[1];
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("id,type,name,status,description,epic,localDateTime,duration\n");
+            generate((task, epic, subtasks, start, duration) -> {
+                if (task != null) {
+                    writer.write(task.toFileString());
+                    count[0]++;
+                    return;
+                }
+                writer.write(epic.getId() + ",EPIC," + epic.getName() + "," + epic.getDescription() + ","
+                        + epic.getStatus() + "," + start + "," + duration + "\n");
+                for (Subtask subtask : subtasks) {
+                    writer.write(subtask.toFileString());
+                }
+                count[0] += 1 + subtasks.size();
+            });
+        }
+        return count[0];
+    }
+
+    // Три JSON-массива в формате HTTP API: tasks.json, epics.json и subtasks.json в каталоге directory
+    public long writeJson(File directory) throws IOException {
+        Gson gson = Managers.getGson();
+        long[] count = new long[1];
+        directory.mkdirs();
+        try (JsonWriter taskWriter = jsonArray(gson, new File(directory, "tasks.json"));
+             JsonWriter epicWriter = jsonArray(gson, new File(directory, "epics.json"));
+             JsonWriter subtaskWriter = jsonArray(gson, new File(directory, "subtasks.json"))) {
+            generate(item -> {
+                JsonWriter writer = item instanceof Epic ? epicWriter
+                        : item instanceof Subtask ? subtaskWriter : taskWriter;
+                gson.toJson(item, item.getClass(), writer);
+                count[0]++;
+            });
+            taskWriter.endArray();
+            epicWriter.endArray();
+            subtaskWriter.endArray();
+        }
+        return count[0];
+    }
+
+    private static JsonWriter jsonArray(Gson gson, File file) throws IOException {
+        JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16));
+        writer.beginArray();
+        return writer;
+    }
+
+    // Подзадач в эпике: 1 + Парето(skew), не больше maxSubtasks
+    private int subtaskCount(SplittableRandom random) {
+        double pareto = Math.pow(1 - random.nextDouble(), -1 / skew); // от 1 до бесконечности
+        return (int) Math.min(maxSubtasks, Math.floor(pareto));
+    }
+
+    private static Status status(SplittableRandom random) {
+        int value = random.nextInt(100);
+        if (value < STATUS_PERCENT[0]) {
+            return Status.NEW;
+        }
+        return value < STATUS_PERCENT[0] + STATUS_PERCENT[1] ? Status.IN_PROGRESS : Status.DONE;
+    }
+
+    // Статус эпика по тем же правилам, что и в InMemoryTaskManager
+    private static Status epicStatus(List<Subtask> subtasks) {
+        boolean allNew = true;
+        boolean allDone = true;
+        for (Subtask subtask : subtasks) {
+            allNew &= subtask.getStatus() == Status.NEW;
+            allDone &= subtask.getStatus() == Status.DONE;
+        }
+        return allNew ? Status.NEW : allDone ? Status.DONE : Status.IN_PROGRESS;
+    }
+
+    private static Duration duration(SplittableRandom random) {
+        return Duration.ofMinutes((long) QUARTER_MINUTES * (1 + random.nextInt(MAX_DURATION_QUARTERS)));
+    }
+
+    private static String title(SplittableRandom random) {
+        return VERBS[random.nextInt(VERBS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    // Текст длиной от половины до полутора descriptionChars: предложения по 5-12 слов
+    private String description(SplittableRandom random) {
+        int length = descriptionChars == 0 ? 0 : descriptionChars / 2 + random.nextInt(descriptionChars + 1);
+        StringBuilder builder = new StringBuilder(length + 16);
+        int sentenceWords = 0;
+        int sentenceLength = 5 + random.nextInt(8);
+        while (builder.length() < length) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (sentenceWords == 0) {
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                builder.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                builder.append(' ').append(word);
+            }
+            if (++sentenceWords == sentenceLength) {
+                builder.append('.');
+                sentenceWords = 0;
+                sentenceLength = 5 + random.nextInt(8);
+            }
+        }
+        if (sentenceWords > 0) {
+            builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    // Расписание рабочих часов: следующий интервал начинается после предыдущего с паузой от 15 минут до часа
+    // и целиком помещается в рабочий день, выходные пропускаются
+    private static class Schedule {
+
+        private LocalDateTime cursor = BOARD_START;
+
+        LocalDateTime next(SplittableRandom random, Duration duration) {
+            // пауза не меньше 15 минут: у менеджера интервалы, касающиеся концами, тоже пересекаются
+            LocalDateTime start = cursor.plusMinutes((long) QUARTER_MINUTES * (1 + random.nextInt(4)));
+            if (start.plus(duration).toLocalTime().isAfter(DAY_END)) {
+                start = nextWorkingDay(start);
+            }
+            cursor = start.plus(duration);
+            return start;
+        }
+
+        private static LocalDateTime nextWorkingDay(LocalDateTime time) {
+            LocalDateTime day = time.toLocalDate().plusDays(1).atTime(DAY_START);
+            while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                day = day.plusDays(1);
+            }
+            return day;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Ожидалось --параметр=значение: " + arg + "\n" + usage());
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        String out = options.get("out");
+        if (out == null) {
+            System.out.println(usage());
+            return;
+        }
+        BoardGenerator generator = new BoardGenerator(
+                Long.parseLong(options.getOrDefault("seed", "1")),
+                Integer.parseInt(options.getOrDefault("tasks", "1000")),
+                Integer.parseInt(options.getOrDefault("epics", "100")),
+                Integer.parseInt(options.getOrDefault("max-subtasks", "100")),
+                Double.parseDouble(options.getOrDefault("skew", "1.2")),
+                Integer.parseInt(options.getOrDefault("description", "400")));
+        long started = System.nanoTime();
+        long written = switch (options.getOrDefault("format", "csv")) {
+            case "csv" -> generator.writeCsv(new File(out));
+            case "json" -> generator.writeJson(new File(out));
+            default -> throw new IllegalArgumentException("Формат csv или json\n" + usage());
+        };
+        System.out.printf("Записано %d элементов в %s за %d мс%n", written, out,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static String usage() {
+        return "Параметры: --out=<файл csv или каталог json> [--format=csv|json] [--seed=1]\n"
+                + "  --tasks=1000 --epics=100 --max-subtasks=100 --skew=1.2 --description=400";
+    }
+}
@@ -0,0 +1,334 @@
+package service.load;
+
+import com.google.gson.Gson;
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.engine.SunHttpServerEngine;
+import service.utils.ServerExecutors;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Генератор HTTP-нагрузки на HttpTaskServer.
+// Открытая модель: запросы отправляются с постоянной частотой по расписанию, не дожидаясь ответов на предыдущие,
+// и время ответа считается от запланированного момента. Так медленный ответ не откладывает следующие запросы
+// и не прячется из статистики (coordinated omission). Каждый запрос выполняется в своём виртуальном потоке.
+// Перед прогоном seed создаёт задачи, эпики и подзадачи, к которым обращаются GET по id, через API,
+// а useBoard берёт доску BoardGenerator, уже загруженную во встроенный менеджер.
+// POST создаёт новые задачи в свободных интервалах времени, DELETE удаляет созданные этим же прогоном;
+// если удалять пока нечего, запрос уходит на несуществующий id и получает 404.
+// Запуск: java -cp <классы> service.load.LoadGenerator --embedded --rate=500 --duration=30 --mix=balanced
+public class LoadGenerator {
+
+    // id, которого нет на сервере: для обращений, когда подходящих задач ещё нет
+    private static final int MISSING_ID = Integer.MAX_VALUE;
+    private static final LocalDateTime SLOT_START = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final Duration SLOT = Duration.ofMinutes(30);
+
+    private final URI baseUri;
+    private final LoadMix mix;
+    private final double ratePerSecond;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+    private final long seed;
+    private final Gson gson = Managers.getGson();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong nextSlot = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<LoadOperation, Queue<Integer>> created = new HashMap<>();
+    private int[] taskIds = new int[0];
+    private int[] epicIds = new int[0];
+    private int[] subtaskIds = new int[0];
+    private LocalDateTime slotBase = SLOT_START;
+
+    public LoadGenerator(URI baseUri, LoadMix mix, double ratePerSecond, Duration duration, Duration warmup) {
+        this(baseUri, mix, ratePerSecond, duration, warmup, 10_000, Duration.ofSeconds(10), 1);
+    }
+
+    // maxInFlight - предел одновременных запросов клиента: сверх него запросы не отправляются и считаются пропущенными.
+    // seed задаёт последовательность операций и id, поэтому прогон с тем же seed повторяет ту же нагрузку
+    public LoadGenerator(URI baseUri, LoadMix mix, double ratePerSecond, Duration duration, Duration warmup,
+                         int maxInFlight, Duration requestTimeout, long seed) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Частота запросов должна быть положительной");
+        }
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+        this.seed = seed;
+        created.put(LoadOperation.DELETE_TASK, new ConcurrentLinkedQueue<>());
+        created.put(LoadOperation.DELETE_EPIC, new ConcurrentLinkedQueue<>());
+        created.put(LoadOperation.DELETE_SUBTASK, new ConcurrentLinkedQueue<>());
+    }
+
+    // Начальная доска: tasks задач и epics эпиков по subtasksPerEpic подзадач
+    public void seed(int tasks, int epics, int subtasksPerEpic) throws IOException, InterruptedException {
+        taskIds = new int[tasks];
+        for (int i = 0; i < tasks; i++) {
+            taskIds[i] = create("/tasks/task", newTask());
+        }
+        epicIds = new int[epics];
+        subtaskIds = new int[epics * subtasksPerEpic];
+        for (int i = 0; i < epics; i++) {
+            epicIds[i] = create("/tasks/epic", newEpic());
+            for (int j = 0; j < subtasksPerEpic; j++) {
+                subtaskIds[i * subtasksPerEpic + j] = create("/tasks/subtask", newSubtask(epicIds[i]));
+            }
+        }
+    }
+
+    // Доска BoardGenerator, уже загруженная на сервер с id генератора (BoardGenerator.fill во встроенный менеджер):
+    // к её элементам обращаются GET по id, а новые задачи создаются после последнего интервала доски
+    public void useBoard(BoardGenerator board) throws IOException {
+        List<Integer> tasks = new ArrayList<>();
+        List<Integer> epics = new ArrayList<>();
+        List<Integer> subtasks = new ArrayList<>();
+        LocalDateTime[] boardEnd = {SLOT_START};
+        board.generate(item -> {
+            if (item instanceof Epic) {
+                epics.add(item.getId());
+                return;
+            }
+            (item instanceof Subtask ? subtasks : tasks).add(item.getId());
+            LocalDateTime end = item.getStartTime().plus(item.getDuration());
+            if (end.isAfter(boardEnd[0])) {
+                boardEnd[0] = end;
+            }
+        });
+        taskIds = tasks.stream().mapToInt(Integer::intValue).toArray();
+        epicIds = epics.stream().mapToInt(Integer::intValue).toArray();
+        subtaskIds = subtasks.stream().mapToInt(Integer::intValue).toArray();
+        slotBase = boardEnd[0].plus(SLOT);
+    }
+
+    public LoadReport run() throws InterruptedException {
+        LoadReport report = new LoadReport(ratePerSecond, duration.toMillis(), warmup.toMillis(), mix.toString());
+        Random random = new Random(seed);
+        ExecutorService executor = ServerExecutors.virtualThreads();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try {
+            for (long i = 0; ; i++) {
+                // расписание абсолютное: после задержки планировщика запросы догоняют его, а не сдвигаются
+                long intended = start + (long) (i * 1e9 / ratePerSecond);
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                LoadOperation operation = mix.pick(random);
+                boolean measured = intended >= measureFrom;
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        report.recordDropped(operation);
+                    }
+                    continue;
+                }
+                HttpRequest request = request(operation, random);
+                executor.execute(() -> {
+                    try {
+                        send(operation, request, intended, measured ? report : null);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        }
+        report.setElapsedNanos(System.nanoTime() - measureFrom);
+        return report;
+    }
+
+    private HttpRequest request(LoadOperation operation, Random random) {
+        String path = operation.getRoute();
+        String body = null;
+        switch (operation) {
+            case GET_TASK -> path = withId(path, pick(taskIds, random));
+            case GET_EPIC -> path = withId(path, pick(epicIds, random));
+            case GET_SUBTASK -> path = withId(path, pick(subtaskIds, random));
+            case DELETE_TASK, DELETE_EPIC, DELETE_SUBTASK -> {
+                Integer id = created.get(operation).poll();
+                path = withId(path, id == null ? MISSING_ID : id);
+            }
+            case POST_TASK -> body = gson.toJson(newTask());
+            case POST_EPIC -> body = gson.toJson(newEpic());
+            case POST_SUBTASK -> body = gson.toJson(newSubtask(epicIds.length == 0
+                    ? MISSING_ID : pick(epicIds, random)));
+            default -> {
+            }
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(requestTimeout);
+        return body == null
+                ? builder.method(operation.getMethod(), HttpRequest.BodyPublishers.noBody()).build()
+                : builder.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private void send(LoadOperation operation, HttpRequest request, long intended, LoadReport report) {
+        long sent = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long done = System.nanoTime();
+            if (report != null) {
+                report.recordResponse(operation, response.statusCode(), done - intended, done - sent);
+            }
+            if (response.statusCode() == 201) {
+                remember(operation, response.body());
+            }
+        } catch (IOException e) {
+            if (report != null) {
+                report.recordError(operation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Созданные прогоном задачи становятся целями для DELETE
+    private void remember(LoadOperation operation, String body) {
+        switch (operation) {
+            case POST_TASK -> created.get(LoadOperation.DELETE_TASK).add(gson.fromJson(body, Task.class).getId());
+            case POST_EPIC -> created.get(LoadOperation.DELETE_EPIC).add(gson.fromJson(body, Epic.class).getId());
+            case POST_SUBTASK -> created.get(LoadOperation.DELETE_SUBTASK).add(gson.fromJson(body, Subtask.class).getId());
+            default -> {
+            }
+        }
+    }
+
+    private int create(String path, Task task) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(requestTimeout)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(task))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Не удалось создать " + path + ": " + response.statusCode()
+                    + " " + response.body());
+        }
+        return gson.fromJson(response.body(), task.getClass()).getId();
+    }
+
+    // Каждая новая задача и подзадача получает свой интервал, чтобы не пересекаться с остальными
+    private Task newTask() {
+        long slot = nextSlot.getAndIncrement();
+        return new Task("Задача " + slot, "Создана генератором нагрузки", Status.NEW, slotStart(slot), SLOT);
+    }
+
+    private Epic newEpic() {
+        return new Epic("Эпик", "Создан генератором нагрузки");
+    }
+
+    private Subtask newSubtask(int epicId) {
+        long slot = nextSlot.getAndIncrement();
+        return new Subtask("Подзадача " + slot, "Создана генератором нагрузки", Status.NEW, epicId,
+                slotStart(slot), SLOT);
+    }
+
+    private LocalDateTime slotStart(long slot) {
+        return slotBase.plus(SLOT.multipliedBy(slot * 2));
+    }
+
+    private static int pick(int[] ids, Random random) {
+        return ids.length == 0 ? MISSING_ID : ids[random.nextInt(ids.length)];
+    }
+
+    private static String withId(String route, int id) {
+        return route.replace("{id}", String.valueOf(id));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Неизвестный аргумент: " + arg + "\n" + usage());
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        if (options.containsKey("help")) {
+            System.out.println(usage());
+            return;
+        }
+
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int tasks = Integer.parseInt(options.getOrDefault("tasks", "1000"));
+        int epics = Integer.parseInt(options.getOrDefault("epics", "50"));
+        int subtasks = Integer.parseInt(options.getOrDefault("subtasks", "10"));
+        HttpTaskServer server = null;
+        BoardGenerator board = null;
+        if (Boolean.parseBoolean(options.getOrDefault("embedded", "false"))) {
+            // встроенный менеджер заполняется напрямую, без HTTP и проверки пересечений на каждый элемент
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            board = new BoardGenerator(seed, tasks, epics, subtasks, 1.2, 400);
+            board.fill(manager);
+            // без задержек Нейгла, иначе каждый ответ по keep-alive-соединению ждёт отложенного ACK
+            server = HttpTaskServer.builder(port, manager).engine(new SunHttpServerEngine(true)).build();
+            server.start();
+        }
+        try {
+            LoadGenerator generator = new LoadGenerator(
+                    URI.create(options.getOrDefault("uri", "http://localhost:" + port)),
+                    LoadMix.parse(options.getOrDefault("mix", "balanced")),
+                    Double.parseDouble(options.getOrDefault("rate", "200")),
+                    Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))),
+                    Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5"))),
+                    Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                    Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "10"))),
+                    seed);
+            if (board != null) {
+                generator.useBoard(board);
+            } else {
+                generator.seed(tasks, epics, subtasks);
+            }
+            generator.run().print(System.out);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static String usage() {
+        return "Параметры: --uri=http://localhost:8080 | --embedded [--port=8080]\n"
+                + "  --rate=200          запросов в секунду\n"
+                + "  --duration=30       длительность измерения, с\n"
+                + "  --warmup=5          прогрев без учёта в отчёте, с\n"
+                + "  --mix=balanced      read | balanced | write | getTask=40,postTask=10,...\n"
+                + "  --max-in-flight=10000 --timeout=10 --seed=1\n"
+                + "  --tasks=1000 --epics=50 --subtasks=10  начальная доска: на удалённом сервере создаётся через API\n"
+                + "                      по subtasks подзадач в эпике, встроенный получает доску BoardGenerator\n"
+                + "                      с числом подзадач по Парето, не больше subtasks";
+    }
+}
@@ -0,0 +1,105 @@
+package service.load;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+// Доли операций в нагрузке. Задаётся строкой "getTask=40,postTask=10,deleteTask=10"
+// или именем готовой смеси: read, balanced, write
+public class LoadMix {
+
+    private final Map<LoadOperation, Integer> weights;
+    private final LoadOperation[] operations;
+    private final int[] cumulative;
+    private final int total;
+
+    public LoadMix(Map<LoadOperation, Integer> weights) {
+        this.weights = Collections.unmodifiableMap(new EnumMap<>(weights));
+        this.operations = new LoadOperation[weights.size()];
+        this.cumulative = new int[weights.size()];
+        int sum = 0;
+        int i = 0;
+        for (Map.Entry<LoadOperation, Integer> entry : this.weights.entrySet()) {
+            if (entry.getValue() <= 0) {
+                throw new IllegalArgumentException("Вес операции должен быть положительным: " + entry.getKey().getKey());
+            }
+            sum += entry.getValue();
+            operations[i] = entry.getKey();
+            cumulative[i] = sum;
+            i++;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Смесь запросов пуста");
+        }
+        this.total = sum;
+    }
+
+    // Почти только чтение: списки, задачи по id и история
+    public static LoadMix readHeavy() {
+        return parse("getTask=35,getTasks=5,getEpic=15,getEpics=2,getSubtask=15,getSubtasks=3,getHistory=15,"
+                + "postTask=4,deleteTask=4,postSubtask=1,deleteSubtask=1");
+    }
+
+    public static LoadMix balanced() {
+        return parse("getTask=20,getTasks=3,getEpic=8,getEpics=2,getSubtask=8,getSubtasks=2,getHistory=7,"
+                + "postTask=15,deleteTask=13,postEpic=3,deleteEpic=3,postSubtask=8,deleteSubtask=8");
+    }
+
+    public static LoadMix writeHeavy() {
+        return parse("getTask=8,getEpic=4,getSubtask=4,getHistory=4,"
+                + "postTask=25,deleteTask=23,postEpic=5,deleteEpic=5,postSubtask=11,deleteSubtask=11");
+    }
+
+    public static LoadMix parse(String spec) {
+        switch (spec.trim().toLowerCase()) {
+            case "read":
+                return readHeavy();
+            case "balanced":
+                return balanced();
+            case "write":
+                return writeHeavy();
+            default:
+                break;
+        }
+        Map<LoadOperation, Integer> weights = new EnumMap<>(LoadOperation.class);
+        for (String part : spec.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидалось операция=вес: " + part);
+            }
+            weights.merge(LoadOperation.byKey(pair[0].trim()), Integer.parseInt(pair[1].trim()), Integer::sum);
+        }
+        return new LoadMix(weights);
+    }
+
+    // Случайная операция с вероятностью, пропорциональной её весу
+    public LoadOperation pick(Random random) {
+        int value = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    public Map<LoadOperation, Integer> getWeights() {
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<LoadOperation, Integer> entry : weights.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(entry.getKey().getKey()).append('=').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+}
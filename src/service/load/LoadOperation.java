@@ -0,0 +1,49 @@
+package service.load;
+
+// Запросы, из которых составляется нагрузка. key - имя операции в описании смеси (см. LoadMix)
+public enum LoadOperation {
+    GET_TASKS("getTasks", "GET", "/tasks/task"),
+    GET_TASK("getTask", "GET", "/tasks/task/{id}"),
+    POST_TASK("postTask", "POST", "/tasks/task"),
+    DELETE_TASK("deleteTask", "DELETE", "/tasks/task/{id}"),
+    GET_EPICS("getEpics", "GET", "/tasks/epic"),
+    GET_EPIC("getEpic", "GET", "/tasks/epic/{id}"),
+    POST_EPIC("postEpic", "POST", "/tasks/epic"),
+    DELETE_EPIC("deleteEpic", "DELETE", "/tasks/epic/{id}"),
+    GET_SUBTASKS("getSubtasks", "GET", "/tasks/subtask"),
+    GET_SUBTASK("getSubtask", "GET", "/tasks/subtask/{id}"),
+    POST_SUBTASK("postSubtask", "POST", "/tasks/subtask"),
+    DELETE_SUBTASK("deleteSubtask", "DELETE", "/tasks/subtask/{id}"),
+    GET_HISTORY("getHistory", "GET", "/tasks/history");
+
+    private final String key;
+    private final String method;
+    private final String route;
+
+    LoadOperation(String key, String method, String route) {
+        this.key = key;
+        this.method = method;
+        this.route = route;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public static LoadOperation byKey(String key) {
+        for (LoadOperation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная операция: " + key);
+    }
+}
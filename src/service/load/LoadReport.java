@@ -0,0 +1,190 @@
+package service.load;
+
+import service.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Итоги прогона LoadGenerator. Время ответа отсчитывается от запланированного момента отправки,
+// поэтому задержка из-за перегрузки клиента или сервера не теряется (coordinated omission).
+// Время обслуживания - от фактической отправки; разница между ними показывает, сколько запрос ждал очереди
+public class LoadReport {
+
+    // Перцентили сводной таблицы и шаги распределения в духе HdrHistogram: каждый шаг вдвое ближе к 100%
+    private static final double[] SUMMARY_PERCENTILES = {0.5, 0.75, 0.9, 0.99, 0.999, 0.9999};
+    private static final String[] SUMMARY_LABELS = {"p50", "p75", "p90", "p99", "p99.9", "p99.99"};
+    private static final int DISTRIBUTION_STEPS = 17;
+
+    private final double ratePerSecond;
+    private final long durationMillis;
+    private final long warmupMillis;
+    private final String mix;
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final Map<LoadOperation, OperationStats> operations = new EnumMap<>(LoadOperation.class);
+    private long elapsedNanos;
+
+    public LoadReport(double ratePerSecond, long durationMillis, long warmupMillis, String mix) {
+        this.ratePerSecond = ratePerSecond;
+        this.durationMillis = durationMillis;
+        this.warmupMillis = warmupMillis;
+        this.mix = mix;
+        for (LoadOperation operation : LoadOperation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+
+    // Счётчики одной операции
+    public static class OperationStats {
+
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final AtomicLongArray statusClasses = new AtomicLongArray(6); // 1xx..5xx по первой цифре
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        public LatencyHistogram getResponseTime() {
+            return responseTime;
+        }
+
+        public long getStatusClass(int hundreds) {
+            return statusClasses.get(hundreds);
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public long getSent() {
+            return responseTime.getCount() + errors.sum();
+        }
+    }
+
+    void recordResponse(LoadOperation operation, int status, long responseNanos, long serviceNanos) {
+        OperationStats stats = operations.get(operation);
+        stats.responseTime.record(responseNanos);
+        if (status >= 100 && status < 600) {
+            stats.statusClasses.incrementAndGet(status / 100);
+        }
+        responseTime.record(responseNanos);
+        serviceTime.record(serviceNanos);
+    }
+
+    // Запрос не получил ответа: ошибка соединения или истёк таймаут
+    void recordError(LoadOperation operation) {
+        operations.get(operation).errors.increment();
+    }
+
+    // Запрос не был отправлен: достигнут предел одновременных запросов клиента
+    void recordDropped(LoadOperation operation) {
+        operations.get(operation).dropped.increment();
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public LatencyHistogram getResponseTime() {
+        return responseTime;
+    }
+
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    public OperationStats getOperation(LoadOperation operation) {
+        return operations.get(operation);
+    }
+
+    public long getCompleted() {
+        return responseTime.getCount();
+    }
+
+    public long getErrors() {
+        long errors = 0;
+        for (OperationStats stats : operations.values()) {
+            errors += stats.getErrors();
+        }
+        return errors;
+    }
+
+    public long getDropped() {
+        long dropped = 0;
+        for (OperationStats stats : operations.values()) {
+            dropped += stats.getDropped();
+        }
+        return dropped;
+    }
+
+    // Ответов в секунду за измеряемую часть прогона
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getCompleted() * 1e9 / elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "Нагрузка: %.1f запросов/с, %d с (прогрев %d с), смесь %s%n",
+                ratePerSecond, durationMillis / 1000, warmupMillis / 1000, mix);
+        out.printf(Locale.ROOT, "Ответов: %d (%.1f в секунду), ошибок: %d, не отправлено из-за предела: %d%n",
+                getCompleted(), getThroughput(), getErrors(), getDropped());
+        out.println();
+
+        out.println("Время, мс        " + percentileHeader() + "       max");
+        out.println("ответ            " + percentileRow(responseTime));
+        out.println("обслуживание     " + percentileRow(serviceTime));
+        out.println();
+
+        out.println("Операция          запросов    2xx    3xx    4xx    5xx ошибки пропуск "
+                + percentileHeader() + "       max");
+        for (Map.Entry<LoadOperation, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (stats.getSent() == 0 && stats.getDropped() == 0) {
+                continue;
+            }
+            out.printf(Locale.ROOT, "%-16s %9d %6d %6d %6d %6d %6d %7d %s%n",
+                    entry.getKey().getKey(), stats.getSent(), stats.getStatusClass(2), stats.getStatusClass(3),
+                    stats.getStatusClass(4), stats.getStatusClass(5), stats.getErrors(), stats.getDropped(),
+                    percentileRow(stats.responseTime));
+        }
+        out.println();
+
+        out.println("Распределение времени ответа");
+        out.println("      Value, ms   Percentile   TotalCount 1/(1-Percentile)");
+        long count = responseTime.getCount();
+        for (int step = 0; step < DISTRIBUTION_STEPS; step++) {
+            double quantile = 1 - Math.pow(0.5, step);
+            out.printf(Locale.ROOT, "%15.3f %12.6f %12d %14.2f%n", millis(responseTime.percentile(quantile)),
+                    quantile, (long) Math.ceil(quantile * count), 1 / (1 - quantile));
+        }
+        out.printf(Locale.ROOT, "%15.3f %12.6f %12d %14s%n", millis(responseTime.getMax()), 1.0, count, "inf");
+        out.printf(Locale.ROOT, "#[Mean = %.3f, Max = %.3f, Total count = %d]%n",
+                millis(Math.round(responseTime.getMean())), millis(responseTime.getMax()), count);
+    }
+
+    private static String percentileHeader() {
+        StringBuilder builder = new StringBuilder();
+        for (String label : SUMMARY_LABELS) {
+            builder.append(String.format(Locale.ROOT, "%9s", label));
+        }
+        return builder.toString();
+    }
+
+    private static String percentileRow(LatencyHistogram histogram) {
+        StringBuilder builder = new StringBuilder();
+        for (double quantile : SUMMARY_PERCENTILES) {
+            builder.append(String.format(Locale.ROOT, "%9.3f", millis(histogram.percentile(quantile))));
+        }
+        builder.append(String.format(Locale.ROOT, "%10.3f", millis(histogram.getMax())));
+        return builder.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,8 @@
+package service.metrics;
+
+// HttpExchange, который сам считает байты тела ответа. Router не оборачивает его тело в CountingOutputStream
+public interface CountedExchange {
+
+    // Байты тела ответа, записанные обработчиком (после сжатия, без служебных байт chunked)
+    long getResponseBodyBytes();
+}
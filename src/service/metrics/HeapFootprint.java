@@ -0,0 +1,388 @@
+package service.metrics;
+
+import service.Managers;
+import service.TaskManager;
+import service.cache.CacheStats;
+import task.Task;
+import task.TaskStatus;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// Оценка памяти, которую занимают данные менеджера и кэши сервера, по категориям (Category).
+// Кучу не обходит: размер задачи считается по модели HeapLayout в момент её изменения (update),
+// а категории-коллекции (приоритеты, история, индексы, кэш ответов) - как число записей, умноженное на размер записи.
+// Мягкие лимиты не ограничивают данные: при превышении в лог пишется предупреждение, один раз до возврата ниже 90% лимита.
+// По умолчанию лимит задан только на общий объём - половина максимального размера кучи
+public class HeapFootprint {
+
+    public enum Category {
+        TASKS("tasks"),
+        EPICS("epics"),
+        SUBTASKS("subtasks"),
+        PRIORITIZED("prioritized"),
+        HISTORY("history"),
+        // Индексы TaskQuery и версии задач
+        INDEXES("indexes"),
+        RESPONSE_CACHE("responseCache"),
+        // Собственные данные учёта: размер каждой задачи по id
+        ACCOUNTING("accounting");
+
+        private final String key;
+
+        Category(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Category byKey(String key) {
+            for (Category category : values()) {
+                if (category.key.equals(key)) {
+                    return category;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестная категория памяти: " + key);
+        }
+    }
+
+    // Запись HashMap<Integer, ?>: узел, ключ (Integer вне кэша -128..127) и ячейка таблицы при заполнении 0.75
+    public static final long HASH_ENTRY_BYTES = HeapLayout.shallowSize("java.util.HashMap$Node")
+            + HeapLayout.shallowSize(Integer.class) + HeapLayout.REFERENCE * 4L / 3;
+    // Запись TreeMap, на котором построен TreeSet
+    public static final long TREE_ENTRY_BYTES = HeapLayout.shallowSize("java.util.TreeMap$Entry");
+
+    private static final long DATE_TIME_BYTES = HeapLayout.shallowSize(LocalDateTime.class)
+            + HeapLayout.shallowSize(LocalDate.class) + HeapLayout.shallowSize(LocalTime.class);
+
+    // Поля-ссылки классов задач, по которым считается их размер
+    private static final ClassValue<Field[]> REFERENCE_FIELDS = new ClassValue<>() {
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        }
+    };
+
+    // Каждый эпик держит собственный пустой менеджер (см. Epic); его размер измеряется один раз при загрузке класса
+    private static final long EMBEDDED_MANAGER_BYTES = measureEmbeddedManager();
+    // Все лимиты проверяются не чаще раза в столько изменений задач; лимит категории изменённой задачи - сразу
+    private static final int LIMIT_CHECK_INTERVAL = 256;
+
+    private final long[] entityBytes = new long[Category.values().length];
+    private final int[] entityCounts = new int[Category.values().length];
+    private final Map<Integer, Integer> sizes = new HashMap<>();
+    private final Gauge[] gauges = new Gauge[Category.values().length];
+    private final long[] softLimits = new long[Category.values().length];
+    private final boolean[] warned = new boolean[Category.values().length];
+    private long totalSoftLimit;
+    private boolean totalWarned;
+    private long warnings;
+    private int changesSinceCheck;
+
+    // Категория, размер которой берётся из числа записей и, для кэшей, объёма хранимых данных
+    private static class Gauge {
+
+        private final IntSupplier entries;
+        private final Supplier<CacheStats> stats;
+        private final long entryBytes;
+
+        Gauge(IntSupplier entries, Supplier<CacheStats> stats, long entryBytes) {
+            this.entries = entries;
+            this.stats = stats;
+            this.entryBytes = entryBytes;
+        }
+    }
+
+    // Занятый объём категории на момент запроса
+    public static class Usage {
+
+        private final Category category;
+        private final long entries;
+        private final long bytes;
+        private final long softLimit;
+
+        Usage(Category category, long entries, long bytes, long softLimit) {
+            this.category = category;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.softLimit = softLimit;
+        }
+
+        public Category getCategory() {
+            return category;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        // 0 - лимит не задан
+        public long getSoftLimit() {
+            return softLimit;
+        }
+    }
+
+    public HeapFootprint() {
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        totalSoftLimit = maxHeap == Long.MAX_VALUE ? 0 : maxHeap / 2;
+        trackEntries(Category.ACCOUNTING, sizes::size,
+                HASH_ENTRY_BYTES + HeapLayout.shallowSize(Integer.class));
+    }
+
+    // Категория из entries записей по entryBytes байт. Поставщик вызывается без блокировки владельца коллекции,
+    // поэтому должен только читать размер
+    public synchronized void trackEntries(Category category, IntSupplier entries, long entryBytes) {
+        gauges[category.ordinal()] = new Gauge(entries, null, entryBytes);
+    }
+
+    // Кэш: объём хранимых данных (вес в CacheStats) плюс entryBytes служебных байт на запись
+    public synchronized void trackCache(Category category, Supplier<CacheStats> stats, long entryBytes) {
+        gauges[category.ordinal()] = new Gauge(null, stats, entryBytes);
+    }
+
+    // Задача создана, изменена или удалена (current == null). Вызывается менеджером при каждом изменении
+    public synchronized void update(TaskStatus type, int id, Task current) {
+        Category category = category(type);
+        int index = category.ordinal();
+        Integer previous;
+        if (current == null) {
+            previous = sizes.remove(id);
+        } else {
+            int size = (int) entitySize(current);
+            previous = sizes.put(id, size);
+            entityBytes[index] += size;
+            if (previous == null) {
+                entityCounts[index]++;
+            }
+        }
+        if (previous != null) {
+            entityBytes[index] -= previous;
+            if (current == null) {
+                entityCounts[index]--;
+            }
+        }
+        // Полная проверка опрашивает все категории, поэтому на каждое изменение проверяется только своя
+        warned[index] = checkLimit(category.getKey(), entityBytes[index], softLimits[index], warned[index]);
+        if (++changesSinceCheck >= LIMIT_CHECK_INTERVAL) {
+            checkLimits();
+        }
+    }
+
+    // Сброс оценки задач перед повторным обходом хранилищ
+    public synchronized void clearEntities() {
+        sizes.clear();
+        Arrays.fill(entityBytes, 0);
+        Arrays.fill(entityCounts, 0);
+    }
+
+    // bytes <= 0 снимает лимит
+    public synchronized void setSoftLimit(Category category, long bytes) {
+        softLimits[category.ordinal()] = Math.max(0, bytes);
+        warned[category.ordinal()] = false;
+    }
+
+    public synchronized void setTotalSoftLimit(long bytes) {
+        totalSoftLimit = Math.max(0, bytes);
+        totalWarned = false;
+    }
+
+    public synchronized long getTotalSoftLimit() {
+        return totalSoftLimit;
+    }
+
+    // Сколько предупреждений о превышении лимитов выдано
+    public synchronized long getWarnings() {
+        return warnings;
+    }
+
+    public synchronized Usage getUsage(Category category) {
+        int index = category.ordinal();
+        Gauge gauge = gauges[index];
+        if (gauge == null) {
+            return new Usage(category, entityCounts[index], entityBytes[index], softLimits[index]);
+        }
+        if (gauge.stats != null) {
+            CacheStats stats = gauge.stats.get();
+            return new Usage(category, stats.getSize(), stats.getWeight() + stats.getSize() * gauge.entryBytes,
+                    softLimits[index]);
+        }
+        int entries = gauge.entries.getAsInt();
+        return new Usage(category, entries, entries * gauge.entryBytes, softLimits[index]);
+    }
+
+    // Все категории; заодно проверяются лимиты тех, что растут без изменений задач (история, кэш)
+    public synchronized List<Usage> getUsage() {
+        checkLimits();
+        List<Usage> usage = new ArrayList<>();
+        for (Category category : Category.values()) {
+            usage.add(getUsage(category));
+        }
+        return Collections.unmodifiableList(usage);
+    }
+
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (Category category : Category.values()) {
+            total += getUsage(category).getBytes();
+        }
+        return total;
+    }
+
+    private void checkLimits() {
+        changesSinceCheck = 0;
+        long total = 0;
+        for (Category category : Category.values()) {
+            long bytes = getUsage(category).getBytes();
+            total += bytes;
+            int index = category.ordinal();
+            warned[index] = checkLimit(category.getKey(), bytes, softLimits[index], warned[index]);
+        }
+        totalWarned = checkLimit("всего", total, totalSoftLimit, totalWarned);
+    }
+
+    // Новое состояние флага предупреждения
+    private boolean checkLimit(String name, long bytes, long limit, boolean alreadyWarned) {
+        if (limit <= 0) {
+            return false;
+        }
+        if (bytes > limit) {
+            if (!alreadyWarned) {
+                warnings++;
+                System.out.println("Предупреждение: оценка памяти \"" + name + "\" " + formatBytes(bytes)
+                        + " превысила мягкий лимит " + formatBytes(limit));
+            }
+            return true;
+        }
+        return alreadyWarned && bytes > limit - limit / 10;
+    }
+
+    private static Category category(TaskStatus type) {
+        return switch (type) {
+            case TASK -> Category.TASKS;
+            case EPIC -> Category.EPICS;
+            case SUBTASK -> Category.SUBTASKS;
+        };
+    }
+
+    // Задача вместе с объектами, на которые ссылаются её поля, и записью в хранилище менеджера
+    public static long entitySize(Task task) {
+        long size = HeapLayout.shallowSize(task.getClass()) + HASH_ENTRY_BYTES;
+        for (Field field : REFERENCE_FIELDS.get(task.getClass())) {
+            try {
+                size += referencedSize(field.get(task));
+            } catch (IllegalAccessException e) {
+                size += HeapLayout.REFERENCE;
+            }
+        }
+        return size;
+    }
+
+    private static long referencedSize(Object value) {
+        if (value == null || value instanceof Enum) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return HeapLayout.stringSize(string);
+        }
+        if (value instanceof LocalDateTime) {
+            return DATE_TIME_BYTES;
+        }
+        if (value instanceof Integer number) {
+            return number >= -128 && number <= 127 ? 0 : HeapLayout.shallowSize(Integer.class);
+        }
+        if (value instanceof List<?> list) {
+            // ArrayList: пустой ссылается на общий массив, заполненный - минимум на 10 элементов
+            long size = HeapLayout.shallowSize(list.getClass())
+                    + (list.isEmpty() ? 0 : HeapLayout.referenceArraySize(Math.max(10, list.size())));
+            for (Object element : list) {
+                size += referencedSize(element);
+            }
+            return size;
+        }
+        if (value instanceof TaskManager) {
+            return EMBEDDED_MANAGER_BYTES;
+        }
+        return HeapLayout.shallowSize(value.getClass());
+    }
+
+    // Объём, выделенный потоком на создание менеджера (com.sun.management.ThreadMXBean).
+    // Если счётчик недоступен - модель на один уровень: менеджер и объекты, на которые ссылаются его поля
+    private static long measureEmbeddedManager() {
+        int samples = 16;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            long threadId = Thread.currentThread().getId();
+            Object[] created = new Object[samples];
+            Managers.getDefaultTaskManager();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < samples; i++) {
+                created[i] = Managers.getDefaultTaskManager();
+            }
+            long after = threads.getThreadAllocatedBytes(threadId);
+            if (before >= 0 && after > before) {
+                return (after - before) / samples;
+            }
+        }
+        TaskManager manager = Managers.getDefaultTaskManager();
+        long size = HeapLayout.shallowSize(manager.getClass());
+        for (Class<?> current = manager.getClass(); current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    Object value = field.get(manager);
+                    size += value == null ? 0 : HeapLayout.shallowSize(value.getClass());
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    size += HeapLayout.REFERENCE;
+                }
+            }
+        }
+        return size;
+    }
+
+    // Размер для людей: "64m", "512k", "1g" или число байт
+    public static long parseBytes(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        char last = text.isEmpty() ? ' ' : text.charAt(text.length() - 1);
+        if (last == 'k' || last == 'm' || last == 'g') {
+            unit = last == 'k' ? 1024L : last == 'm' ? 1024L * 1024 : 1024L * 1024 * 1024;
+            text = text.substring(0, text.length() - 1);
+        }
+        return Long.parseLong(text) * unit;
+    }
+
+    static String formatBytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f МБ", bytes / (1024.0 * 1024));
+    }
+}
@@ -0,0 +1,119 @@
+package service.metrics;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+// Модель размеров объектов в куче HotSpot. Размер заголовка, ссылки и выравнивание определяются один раз при старте
+// по флагам JVM (UseCompressedOops, UseCompressedClassPointers, ObjectAlignmentInBytes), поля классов - через reflection.
+// Размер объекта - заголовок плюс поля, выровненные по ObjectAlignmentInBytes; промежутки между полями не учитываются
+public final class HeapLayout {
+
+    private static final boolean COMPRESSED_OOPS = booleanFlag("UseCompressedOops", true);
+    private static final boolean COMPRESSED_CLASS_POINTERS = booleanFlag("UseCompressedClassPointers", true);
+
+    public static final int ALIGNMENT = intFlag("ObjectAlignmentInBytes", 8);
+    public static final int REFERENCE = COMPRESSED_OOPS ? 4 : 8;
+    public static final int OBJECT_HEADER = COMPRESSED_CLASS_POINTERS ? 12 : 16;
+    public static final int ARRAY_HEADER = COMPRESSED_CLASS_POINTERS ? 16 : 24;
+
+    private static final ClassValue<Long> SHALLOW_SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    private HeapLayout() {
+    }
+
+    public static boolean isCompressedOops() {
+        return COMPRESSED_OOPS;
+    }
+
+    // Размер объекта без учёта объектов, на которые он ссылается
+    public static long shallowSize(Class<?> type) {
+        return SHALLOW_SIZES.get(type);
+    }
+
+    // Класс по имени, например внутренний узел коллекции "java.util.HashMap$Node"
+    public static long shallowSize(String className) {
+        try {
+            return shallowSize(Class.forName(className));
+        } catch (ClassNotFoundException e) {
+            return align(OBJECT_HEADER + 4L * REFERENCE);
+        }
+    }
+
+    public static long arraySize(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    public static long referenceArraySize(int length) {
+        return arraySize(length, REFERENCE);
+    }
+
+    // Строка вместе с массивом символов: latin-1 занимает байт на символ, остальное - два (compact strings)
+    public static long stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return shallowSize(String.class) + arraySize(value.length(), bytesPerChar);
+    }
+
+    public static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE;
+        }
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    // Флаги читаются через HotSpotDiagnosticMXBean; на других JVM остаются значения по умолчанию 64-битной HotSpot
+    private static boolean booleanFlag(String name, boolean defaultValue) {
+        String value = vmOption(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static int intFlag(String name, int defaultValue) {
+        String value = vmOption(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static String vmOption(String name) {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+}
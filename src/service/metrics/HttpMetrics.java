@@ -0,0 +1,50 @@
+package service.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+// Реестр метрик HTTP-сервера: метрики всех маршрутов и общее число выполняющихся запросов.
+// Маршруты регистрируются при построении таблицы маршрутов, во время обработки запросов список только читается
+public class HttpMetrics {
+
+    // Запросы, путь которых не совпал ни с одним маршрутом (404 и 405)
+    public static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final List<RouteMetrics> routes = new CopyOnWriteArrayList<>();
+    private final LongAdder inFlight = new LongAdder();
+    private final RouteMetrics unmatched = register("*", UNMATCHED_ROUTE);
+
+    public synchronized RouteMetrics register(String method, String route) {
+        for (RouteMetrics metrics : routes) {
+            if (metrics.getMethod().equals(method) && metrics.getRoute().equals(route)) {
+                return metrics; // один маршрут в нескольких таблицах считается вместе
+            }
+        }
+        RouteMetrics metrics = new RouteMetrics(method, route);
+        routes.add(metrics);
+        return metrics;
+    }
+
+    public RouteMetrics getUnmatched() {
+        return unmatched;
+    }
+
+    public List<RouteMetrics> getRoutes() {
+        return routes;
+    }
+
+    public void started(RouteMetrics route) {
+        inFlight.increment();
+        route.started();
+    }
+
+    public void finished(RouteMetrics route, int status, long latencyNanos, long requestLength, long responseLength) {
+        inFlight.decrement();
+        route.finished(status, latencyNanos, requestLength, responseLength);
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+}
@@ -0,0 +1,92 @@
+package service.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма значений (например, задержек в наносекундах) с логарифмическими корзинами.
+// Каждый интервал [2^k, 2^(k+1)) делится на 16 корзин, поэтому погрешность перцентиля не больше 1/16 (6,25%)
+// при любом масштабе значений, а вся гистограмма - 960 счётчиков.
+// Запись без блокировок и без выделения памяти: номер корзины вычисляется сдвигами, счётчик увеличивается атомарно.
+// Перцентили считаются по текущим счётчикам без остановки записи, поэтому при параллельной записи приблизительны
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;           // корзин в одном интервале [2^k, 2^(k+1))
+    private static final int LINEAR_COUNT = SUB_COUNT * 2;        // значения меньше 32 хранятся точно
+    private static final int BUCKET_COUNT = LINEAR_COUNT + (62 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // не меньше SUB_BITS + 1
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR_COUNT + (exponent - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    // Наибольшее значение, попадающее в корзину index
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_COUNT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_COUNT) / SUB_COUNT + SUB_BITS + 1;
+        int sub = (index - LINEAR_COUNT) % SUB_COUNT;
+        int shift = exponent - SUB_BITS;
+        long lower = (long) (SUB_COUNT + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    // Значение, не меньше которого доля quantile (0..1) записанных значений; 0 для пустой гистограммы
+    public long percentile(double quantile) {
+        long total = 0;
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+}
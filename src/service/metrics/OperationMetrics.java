@@ -0,0 +1,56 @@
+package service.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики одной операции менеджера: число вызовов, задержки и исход.
+// rejected - менеджер вернул -1 (проверка или пересечение по времени) или пустой результат,
+// failed - вызов завершился исключением
+public class OperationMetrics {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public void succeeded(long latencyNanos) {
+        latency.record(latencyNanos);
+    }
+
+    public void rejected(long latencyNanos) {
+        rejected.increment();
+        latency.record(latencyNanos);
+    }
+
+    public void failed(long latencyNanos) {
+        failed.increment();
+        latency.record(latencyNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    public long getSucceeded() {
+        return Math.max(0, getCalls() - getRejected() - getFailed());
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+}
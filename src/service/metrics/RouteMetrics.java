@@ -0,0 +1,84 @@
+package service.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Метрики одного маршрута (метод и шаблон пути): число запросов по кодам ответа, задержки,
+// объём запросов и ответов, число выполняющихся запросов.
+// Создаётся один раз при регистрации маршрута, поэтому запись не ищет маршрут и не выделяет память
+public class RouteMetrics {
+
+    private static final int MAX_STATUS = 600;
+
+    private final String method;
+    private final String route;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLongArray statuses = new AtomicLongArray(MAX_STATUS);
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    public RouteMetrics(String method, String route) {
+        this.method = method;
+        this.route = route;
+    }
+
+    public void started() {
+        inFlight.increment();
+    }
+
+    // Завершение запроса: код ответа (0, если ответ не отправлен), длительность и объём тела запроса и ответа
+    public void finished(int status, long latencyNanos, long requestLength, long responseLength) {
+        inFlight.decrement();
+        latency.record(latencyNanos);
+        statuses.incrementAndGet(status > 0 && status < MAX_STATUS ? status : 0);
+        requestBytes.add(requestLength);
+        responseBytes.add(responseLength);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getRequests() {
+        return latency.getCount();
+    }
+
+    // Число ответов с кодом status; status 0 - запросы, завершившиеся без ответа
+    public long getStatusCount(int status) {
+        return status >= 0 && status < MAX_STATUS ? statuses.get(status) : 0;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    // Коды ответа, встречавшиеся хотя бы раз, по возрастанию
+    public int[] getStatuses() {
+        int size = 0;
+        int[] found = new int[MAX_STATUS];
+        for (int status = 0; status < MAX_STATUS; status++) {
+            if (statuses.get(status) > 0) {
+                found[size++] = status;
+            }
+        }
+        return Arrays.copyOf(found, size);
+    }
+}
@@ -0,0 +1,127 @@
+package service.replay;
+
+import service.metrics.LatencyHistogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Итоги воспроизведения журнала: пропускная способность, задержки по маршрутам и расхождения ответов.
+// При воспроизведении в исходном темпе задержка считается от запланированного момента отправки,
+// при максимальной скорости - от фактической
+public class ReplayReport {
+
+    // Сколько расхождений выводится подробно
+    private static final int MAX_SAMPLES = 20;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<String, RouteStats> routes = new TreeMap<>();
+    private final List<String> samples = Collections.synchronizedList(new ArrayList<>());
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private long elapsedNanos;
+
+    public static class RouteStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder mismatches = new LongAdder();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getMismatches() {
+            return mismatches.sum();
+        }
+    }
+
+    // Маршруты заводятся заранее, пока читается журнал, чтобы запись результатов шла без блокировок
+    synchronized RouteStats route(String route) {
+        return routes.computeIfAbsent(route, key -> new RouteStats());
+    }
+
+    // difference == null - ответ совпал с записанным
+    void record(RouteStats route, TrafficRecord record, long latencyNanos, String difference) {
+        latency.record(latencyNanos);
+        route.latency.record(latencyNanos);
+        long number = sequence.incrementAndGet();
+        if (difference != null) {
+            mismatches.increment();
+            route.mismatches.increment();
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add("#" + number + " " + record.getMethod() + " " + record.getPath() + ": " + difference);
+            }
+        }
+    }
+
+    void recordError(TrafficRecord record, Exception e) {
+        errors.increment();
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add(record.getMethod() + " " + record.getPath() + ": " + e);
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getReplayed() {
+        return latency.getCount();
+    }
+
+    public long getMismatches() {
+        return mismatches.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public synchronized Map<String, RouteStats> getRoutes() {
+        return Collections.unmodifiableMap(new TreeMap<>(routes));
+    }
+
+    public List<String> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : getReplayed() * 1e9 / elapsedNanos;
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "Воспроизведено: %d запросов за %.2f с (%.1f в секунду), расхождений: %d, ошибок: %d%n",
+                getReplayed(), elapsedNanos / 1e9, getThroughput(), getMismatches(), getErrors());
+        out.println();
+        out.println("Маршрут                           запросов расхожд.    p50, мс    p99, мс  p99.9, мс    max, мс");
+        for (Map.Entry<String, RouteStats> entry : getRoutes().entrySet()) {
+            out.println(row(entry.getKey(), entry.getValue().latency, entry.getValue().getMismatches()));
+        }
+        out.println(row("всего", latency, getMismatches()));
+        List<String> shown = getSamples();
+        if (!shown.isEmpty()) {
+            out.println();
+            out.println("Первые расхождения и ошибки:");
+            shown.forEach(sample -> out.println("  " + sample));
+        }
+    }
+
+    private static String row(String route, LatencyHistogram histogram, long mismatches) {
+        return String.format(Locale.ROOT, "%-32s %9d %8d %10.3f %10.3f %10.3f %10.3f", route,
+                histogram.getCount(), mismatches, histogram.percentile(0.5) / 1e6, histogram.percentile(0.99) / 1e6,
+                histogram.percentile(0.999) / 1e6, histogram.getMax() / 1e6);
+    }
+}
@@ -0,0 +1,164 @@
+package service.replay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Формат журнала трафика: поток gzip, в начале MAGIC и VERSION, затем записи подряд до конца потока.
+// Запись: время от начала записи в микросекундах (разница с предыдущей записью, varint со знаком),
+// метод, путь, Accept-Encoding и If-None-Match (UTF, пустая строка - заголовка не было),
+// тело запроса (varint длина + байты), статус, флаги и тело ответа (varint длина + 1 + байты, 0 - не записано).
+// Записи идут в порядке завершения запросов: в этом порядке их применил менеджер
+public final class TrafficLog {
+
+    private static final int MAGIC = 0x4B545243; // "KTRC"
+    private static final int VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+
+    private TrafficLog() {
+    }
+
+    public static class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private long previousMicros;
+
+        public Writer(OutputStream stream) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream, 1 << 16), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void write(TrafficRecord record) throws IOException {
+            long micros = record.getOffsetNanos() / 1000;
+            writeVarLong(out, zigZag(micros - previousMicros));
+            previousMicros = micros;
+            out.writeUTF(record.getMethod());
+            out.writeUTF(record.getPath());
+            out.writeUTF(record.getAcceptEncoding() == null ? "" : record.getAcceptEncoding());
+            out.writeUTF(record.getIfNoneMatch() == null ? "" : record.getIfNoneMatch());
+            writeBytes(out, record.getBody(), false);
+            out.writeShort(record.getStatus());
+            out.writeByte(record.isGzip() ? FLAG_GZIP : 0);
+            writeBytes(out, record.getResponse(), true);
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    public static class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private long previousMicros;
+
+        public Reader(InputStream stream) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream, 1 << 16), 1 << 16));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Файл не является журналом трафика");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия журнала трафика: " + version);
+            }
+        }
+
+        // Следующая запись или null в конце журнала
+        public TrafficRecord next() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null;
+            }
+            long micros = previousMicros + unZigZag(readVarLong(in, first));
+            previousMicros = micros;
+            String method = in.readUTF();
+            String path = in.readUTF();
+            String acceptEncoding = in.readUTF();
+            String ifNoneMatch = in.readUTF();
+            byte[] body = readBytes(in, false);
+            int status = in.readUnsignedShort();
+            int flags = in.readUnsignedByte();
+            byte[] response = readBytes(in, true);
+            return new TrafficRecord(micros * 1000, method, path, emptyToNull(acceptEncoding),
+                    emptyToNull(ifNoneMatch), body, status, (flags & FLAG_GZIP) != 0, response);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // nullable: длина пишется со сдвигом на 1, чтобы отличить отсутствующее тело от пустого
+    private static void writeBytes(DataOutputStream out, byte[] bytes, boolean nullable) throws IOException {
+        if (bytes == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        writeVarLong(out, bytes.length + (nullable ? 1 : 0));
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in, boolean nullable) throws IOException {
+        int length = (int) readVarLong(in, in.readUnsignedByte());
+        if (nullable) {
+            if (length == 0) {
+                return null;
+            }
+            length--;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // first - уже прочитанный первый байт
+    private static long readVarLong(DataInputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            current = in.read();
+            if (current < 0) {
+                throw new EOFException("Журнал трафика обрезан");
+            }
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,80 @@
+package service.replay;
+
+// Один записанный запрос и ответ на него.
+// offsetNanos - время прихода запроса от начала записи. Заголовки сохраняются только те, от которых зависит ответ.
+// response == null, если тела ответов не записывались
+public class TrafficRecord {
+
+    private final long offsetNanos;
+    private final String method;
+    private final String path;
+    private final String acceptEncoding;
+    private final String ifNoneMatch;
+    private final byte[] body;
+    private final int status;
+    private final boolean gzip;
+    private final byte[] response;
+
+    public TrafficRecord(long offsetNanos, String method, String path, String acceptEncoding, String ifNoneMatch,
+                         byte[] body, int status, boolean gzip, byte[] response) {
+        this.offsetNanos = offsetNanos;
+        this.method = method;
+        this.path = path;
+        this.acceptEncoding = acceptEncoding;
+        this.ifNoneMatch = ifNoneMatch;
+        this.body = body;
+        this.status = status;
+        this.gzip = gzip;
+        this.response = response;
+    }
+
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    // Путь вместе со строкой запроса
+    public String getPath() {
+        return path;
+    }
+
+    public String getAcceptEncoding() {
+        return acceptEncoding;
+    }
+
+    public String getIfNoneMatch() {
+        return ifNoneMatch;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    // Тело ответа записано сжатым gzip
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public byte[] getResponse() {
+        return response;
+    }
+
+    // Маршрут для отчёта: числовые сегменты пути заменяются на {id}, строка запроса отбрасывается
+    public String getRoute() {
+        int query = path.indexOf('?');
+        String rawPath = query < 0 ? path : path.substring(0, query);
+        return method + " " + rawPath.replaceAll("/\\d+(?=/|$)", "/{id}");
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path + " -> " + status;
+    }
+}
@@ -0,0 +1,193 @@
+package service.replay;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.TreeMap;
+
+// Запись запросов к серверу в журнал трафика (TrafficLog). Обёртка wrap пропускает запросы без изменений,
+// пока запись не включена; после start тело запроса читается целиком и подменяется копией,
+// а тело ответа копируется при записи клиенту.
+// Порядок записей в журнале - порядок, в котором запросы начали отвечать: номер берётся до отправки первого байта
+// ответа, то есть после того, как менеджер применил запрос, и до того, как клиент смог отправить следующий.
+// Готовые записи ждут в буфере, пока не будут записаны все предыдущие по номеру.
+// У ответов без тела (304) номер берётся при закрытии обмена, и их порядок относительно соседних приблизителен.
+// Тела ответов больше MAX_RESPONSE_BYTES не сохраняются: при воспроизведении у них сравнивается только статус
+public class TrafficRecorder {
+
+    private static final int MAX_RESPONSE_BYTES = 1024 * 1024;
+
+    private volatile Session session;
+    private volatile long lastRecorded;
+
+    // Начало записи в out; withResponses - сохранять тела ответов для сравнения при воспроизведении
+    public synchronized void start(OutputStream out, boolean withResponses) throws IOException {
+        if (session != null) {
+            throw new IllegalStateException("Запись трафика уже идёт");
+        }
+        session = new Session(new TrafficLog.Writer(out), withResponses);
+    }
+
+    // Завершение записи: журнал дописывается и закрывается. Запросы, ещё не получившие ответа, в него не попадут
+    public synchronized void stop() throws IOException {
+        Session current = session;
+        if (current != null) {
+            session = null;
+            current.close();
+        }
+    }
+
+    public boolean isRecording() {
+        return session != null;
+    }
+
+    // Записей в текущем или последнем журнале
+    public long getRecorded() {
+        Session current = session;
+        return current != null ? current.getWritten() : lastRecorded;
+    }
+
+    public HttpHandler wrap(HttpHandler delegate) {
+        return exchange -> {
+            Session current = session;
+            if (current == null) {
+                delegate.handle(exchange);
+                return;
+            }
+            long arrived = System.nanoTime() - current.startNanos;
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            Capture capture = new Capture(exchange.getResponseBody(), current);
+            exchange.setStreams(new ByteArrayInputStream(body), capture);
+            try {
+                delegate.handle(exchange);
+            } finally {
+                current.append(capture.commit(), record(exchange, arrived, body, capture.bytes()));
+            }
+        };
+    }
+
+    private static TrafficRecord record(HttpExchange exchange, long arrived, byte[] body, byte[] response) {
+        String query = exchange.getRequestURI().getRawQuery();
+        String contentEncoding = exchange.getResponseHeaders().getFirst("Content-Encoding");
+        return new TrafficRecord(arrived, exchange.getRequestMethod(),
+                exchange.getRequestURI().getRawPath() + (query == null ? "" : "?" + query),
+                exchange.getRequestHeaders().getFirst("Accept-Encoding"),
+                exchange.getRequestHeaders().getFirst("If-None-Match"),
+                body, exchange.getResponseCode(), "gzip".equalsIgnoreCase(contentEncoding), response);
+    }
+
+    // Одна запись журнала: от start до stop
+    private class Session {
+
+        private final TrafficLog.Writer writer;
+        private final boolean withResponses;
+        private final long startNanos = System.nanoTime();
+        private final TreeMap<Long, TrafficRecord> pending = new TreeMap<>();
+        private long nextTicket;
+        private long nextWrite;
+        private boolean closed;
+
+        Session(TrafficLog.Writer writer, boolean withResponses) {
+            this.writer = writer;
+            this.withResponses = withResponses;
+        }
+
+        synchronized long ticket() {
+            return nextTicket++;
+        }
+
+        synchronized void append(long ticket, TrafficRecord record) throws IOException {
+            if (closed) {
+                return;
+            }
+            pending.put(ticket, record);
+            while (!pending.isEmpty() && pending.firstKey() == nextWrite) {
+                writer.write(pending.pollFirstEntry().getValue());
+                nextWrite++;
+            }
+        }
+
+        synchronized long getWritten() {
+            return nextWrite;
+        }
+
+        // Оставшиеся записи дописываются по порядку номеров, пропуски - запросы без ответа
+        synchronized void close() throws IOException {
+            closed = true;
+            for (TrafficRecord record : pending.values()) {
+                writer.write(record);
+                nextWrite++;
+            }
+            pending.clear();
+            lastRecorded = nextWrite;
+            writer.close();
+        }
+    }
+
+    // Тело ответа: берёт номер записи перед первой отправкой и хранит копию, пока она не больше MAX_RESPONSE_BYTES
+    private static class Capture extends FilterOutputStream {
+
+        private final Session session;
+        private ByteArrayOutputStream copy;
+        private long ticket = -1;
+
+        Capture(OutputStream out, Session session) {
+            super(out);
+            this.session = session;
+            this.copy = session.withResponses ? new ByteArrayOutputStream() : null;
+        }
+
+        long commit() {
+            if (ticket < 0) {
+                ticket = session.ticket();
+            }
+            return ticket;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            commit();
+            out.write(b);
+            keep(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            commit();
+            out.write(b, off, len);
+            keep(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            commit();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            commit();
+            out.close();
+        }
+
+        private void keep(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            if (copy.size() + len > MAX_RESPONSE_BYTES) {
+                copy = null;
+                return;
+            }
+            copy.write(b, off, len);
+        }
+
+        byte[] bytes() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+}
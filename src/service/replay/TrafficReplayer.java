@@ -0,0 +1,215 @@
+package service.replay;
+
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.TaskManager;
+import service.engine.NioServerEngine;
+import service.engine.ServerEngine;
+import service.engine.SunHttpServerEngine;
+import service.utils.ServerExecutors;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+// Воспроизведение журнала трафика (TrafficLog) на сервере по адресу baseUri и сравнение ответов с записанными.
+// speed > 0 - темп записи, ускоренный в speed раз: запросы отправляются по расписанию, не дожидаясь ответов.
+// speed <= 0 - максимальная скорость: запросы идут по одному в порядке журнала, поэтому на сервере,
+// начинающем с той же доски, что и при записи, id и ответы совпадают с записанными.
+// В исходном темпе запросы, выполнявшиеся при записи одновременно, могут примениться в другом порядке,
+// и часть расхождений тогда ожидаема.
+// Журнал читается потоком: в памяти только запросы, ожидающие ответа.
+// Запуск: java -cp <классы> service.replay.TrafficReplayer --log=traffic.log --embedded --manager=paged --speed=max
+public class TrafficReplayer {
+
+    private final URI baseUri;
+    private final double speed;
+    private final Duration timeout;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    public TrafficReplayer(URI baseUri, double speed) {
+        this(baseUri, speed, Duration.ofSeconds(10));
+    }
+
+    public TrafficReplayer(URI baseUri, double speed, Duration timeout) {
+        this.baseUri = baseUri;
+        this.speed = speed;
+        this.timeout = timeout;
+    }
+
+    public ReplayReport replay(TrafficLog.Reader log) throws IOException, InterruptedException {
+        ReplayReport report = new ReplayReport();
+        long start = System.nanoTime();
+        if (speed <= 0) {
+            TrafficRecord record;
+            while ((record = log.next()) != null) {
+                send(record, report.route(record.getRoute()), System.nanoTime(), report);
+            }
+        } else {
+            ExecutorService executor = ServerExecutors.virtualThreads();
+            try {
+                TrafficRecord record;
+                Long firstOffset = null;
+                while ((record = log.next()) != null) {
+                    if (firstOffset == null) {
+                        firstOffset = record.getOffsetNanos();
+                    }
+                    // записи идут в порядке завершения, поэтому время может немного убывать: такие уходят сразу
+                    long intended = start + (long) ((record.getOffsetNanos() - firstOffset) / speed);
+                    long wait = intended - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    TrafficRecord current = record;
+                    ReplayReport.RouteStats route = report.route(record.getRoute());
+                    executor.execute(() -> send(current, route, intended, report));
+                }
+            } finally {
+                executor.shutdown();
+                executor.awaitTermination(timeout.toMillis() + 1000, TimeUnit.MILLISECONDS);
+            }
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private void send(TrafficRecord record, ReplayReport.RouteStats route, long intended, ReplayReport report) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(record.getPath())).timeout(timeout)
+                .method(record.getMethod(), record.getBody().length == 0 && !record.getMethod().equals("POST")
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(record.getBody()));
+        if (record.getAcceptEncoding() != null) {
+            builder.header("Accept-Encoding", record.getAcceptEncoding());
+        }
+        if (record.getIfNoneMatch() != null) {
+            builder.header("If-None-Match", record.getIfNoneMatch());
+        }
+        try {
+            HttpResponse<byte[]> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+            long latency = System.nanoTime() - intended;
+            boolean gzip = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase)
+                    .isPresent();
+            report.record(route, record, latency, difference(record, response.statusCode(), gzip, response.body()));
+        } catch (IOException e) {
+            report.recordError(record, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Описание расхождения или null, если ответ совпал. Тела сравниваются после распаковки gzip
+    static String difference(TrafficRecord record, int status, boolean gzip, byte[] body) throws IOException {
+        if (status != record.getStatus()) {
+            return "статус " + record.getStatus() + ", получен " + status;
+        }
+        if (record.getResponse() == null) {
+            return null;
+        }
+        byte[] expected = record.isGzip() ? gunzip(record.getResponse()) : record.getResponse();
+        byte[] actual = gzip ? gunzip(body) : body;
+        int at = Arrays.mismatch(expected, actual);
+        if (at < 0) {
+            return null;
+        }
+        return "тело отличается с байта " + at + ": ожидалось \"" + excerpt(expected, at)
+                + "\", получено \"" + excerpt(actual, at) + "\"";
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String excerpt(byte[] bytes, int at) {
+        int from = Math.max(0, at - 20);
+        int to = Math.min(bytes.length, at + 40);
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Неизвестный аргумент: " + arg + "\n" + usage());
+            }
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg.substring(2) : arg.substring(2, eq), eq < 0 ? "true" : arg.substring(eq + 1));
+        }
+        String log = options.get("log");
+        if (log == null) {
+            System.out.println(usage());
+            return;
+        }
+
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        HttpTaskServer server = null;
+        if (Boolean.parseBoolean(options.getOrDefault("embedded", "false"))) {
+            server = HttpTaskServer.builder(port, manager(options.getOrDefault("manager", "memory")))
+                    .engine(engine(options.getOrDefault("engine", "sun")))
+                    .build();
+            server.start();
+        }
+        String speed = options.getOrDefault("speed", "1");
+        TrafficReplayer replayer = new TrafficReplayer(URI.create(options.getOrDefault("uri", "http://localhost:" + port)),
+                speed.equals("max") ? 0 : Double.parseDouble(speed));
+        try (TrafficLog.Reader reader = new TrafficLog.Reader(new FileInputStream(log))) {
+            replayer.replay(reader).print(System.out);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    // Менеджер для встроенного сервера; файловые менеджеры работают во временном каталоге
+    private static TaskManager manager(String name) throws IOException {
+        switch (name) {
+            case "memory":
+                return new InMemoryTaskManager();
+            case "file": {
+                File file = Files.createTempFile("replay", ".csv").toFile();
+                Files.writeString(file.toPath(), "id,type,name,status,description,epic,localDateTime,duration\n");
+                file.deleteOnExit();
+                return Managers.getFileBackedTaskManager(file);
+            }
+            case "paged":
+                return Managers.getPagedTaskManager(Files.createTempDirectory("replay").toFile(), 64L * 1024 * 1024);
+            default:
+                throw new IllegalArgumentException("Менеджер memory, file или paged: " + name);
+        }
+    }
+
+    private static ServerEngine engine(String name) {
+        switch (name) {
+            case "sun":
+                return new SunHttpServerEngine(true);
+            case "nio":
+                return new NioServerEngine();
+            default:
+                throw new IllegalArgumentException("Движок sun или nio: " + name);
+        }
+    }
+
+    private static String usage() {
+        return "Параметры: --log=<журнал> (--uri=http://localhost:8080 | --embedded [--port=8080]\n"
+                + "  [--manager=memory|file|paged] [--engine=sun|nio]) [--speed=1|2.5|max]";
+    }
+}
@@ -0,0 +1,174 @@
+package service.utils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ограничение числа одновременно выполняемых запросов с ограниченной очередью ожидания.
+// Запрос сверх лимита ждёт в очереди не дольше maxWait; если очередь заполнена или время вышло, он отклоняется.
+// В адаптивном режиме лимит подстраивается под задержку по схеме AIMD: пока задержка не выше целевой,
+// лимит растёт примерно на 1 за каждые limit завершённых запросов, при превышении уменьшается в BACKOFF раз.
+// Используется ReentrantLock, а не synchronized: ожидание не блокирует поток-носитель виртуального потока
+public class ConcurrencyLimiter {
+
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos; // 0 - лимит постоянный
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long admitted;
+    private long rejected;
+    private long timedOut;
+
+    // Постоянный лимит limit
+    public ConcurrencyLimiter(String name, int limit, int maxQueue, Duration maxWait) {
+        this(name, limit, limit, limit, maxQueue, maxWait, Duration.ZERO);
+    }
+
+    // Адаптивный лимит от minLimit до maxLimit, начиная с initialLimit, с целевой задержкой targetLatency
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                              Duration maxWait, Duration targetLatency) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("Неверные параметры ограничителя " + name);
+        }
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.targetLatencyNanos = targetLatency.toNanos();
+    }
+
+    // true - запрос можно выполнять (после выполнения обязательно вызвать release), false - отклонён
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                admitted++;
+                return true;
+            }
+            if (waiting >= maxQueue) {
+                rejected++;
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        timedOut++;
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+            } finally {
+                waiting--;
+            }
+            inFlight++;
+            admitted++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Завершение запроса, latencyNanos - время его выполнения
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (targetLatencyNanos > 0) {
+                if (latencyNanos > targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF);
+                } else {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAdaptive() {
+        return targetLatencyNanos > 0;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Текущая глубина очереди ожидания
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        lock.lock();
+        try {
+            return admitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Все отклонённые запросы, включая не дождавшиеся места в очереди
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTimedOut() {
+        lock.lock();
+        try {
+            return timedOut;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+}
@@ -1,6 +1,7 @@
 package service.utils;
 
 import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import com.google.gson.TypeAdapter;
@@ -8,14 +9,17 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
-    private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    // Длина строки формата dd-MM-yyyy HH:mm:ss
+    private static final int FORMATTED_LENGTH = 19;
 
     @Override
     public void write(JsonWriter writer, LocalDateTime value) throws IOException {
         if (value == null) {
             writer.nullValue();
         } else {
-            writer.value(value.format(timeFormatter));
+            writer.value(format(value));
         }
     }
 
@@ -25,7 +29,67 @@ public class LocalDateTimeAdapter extends TypeAdapter<LocalDateTime> {
             reader.nextNull();
             return null;
         }
-        String timeString = reader.nextString();
-        return LocalDateTime.parse(timeString, timeFormatter);
+        return parse(reader.nextString());
+    }
+
+    // Форматирование в dd-MM-yyyy HH:mm:ss без DateTimeFormatter: строка собирается из цифр напрямую.
+    // Годы вне диапазона 0..9999 отдаются стандартному форматтеру
+    public static String format(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            return value.format(TIME_FORMATTER);
+        }
+        char[] chars = new char[FORMATTED_LENGTH];
+        putTwoDigits(chars, 0, value.getDayOfMonth());
+        chars[2] = '-';
+        putTwoDigits(chars, 3, value.getMonthValue());
+        chars[5] = '-';
+        putTwoDigits(chars, 6, year / 100);
+        putTwoDigits(chars, 8, year % 100);
+        chars[10] = ' ';
+        putTwoDigits(chars, 11, value.getHour());
+        chars[13] = ':';
+        putTwoDigits(chars, 14, value.getMinute());
+        chars[16] = ':';
+        putTwoDigits(chars, 17, value.getSecond());
+        return new String(chars);
+    }
+
+    // Разбор dd-MM-yyyy HH:mm:ss по позициям символов; строки другого вида разбирает DateTimeFormatter
+    public static LocalDateTime parse(String text) {
+        if (text.length() != FORMATTED_LENGTH || text.charAt(2) != '-' || text.charAt(5) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return LocalDateTime.parse(text, TIME_FORMATTER);
+        }
+        int day = twoDigits(text, 0);
+        int month = twoDigits(text, 3);
+        int year = twoDigits(text, 6) * 100 + twoDigits(text, 8);
+        int hour = twoDigits(text, 11);
+        int minute = twoDigits(text, 14);
+        int second = twoDigits(text, 17);
+        if ((day | month | year | hour | minute | second) < 0) {
+            return LocalDateTime.parse(text, TIME_FORMATTER); // не цифры - пусть форматтер сообщит об ошибке
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            // значение вне диапазона: форматтер отклонит месяц 13, а 30-02 приведёт к последнему дню месяца
+            return LocalDateTime.parse(text, TIME_FORMATTER);
+        }
+    }
+
+    private static void putTwoDigits(char[] chars, int offset, int value) {
+        chars[offset] = (char) ('0' + value / 10);
+        chars[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    // Две цифры с позиции offset или -1, если там не цифры
+    private static int twoDigits(String text, int offset) {
+        int high = text.charAt(offset) - '0';
+        int low = text.charAt(offset + 1) - '0';
+        if (high < 0 || high > 9 || low < 0 || low > 9) {
+            return -1;
+        }
+        return high * 10 + low;
     }
-}
\ No newline at end of file
+}
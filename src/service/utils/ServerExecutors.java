@@ -0,0 +1,47 @@
+package service.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Исполнители запросов для HttpTaskServer
+public final class ServerExecutors {
+
+    private ServerExecutors() {
+    }
+
+    // Виртуальный поток на каждый запрос
+    public static ExecutorService virtualThreads() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    // Ограниченный пул обычных потоков. Когда очередь заполнена, запрос выполняется в потоке,
+    // принимающем соединения, и сервер временно перестаёт принимать новые.
+    // Подходит только для движка sun: NioServerEngine в таком случае отвечает 503 (см. rejectingPool)
+    public static ExecutorService boundedPool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("http-pool"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    // Ограниченный пул, который при заполненной очереди отклоняет запрос (RejectedExecutionException).
+    // Для NioServerEngine: поток цикла событий не должен выполнять обработчики, лишний запрос получает 503
+    public static ExecutorService rejectingPool(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("http-pool"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package service.utils;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Поля JSON-представления задачи, используются для проекции fields=
+public enum TaskField {
+    TYPE("type"),
+    ID("id"),
+    NAME("name"),
+    DESCRIPTION("description"),
+    STATUS("status"),
+    START_TIME("startTime"),
+    DURATION("duration"),
+    EPIC_ID("epicId"),
+    EPIC_SUBTASK_ID("epicSubtaskId");
+
+    public static final Set<TaskField> ALL = EnumSet.allOf(TaskField.class);
+
+    private final String jsonName;
+
+    TaskField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    // Разбор списка имён через запятую, например "id,name,status". Пустой список или null - все поля
+    public static Set<TaskField> parse(String names) {
+        if (names == null || names.isBlank()) {
+            return ALL;
+        }
+        Set<TaskField> fields = EnumSet.noneOf(TaskField.class);
+        for (String name : names.split(",")) {
+            fields.add(byJsonName(name.trim()));
+        }
+        return fields;
+    }
+
+    private static TaskField byJsonName(String name) {
+        for (TaskField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное поле: " + name);
+    }
+}
@@ -0,0 +1,128 @@
+package service.utils;
+
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Компактное бинарное представление задач для файловых хранилищ (страничное хранилище, архив).
+// Для Epic время не пишется: оно вычисляется по подзадачам.
+public final class TaskRecordCodec {
+
+    private TaskRecordCodec() {
+    }
+
+    public static void write(DataOutput out, Task task) throws IOException {
+        TaskStatus type = typeOf(task);
+        out.writeByte(type.ordinal());
+        out.writeInt(task.getId());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        out.writeByte(task.getStatus() == null ? -1 : task.getStatus().ordinal());
+
+        switch (type) {
+            case EPIC -> {
+                Epic epic = (Epic) task;
+                out.writeInt(epic.getEpicSubtask().size());
+                for (int subtaskId : epic.getEpicSubtask()) {
+                    out.writeInt(subtaskId);
+                }
+            }
+            case SUBTASK -> {
+                writeTime(out, task.getStartTime(), task.getDuration());
+                out.writeInt(((Subtask) task).getEpicId());
+            }
+            default -> writeTime(out, task.getStartTime(), task.getDuration());
+        }
+    }
+
+    public static Task read(DataInput in) throws IOException {
+        TaskStatus type = TaskStatus.values()[in.readByte()];
+        int id = in.readInt();
+        String name = readString(in);
+        String description = readString(in);
+        byte statusOrdinal = in.readByte();
+        Status status = statusOrdinal < 0 ? null : Status.values()[statusOrdinal];
+
+        if (type == TaskStatus.EPIC) {
+            Epic epic = new Epic(id, name, description, status);
+            epic.setStatus(status); // конструктор Epic всегда выставляет NEW
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                epic.addEpicSubtask(in.readInt());
+            }
+            return epic;
+        }
+
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        if (in.readBoolean()) {
+            startTime = LocalDateTime.of(
+                    in.readInt(), in.readByte(), in.readByte(), in.readByte(), in.readByte(), in.readByte(), in.readInt());
+        }
+        if (in.readBoolean()) {
+            duration = Duration.ofSeconds(in.readLong(), in.readInt());
+        }
+
+        if (type == TaskStatus.SUBTASK) {
+            return new Subtask(id, name, description, status, startTime, duration, in.readInt());
+        }
+        return new Task(id, name, description, status, startTime, duration);
+    }
+
+    public static TaskStatus typeOf(Task task) {
+        if (task instanceof Epic) {
+            return TaskStatus.EPIC;
+        } else if (task instanceof Subtask) {
+            return TaskStatus.SUBTASK;
+        }
+        return TaskStatus.TASK;
+    }
+
+    private static void writeTime(DataOutput out, LocalDateTime startTime, Duration duration) throws IOException {
+        out.writeBoolean(startTime != null);
+        if (startTime != null) {
+            out.writeInt(startTime.getYear());
+            out.writeByte(startTime.getMonthValue());
+            out.writeByte(startTime.getDayOfMonth());
+            out.writeByte(startTime.getHour());
+            out.writeByte(startTime.getMinute());
+            out.writeByte(startTime.getSecond());
+            out.writeInt(startTime.getNano());
+        }
+        out.writeBoolean(duration != null);
+        if (duration != null) {
+            out.writeLong(duration.getSeconds());
+            out.writeInt(duration.getNano());
+        }
+    }
+
+    // writeUTF ограничен 64 КБ, поэтому длина пишется явно
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
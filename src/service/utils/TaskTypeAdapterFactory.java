@@ -0,0 +1,185 @@
+package service.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Сериализация Task, Epic и Subtask без рефлексии.
+// Поля пишутся и читаются напрямую через JsonWriter/JsonReader, тип задачи хранится в поле "type".
+// Если "type" в JSON нет, тип берётся из запрошенного класса (Task, Epic или Subtask), а "type" другого типа
+// отклоняется для любого класса, в том числе Task. Задачи разных типов в одном списке читаются через anyType().
+// Неверные значения полей (статус, дата, продолжительность, число) дают JsonParseException, как и ошибки синтаксиса
+// Epic сериализуется без вложенного менеджера и без времени: время эпика вычисляется по подзадачам
+public class TaskTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+        Class<? super T> raw = typeToken.getRawType();
+        if (!Task.class.isAssignableFrom(raw)) {
+            return null;
+        }
+        return (TypeAdapter<T>) new TaskAdapter(defaultType(raw)).nullSafe();
+    }
+
+    // Чтение задачи любого типа по полю "type" (например, элементов истории). Без поля "type" читается Task
+    public static TypeAdapter<Task> anyType() {
+        return new TaskAdapter(null).nullSafe();
+    }
+
+    private static TaskStatus defaultType(Class<?> raw) {
+        if (Epic.class.isAssignableFrom(raw)) {
+            return TaskStatus.EPIC;
+        }
+        if (Subtask.class.isAssignableFrom(raw)) {
+            return TaskStatus.SUBTASK;
+        }
+        return TaskStatus.TASK;
+    }
+
+    // Запись задачи только с полями fields (проекция). Поля, которых у типа задачи нет, пропускаются
+    public static void writeFields(JsonWriter out, Task task, Set<TaskField> fields) throws IOException {
+        out.beginObject();
+        if (fields.contains(TaskField.TYPE)) {
+            out.name("type").value(TaskRecordCodec.typeOf(task).name());
+        }
+        if (fields.contains(TaskField.ID)) {
+            out.name("id").value(task.getId());
+        }
+        if (fields.contains(TaskField.NAME)) {
+            out.name("name").value(task.getName());
+        }
+        if (fields.contains(TaskField.DESCRIPTION)) {
+            out.name("description").value(task.getDescription());
+        }
+        if (fields.contains(TaskField.STATUS)) {
+            out.name("status").value(task.getStatus() == null ? null : task.getStatus().name());
+        }
+        if (task instanceof Epic epic) {
+            if (fields.contains(TaskField.EPIC_SUBTASK_ID)) {
+                out.name("epicSubtaskId").beginArray();
+                for (Integer subtaskId : epic.getEpicSubtask()) {
+                    out.value(subtaskId);
+                }
+                out.endArray();
+            }
+        } else {
+            if (fields.contains(TaskField.START_TIME)) {
+                LocalDateTime startTime = task.getStartTime();
+                out.name("startTime").value(startTime == null ? null : LocalDateTimeAdapter.format(startTime));
+            }
+            if (fields.contains(TaskField.DURATION)) {
+                Duration duration = task.getDuration();
+                out.name("duration").value(duration == null ? null : duration.toString());
+            }
+            if (task instanceof Subtask subtask && fields.contains(TaskField.EPIC_ID)) {
+                out.name("epicId").value(subtask.getEpicId());
+            }
+        }
+        out.endObject();
+    }
+
+    private static class TaskAdapter extends TypeAdapter<Task> {
+
+        // null - допустим любой тип
+        private final TaskStatus defaultType;
+
+        TaskAdapter(TaskStatus defaultType) {
+            this.defaultType = defaultType;
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            writeFields(out, task, TaskField.ALL);
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            try {
+                return readFields(in);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                // без этого неверное значение поля выглядело бы как ошибка сервера, а не запроса
+                throw new JsonParseException("Неверное значение поля: " + e.getMessage(), e);
+            }
+        }
+
+        private Task readFields(JsonReader in) throws IOException {
+            TaskStatus type = null;
+            int id = 0;
+            String name = null;
+            String description = null;
+            Status status = null;
+            LocalDateTime startTime = null;
+            Duration duration = null;
+            int epicId = 0;
+            List<Integer> subtaskIds = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "type" -> type = TaskStatus.valueOf(in.nextString());
+                    case "id" -> id = in.nextInt();
+                    case "name" -> name = in.nextString();
+                    case "description" -> description = in.nextString();
+                    case "status" -> status = Status.valueOf(in.nextString());
+                    case "startTime" -> startTime = LocalDateTimeAdapter.parse(in.nextString());
+                    case "duration" -> duration = Duration.parse(in.nextString());
+                    case "epicId" -> epicId = in.nextInt();
+                    case "epicSubtaskId" -> {
+                        subtaskIds = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            subtaskIds.add(in.nextInt());
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue(); // неизвестные поля игнорируются, как и при рефлексии
+                }
+            }
+            in.endObject();
+
+            if (type == null) {
+                type = defaultType == null ? TaskStatus.TASK : defaultType;
+            } else if (defaultType != null && type != defaultType) {
+                throw new JsonParseException("Ожидался тип " + defaultType + ", получен " + type);
+            }
+            return switch (type) {
+                case TASK -> new Task(id, name, description, status, startTime, duration);
+                case SUBTASK -> new Subtask(id, name, description, status, startTime, duration, epicId);
+                case EPIC -> {
+                    Epic epic = new Epic(id, name, description, status);
+                    if (status != null) {
+                        epic.setStatus(status);
+                    }
+                    if (subtaskIds != null) {
+                        subtaskIds.forEach(epic::addEpicSubtask);
+                    }
+                    yield epic;
+                }
+            };
+        }
+    }
+}
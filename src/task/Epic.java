@@ -12,7 +12,7 @@ public class Epic extends Task {
 
     TaskManager taskManager = Managers.getDefaultTaskManager();
 
-    private final List<Integer> epicSubtaskId;
+    private List<Integer> epicSubtaskId;
     private LocalDateTime endTime;
 
     // Конструкторы аналогичны Task
@@ -47,6 +47,14 @@ public class Epic extends Task {
         return String.format("%d,%s,%s,%s,%s,%s,%s\n", getId(), "EPIC", getName(), getDescription(), getStatus(), getStartTime(), getDuration());
     }
 
+    // Копия эпика со своим списком подзадач: менеджер меняет статус и список подзадач эпика на месте
+    @Override
+    public Epic clone() throws CloneNotSupportedException {
+        Epic copy = (Epic) super.clone();
+        copy.epicSubtaskId = new ArrayList<>(epicSubtaskId);
+        return copy;
+    }
+
     // переопределяем геттеры для получения значений из TaskManager, т.к. логика расчета оттуда
 
     @Override
@@ -2,26 +2,39 @@ package service;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
 
+import service.archive.ArchivePolicy;
+import service.archive.TaskArchive;
 import service.utils.DurationAdapter;
 import service.utils.LocalDateTimeAdapter;
 import task.Status;
 import task.Task;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTaskManagerTasksTest {
 
@@ -43,10 +56,10 @@ public class HttpTaskManagerTasksTest {
         taskServer.start();
     }
 
-//    @AfterEach
-//    public void shutDown() {
-//        taskServer.stop();
-//    }
+    @AfterEach
+    public void shutDown() {
+        taskServer.stop();
+    }
 
     @Test
     public void testAddTask() throws IOException, InterruptedException {
@@ -72,4 +85,354 @@ public class HttpTaskManagerTasksTest {
         assertEquals(1, tasksFromManager.size(), "Некорректное количество задач");
         assertEquals("Test 2", tasksFromManager.get(0).getName(), "Некорректное имя задачи");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetTasks() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+        manager.createTask(new Task("Test 2", "Testing task 2", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2, tasks.length, "Некорректное количество задач");
+        assertEquals("Test 1", tasks[0].getName(), "Некорректное имя задачи");
+    }
+
+    @Test
+    public void testBatchAddTasks() throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.now();
+        List<Task> batch = List.of(
+                new Task("Test 1", "Testing task 1", Status.NEW, start, Duration.ofMinutes(5)),
+                new Task("Test 2", "Testing task 2", Status.NEW, start.plusHours(1), Duration.ofMinutes(5)),
+                // пересекается с первой задачей
+                new Task("Test 3", "Testing task 3", Status.NEW, start.plusMinutes(1), Duration.ofMinutes(5)));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task/batch");
+        HttpRequest request = HttpRequest.newBuilder().uri(url)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch))).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(2, manager.getAllTask().size(), "Некорректное количество задач");
+        assertTrue(response.body().contains("\"REJECTED\""), "Пересекающаяся задача не отклонена");
+    }
+
+    @Test
+    public void testBatchMalformedJson() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task/batch");
+        for (String body : List.of("[{\"name\": \"Test 1\",", "[{\"name\" \"Test 1\"}]", "")) {
+            HttpRequest request = HttpRequest.newBuilder().uri(url)
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(400, response.statusCode(), "Неверный ответ на тело " + body);
+        }
+        assertTrue(manager.getAllTask().isEmpty(), "Задачи созданы из неверного пакета");
+    }
+
+    @Test
+    public void testInvalidTaskFieldsRejected() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> bodies = List.of("{\"type\": \"EPIC\", \"name\": \"Test 1\"}",
+                "{\"name\": \"Test 1\", \"status\": \"OPEN\"}",
+                "{\"name\": \"Test 1\", \"startTime\": \"tomorrow\"}",
+                "{\"name\": \"Test 1\", \"startTime\": \"31-13-2024 10:00:00\", \"duration\": \"PT5M\"}");
+        for (String body : bodies) {
+            for (String path : List.of("/tasks/task", "/tasks/task/batch")) {
+                String payload = path.endsWith("batch") ? "[" + body + "]" : body;
+                HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path))
+                        .POST(HttpRequest.BodyPublishers.ofString(payload)).build();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+                assertEquals(400, response.statusCode(), "Неверный ответ на " + path + " " + payload);
+            }
+        }
+        assertTrue(manager.getAllTask().isEmpty());
+        assertTrue(manager.getAllEpic().isEmpty());
+    }
+
+    @Test
+    public void testOutOfRangeDates() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        // день за концом месяца приводится к последнему дню, как при разборе форматтером
+        HttpRequest post = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"name\": \"Test 1\", \"startTime\": \"30-02-2024 10:00:00\", \"duration\": \"PT5M\"}"))
+                .build();
+        HttpResponse<String> created = client.send(post, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, created.statusCode());
+        assertEquals(LocalDateTime.of(2024, 2, 29, 10, 0), manager.getAllTask().iterator().next().getStartTime());
+
+        HttpRequest query = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/task?limit=5&startFrom=31-13-2024%2010:00:00")).GET().build();
+        assertEquals(400, client.send(query, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    public void testGzipResponse() throws IOException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task("Test " + i, "Testing task " + i, Status.NEW));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        try (InputStream body = new GZIPInputStream(response.body())) {
+            Task[] tasks = gson.fromJson(new String(body.readAllBytes(), StandardCharsets.UTF_8), Task[].class);
+            assertEquals(100, tasks.length, "Некорректное количество задач");
+        }
+        assertTrue(taskServer.getCompression().getBytesSaved() > 0);
+    }
+
+    @Test
+    public void testSmallResponseNotCompressed() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).header("Accept-Encoding", "gzip").GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(1, gson.fromJson(response.body(), Task[].class).length);
+    }
+
+    @Test
+    public void testConditionalGet() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(url).header("If-None-Match", etag).GET().build();
+        HttpResponse<String> notModified = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode());
+        assertTrue(notModified.body().isEmpty());
+
+        // после изменения тот же ETag уже не совпадает
+        manager.createTask(new Task("Test 2", "Testing task 2", Status.NEW));
+        HttpResponse<String> modified = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, modified.statusCode());
+        assertEquals(2, gson.fromJson(modified.body(), Task[].class).length);
+    }
+
+    @Test
+    public void testConditionalGetAfterRestart() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/tasks/task");
+        String etag = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).headers().firstValue("ETag").orElseThrow();
+
+        // после перезапуска версии начинаются заново, но данные уже другие
+        taskServer.stop();
+        manager = new InMemoryTaskManager();
+        manager.createTask(new Task("Other", "Other task", Status.NEW));
+        taskServer = new HttpTaskServer(port, manager);
+        taskServer.start();
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(url).header("If-None-Match", etag).GET().build();
+        HttpResponse<String> response = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("Other", gson.fromJson(response.body(), Task[].class)[0].getName());
+    }
+
+    @Test
+    public void testResponseCache() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task")).GET().build();
+        HttpResponse<String> first = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> second = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(first.body(), second.body());
+        assertEquals(1, taskServer.getResponseCache().getStats().getHits());
+
+        // создание задачи сбрасывает закэшированный список
+        manager.createTask(new Task("Test 2", "Testing task 2", Status.NEW));
+        HttpResponse<String> third = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(2, gson.fromJson(third.body(), Task[].class).length);
+    }
+
+    @Test
+    public void testRoutes() throws IOException, InterruptedException {
+        int id = manager.createTask(new Task("Test 1", "Testing task 1",
+                Status.NEW, LocalDateTime.now(), Duration.ofMinutes(5)));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> byId = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/task/" + id)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, byId.statusCode());
+        assertEquals(id, gson.fromJson(byId.body(), Task.class).getId());
+
+        HttpResponse<String> prioritized = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, prioritized.statusCode());
+        assertEquals(1, gson.fromJson(prioritized.body(), Task[].class).length);
+
+        HttpResponse<String> wrongMethod = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/history")).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, wrongMethod.statusCode());
+        assertEquals("GET", wrongMethod.headers().firstValue("Allow").orElseThrow());
+
+        HttpResponse<String> deleted = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/task/" + id)).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, deleted.statusCode());
+        assertTrue(manager.getAllTask().isEmpty());
+    }
+
+    @Test
+    public void testQueryWithProjection() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+        manager.createTask(new Task("Test 2", "Testing task 2", Status.DONE));
+        manager.createTask(new Task("Test 3", "Testing task 3", Status.DONE));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/task?status=DONE&limit=1&fields=id,name")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("[{\"id\":2,\"name\":\"Test 2\"}]", response.body());
+        assertEquals("2", response.headers().firstValue("X-Next-After-Id").orElseThrow());
+
+        HttpResponse<String> badRequest = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/task?fields=unknown")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, badRequest.statusCode());
+    }
+
+    @Test
+    public void testEventStream() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<Stream<String>> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/events")).GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/event-stream"));
+
+        int id = manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+
+        String data = response.body().filter(line -> line.startsWith("data: {\"type\"")).findFirst().orElseThrow();
+        assertEquals("data: {\"type\":\"TASK\",\"id\":" + id + ",\"change\":\"CREATED\",\"version\":"
+                + manager.getVersion() + "}", data);
+    }
+
+    @Test
+    public void testChangesSinceVersion() throws IOException, InterruptedException {
+        int first = manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+        long since = manager.getVersion();
+        int second = manager.createTask(new Task("Test 2", "Testing task 2", Status.NEW));
+        manager.updateTask(new Task(second, "Test 2", "Updated", Status.DONE));
+        manager.removeTaskById(first);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/changes?since=" + since)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonObject body = gson.fromJson(response.body(), JsonObject.class);
+        assertEquals(manager.getVersion(), body.get("version").getAsLong());
+        assertFalse(body.get("snapshot").getAsBoolean());
+        JsonArray changes = body.getAsJsonArray("changes");
+        assertEquals(2, changes.size(), "Изменения одной задачи должны сводиться к одному");
+        assertEquals(second, changes.get(0).getAsJsonObject().get("id").getAsInt());
+        assertEquals("DONE", changes.get(0).getAsJsonObject().getAsJsonObject("task").get("status").getAsString());
+        assertEquals("DELETED", changes.get(1).getAsJsonObject().get("change").getAsString());
+        assertFalse(changes.get(1).getAsJsonObject().has("task"));
+
+        HttpResponse<String> snapshot = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/changes")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonObject full = gson.fromJson(snapshot.body(), JsonObject.class);
+        assertTrue(full.get("snapshot").getAsBoolean());
+        assertEquals(1, full.getAsJsonArray("tasks").size());
+    }
+
+    @Test
+    public void testChangesReportArchivedTask(@TempDir File directory) throws IOException, InterruptedException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 10, 9, 0);
+        ((InMemoryTaskManager) manager).setArchive(new TaskArchive(new File(directory, "archive.dat")));
+        int id = manager.createTask(new Task("Test 1", "Testing task 1", Status.DONE, start, Duration.ofMinutes(5)));
+        long since = manager.getVersion();
+        ((InMemoryTaskManager) manager).archiveCompleted(ArchivePolicy.allDone(), start.plusDays(1));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks/changes?since=" + since)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        JsonObject change = gson.fromJson(response.body(), JsonObject.class).getAsJsonArray("changes")
+                .get(0).getAsJsonObject();
+        assertEquals(id, change.get("id").getAsInt());
+        assertEquals("UPDATED", change.get("change").getAsString(), "Архивная задача не удалена");
+        assertEquals("Test 1", change.getAsJsonObject("task").get("name").getAsString());
+        ((InMemoryTaskManager) manager).getArchive().orElseThrow().close();
+    }
+
+    @Test
+    public void testMetrics() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+        HttpClient client = HttpClient.newHttpClient();
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/task/1")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/unknown")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // запрос учитывается после отправки ответа, поэтому метрики могут появиться с небольшой задержкой
+        JsonObject body = null;
+        JsonObject byId = null;
+        JsonObject unmatched = null;
+        for (int attempt = 0; attempt < 50 && (byId == null || unmatched == null); attempt++) {
+            Thread.sleep(attempt == 0 ? 0 : 20);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/metrics")).GET().build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            body = gson.fromJson(response.body(), JsonObject.class);
+            for (JsonElement element : body.getAsJsonArray("routes")) {
+                JsonObject route = element.getAsJsonObject();
+                if (route.get("requests").getAsLong() == 0) {
+                    continue;
+                }
+                if (route.get("route").getAsString().equals("/tasks/task/{id}")
+                        && route.get("method").getAsString().equals("GET")) {
+                    byId = route;
+                } else if (route.get("route").getAsString().equals("unmatched")) {
+                    unmatched = route;
+                }
+            }
+        }
+        assertNotNull(byId);
+        assertEquals(1, byId.getAsJsonObject("status").get("200").getAsLong());
+        assertTrue(byId.get("responseBytes").getAsLong() > 0);
+        assertTrue(byId.getAsJsonObject("latencyMicros").get("p99").getAsLong() >= 0);
+        assertNotNull(unmatched);
+        assertEquals(1, unmatched.getAsJsonObject("status").get("404").getAsLong());
+        assertTrue(body.get("inFlight").getAsLong() >= 1, "Учитывается и сам запрос /metrics");
+        JsonObject heap = body.getAsJsonObject("heap");
+        assertEquals(1, heap.getAsJsonObject("categories").getAsJsonObject("tasks").get("entries").getAsLong());
+        assertTrue(heap.get("estimatedBytes").getAsLong() > 0);
+    }
+}
@@ -0,0 +1,147 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.utils.ServerExecutors;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Нагрузочный тест: много параллельных клиентов, в конце выводятся p50 и p99 задержки
+public class HttpTaskServerLoadTest {
+
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS_PER_CLIENT = 25;
+
+    int port = 8081;
+    TaskManager manager = new InMemoryTaskManager();
+    HttpTaskServer taskServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        for (int i = 0; i < 200; i++) {
+            manager.createTask(new Task("task" + i, "description " + i, Status.NEW));
+        }
+    }
+
+    @AfterEach
+    public void shutDown() {
+        if (taskServer != null) {
+            taskServer.stop();
+        }
+    }
+
+    @Test
+    public void epicSnapshotTakenUnderLockTest() {
+        SynchronizedTaskManager synchronizedManager = new SynchronizedTaskManager(manager);
+        int epicId = synchronizedManager.createEpic(new Epic("epic", "description"));
+        Epic snapshot = synchronizedManager.getByIdEpic(epicId).orElseThrow();
+
+        synchronizedManager.createSubtask(new Subtask("subtask", "description", Status.IN_PROGRESS, epicId,
+                LocalDateTime.of(2025, 1, 1, 9, 0), Duration.ofHours(1)));
+
+        // копия, отданная до изменения, его не видит
+        assertTrue(snapshot.getEpicSubtask().isEmpty());
+        assertEquals(Status.NEW, snapshot.getStatus());
+        assertEquals(1, synchronizedManager.getByIdEpic(epicId).orElseThrow().getEpicSubtask().size());
+    }
+
+    @Test
+    public void virtualThreadsLoadTest() throws Exception {
+        taskServer = new HttpTaskServer(port, manager);
+        runLoad("virtual threads");
+    }
+
+    @Test
+    public void eventStreamsLimitedByPoolSizeTest() throws Exception {
+        // пул из 8 потоков: подписчиков не больше четверти, остальные потоки остаются обычным запросам
+        taskServer = HttpTaskServer.builder(port, manager).executor(ServerExecutors.boundedPool(8, 256)).build();
+        taskServer.start();
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest events = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/tasks/events")).GET().build();
+
+        List<HttpResponse<Stream<String>>> streams = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            streams.add(client.send(events, HttpResponse.BodyHandlers.ofLines()));
+            assertEquals(200, streams.get(i).statusCode());
+        }
+        HttpResponse<String> rejected = client.send(events, HttpResponse.BodyHandlers.ofString());
+        assertEquals(503, rejected.statusCode());
+
+        HttpResponse<String> list = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/tasks/task")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, list.statusCode());
+        streams.forEach(stream -> stream.body().close());
+    }
+
+    @Test
+    public void boundedPoolLoadTest() throws Exception {
+        taskServer = HttpTaskServer.builder(port, manager).executor(ServerExecutors.boundedPool(8, 256)).build();
+        runLoad("bounded pool");
+    }
+
+    private void runLoad(String name) throws Exception {
+        taskServer.start();
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:" + port + "/tasks/task");
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                    HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+                    long begin = System.nanoTime();
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    latencies.add(System.nanoTime() - begin);
+                    if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        startSignal.countDown();
+        clients.shutdown();
+        assertTrue(clients.awaitTermination(60, TimeUnit.SECONDS), "Клиенты не завершились вовремя");
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%s: %d запросов, p50 = %.2f мс, p99 = %.2f мс%n", name, sorted.size(),
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+
+        assertEquals(CLIENTS * REQUESTS_PER_CLIENT, sorted.size());
+        assertEquals(0, failures.get());
+    }
+
+    private long percentile(List<Long> sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+}
@@ -477,4 +477,116 @@ public class InMemoryTaskManagerTest {
 
         assertEquals(Status.NEW, tm.tasks.get(idTask1).getStatus());
     }
+
+    // Тесты для версий данных
+
+    @Test
+    void versionGrowsOnMutationTest() {
+        long initial = tm.getVersion();
+
+        int id = tm.createTask(new Task("task1", "des1", Status.NEW));
+        long afterCreate = tm.getVersion();
+        assertTrue(afterCreate > initial);
+        assertEquals(afterCreate, tm.getVersion(TaskStatus.TASK));
+        assertEquals(afterCreate, tm.getEntityVersion(id));
+
+        // чтение не меняет версию данных, но меняет версию истории
+        long historyVersion = tm.getHistoryVersion();
+        tm.getByIdTask(id);
+        assertEquals(afterCreate, tm.getVersion());
+        assertTrue(tm.getHistoryVersion() > historyVersion);
+
+        tm.removeTaskById(id);
+        assertTrue(tm.getVersion() > afterCreate);
+        assertEquals(0, tm.getEntityVersion(id));
+    }
+
+    @Test
+    void subtaskChangeUpdatesEpicVersionTest() {
+        int epicId = tm.createEpic(new Epic("epic1", "des"));
+        long epicVersion = tm.getEntityVersion(epicId);
+        long taskVersion = tm.getVersion(TaskStatus.TASK);
+
+        tm.createSubtask(new Subtask("subtask1", "des", Status.DONE, epicId,
+                LocalDateTime.now(), Duration.ofHours(1)));
+
+        assertTrue(tm.getEntityVersion(epicId) > epicVersion);
+        assertEquals(taskVersion, tm.getVersion(TaskStatus.TASK));
+    }
+
+    // Тесты для выборок по индексам
+
+    @Test
+    void queryPagesByIdCursorTest() {
+        for (int i = 0; i < 5; i++) {
+            tm.createTask(new Task("task" + i, "des", Status.NEW));
+        }
+
+        TaskPage<Task> first = tm.queryTasks(TaskQuery.all().limit(2));
+        assertEquals(List.of(1, 2), first.getItems().stream().map(Task::getId).toList());
+        assertTrue(first.hasMore());
+
+        tm.removeTaskById(3); // удаление не сдвигает следующую страницу
+        TaskPage<Task> second = tm.queryTasks(TaskQuery.all().limit(2).afterId(first.getNextAfterId()));
+        assertEquals(List.of(4, 5), second.getItems().stream().map(Task::getId).toList());
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void queryStartRangePagesByIdTest() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        // чем больше id, тем раньше начало: порядок по времени обратен порядку по id
+        for (int i = 0; i < 6; i++) {
+            tm.createTask(new Task("task" + i, "des", Status.NEW, start.minusHours(i), Duration.ofMinutes(10)));
+        }
+        TaskQuery range = TaskQuery.all().startBetween(start.minusHours(4), start);
+
+        TaskPage<Task> first = tm.queryTasks(range.limit(2));
+        assertEquals(List.of(2, 3), first.getItems().stream().map(Task::getId).toList());
+        assertTrue(first.hasMore());
+
+        TaskPage<Task> second = tm.queryTasks(TaskQuery.all().startBetween(start.minusHours(4), start)
+                .limit(2).afterId(first.getNextAfterId()));
+        assertEquals(List.of(4, 5), second.getItems().stream().map(Task::getId).toList());
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void queryFiltersFollowUpdatesTest() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        int epicId = tm.createEpic(new Epic("epic1", "des"));
+        int otherEpicId = tm.createEpic(new Epic("epic2", "des"));
+        int first = tm.createSubtask(new Subtask("sub1", "des", Status.NEW, epicId, start, Duration.ofMinutes(10)));
+        tm.createSubtask(new Subtask("sub2", "des", Status.DONE, epicId, start.plusHours(1), Duration.ofMinutes(10)));
+        tm.createSubtask(new Subtask("sub3", "des", Status.NEW, otherEpicId, start.plusHours(2), Duration.ofMinutes(10)));
+
+        assertEquals(2, tm.querySubtasks(TaskQuery.all().epicId(epicId)).getItems().size());
+        assertEquals(1, tm.querySubtasks(TaskQuery.all().epicId(epicId).status(Status.NEW)).getItems().size());
+        assertEquals(2, tm.querySubtasks(TaskQuery.all().startBetween(start.plusMinutes(30), null)).getItems().size());
+
+        tm.updateSubtask(new Subtask(first, "sub1", "des", Status.DONE, start, Duration.ofMinutes(10), epicId));
+        assertEquals(2, tm.querySubtasks(TaskQuery.all().status(Status.DONE)).getItems().size());
+        // статус эпика пересчитан при создании подзадач и попал в индекс
+        assertEquals(epicId, tm.queryEpics(TaskQuery.all().status(Status.IN_PROGRESS)).getItems().get(0).getId());
+    }
+
+    @Test
+    void loadAllKeepsIdsAndIndexesTest() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        Epic epic = new Epic(2, "epic", "des", Status.IN_PROGRESS);
+        epic.addEpicSubtask(3);
+        tm.loadAll(List.of(new Task(1, "task", "des", Status.NEW, start, Duration.ofMinutes(10)), epic,
+                new Subtask(3, "sub", "des", Status.DONE, start.plusHours(1), Duration.ofMinutes(10), 2)));
+
+        assertEquals(3, tm.getVersion());
+        assertEquals(2, tm.getPrioritizedTasks().size());
+        assertEquals(1, tm.querySubtasks(TaskQuery.all().epicId(2)).getItems().size());
+        // пересечения проверяются как обычно, а новые id продолжают id доски
+        assertEquals(-1, tm.createTask(new Task("task2", "des", Status.NEW, start, Duration.ofMinutes(10))));
+        assertEquals(5, tm.createTask(new Task("task3", "des", Status.NEW)));
+        assertThrows(IllegalArgumentException.class,
+                () -> tm.loadAll(List.of(new Task(5, "task4", "des", Status.NEW))));
+        assertThrows(IllegalArgumentException.class,
+                () -> tm.loadAll(List.of(new Subtask(6, "sub2", "des", Status.NEW, 99))));
+    }
 }
@@ -0,0 +1,54 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest {
+
+    private final InstrumentedTaskManager manager = new InstrumentedTaskManager(new InMemoryTaskManager());
+
+    @Test
+    void countsCallsAndOutcomesTest() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        manager.createTask(new Task("Задача 1", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+        int overlapping = manager.createTask(new Task("Задача 2", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+        int epicId = manager.createEpic(new Epic("Эпик", "Описание"));
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epicId));
+        manager.getByIdTask(1000);
+        manager.updateEpicStatus(epicId);
+        manager.getPrioritizedTasks();
+
+        assertEquals(-1, overlapping);
+        assertEquals(2, manager.getOperation("createTask").getCalls());
+        assertEquals(1, manager.getOperation("createTask").getSucceeded());
+        assertEquals(1, manager.getOperation("createTask").getRejected());
+        assertEquals(1, manager.getOperation("createSubtask").getSucceeded());
+        assertEquals(1, manager.getOperation("getByIdTask").getRejected());
+        assertEquals(1, manager.getOperation("updateEpicStatus").getCalls());
+        assertEquals(1, manager.getOperation("getPrioritizedTasks").getCalls());
+        assertTrue(manager.getOperation("createTask").getLatency().getMax() > 0);
+    }
+
+    @Test
+    void gaugesDoNotCountAsCallsTest() {
+        int epicId = manager.createEpic(new Epic("Эпик", "Описание"));
+        manager.createTask(new Task("Задача", "Описание", Status.NEW,
+                LocalDateTime.of(2024, 1, 1, 10, 0), Duration.ofMinutes(30)));
+        manager.createSubtask(new Subtask("Подзадача", "Описание", epicId));
+
+        assertEquals(1, manager.getTaskCount());
+        assertEquals(1, manager.getEpicCount());
+        assertEquals(1, manager.getSubtaskCount());
+        assertEquals(1, manager.getPrioritizedCount());
+        assertEquals(0, manager.getOperation("getAllTask").getCalls());
+        assertEquals(0, manager.getOperation("getPrioritizedTasks").getCalls());
+    }
+}
@@ -0,0 +1,136 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.cache.CacheStats;
+import service.metrics.HeapFootprint;
+import task.*;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedTaskManagerTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void coldTaskPagedInFromDiskTest() {
+        // кэш меньше, чем суммарный вес задач, поэтому часть задач вытесняется на диск
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 2_000)) {
+            for (int i = 0; i < 100; i++) {
+                tm.createTask(new Task("task" + i, "des" + i, Status.NEW));
+            }
+
+            Task first = tm.getByIdTask(1).orElseThrow();
+            assertEquals("task0", first.getName());
+            assertEquals(100, tm.getAllTask().size());
+            assertTrue(tm.getCacheStats(TaskStatus.TASK).getEvictions() > 0);
+            assertTrue(tm.getCacheStats(TaskStatus.TASK).getMisses() > 0);
+        }
+    }
+
+    @Test
+    void heapFootprintCountsOnlyResidentTasksTest() {
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 2_000)) {
+            for (int i = 0; i < 100; i++) {
+                tm.createTask(new Task("task" + i, "des" + i, Status.NEW));
+            }
+            CacheStats before = tm.getCacheStats(TaskStatus.TASK);
+
+            HeapFootprint.Usage tasks = tm.getHeapFootprint().getUsage(HeapFootprint.Category.TASKS);
+
+            // включение учёта не подгружает вытесненные задачи, а в оценку входят только задачи в кэше
+            assertEquals(before.getMisses(), tm.getCacheStats(TaskStatus.TASK).getMisses());
+            assertEquals(before.getSize(), tasks.getEntries());
+            assertTrue(tasks.getEntries() < 100);
+            assertEquals(0, tm.getHeapFootprint().getUsage(HeapFootprint.Category.ACCOUNTING).getEntries());
+        }
+    }
+
+    @Test
+    void reopenRestoresTasksTest() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 6, 10, 0);
+        int epicId;
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            tm.createTask(new Task("task1", "des", Status.NEW, start, Duration.ofHours(1)));
+            epicId = tm.createEpic(new Epic("epic1", "des"));
+            Subtask subtask = new Subtask("subtask1", "des", Status.DONE, epicId, start.plusDays(1), Duration.ofHours(2));
+            tm.createSubtask(subtask);
+        }
+
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            assertEquals(1, tm.getAllTask().size());
+            assertEquals(1, tm.getAllSubtask().size());
+            Epic epic = tm.getByIdEpic(epicId).orElseThrow();
+            assertEquals(Status.DONE, epic.getStatus());
+            assertEquals(1, epic.getEpicSubtask().size());
+            assertEquals(2, tm.getPrioritizedTasks().size());
+
+            // счётчик id продолжается после последнего сохранённого
+            assertEquals(4, tm.createTask(new Task("task2", "des", Status.NEW)));
+        }
+    }
+
+    @Test
+    void removedTaskNotRestoredTest() {
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            int id = tm.createTask(new Task("task1", "des", Status.NEW));
+            tm.flush();
+            tm.removeTaskById(id);
+        }
+
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            assertTrue(tm.getAllTask().isEmpty());
+        }
+    }
+
+    @Test
+    void compactKeepsLatestVersionsTest() {
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            for (int i = 0; i < 50; i++) {
+                tm.createTask(new Task("task" + i, "des", Status.NEW));
+            }
+            tm.flush();
+            // больше половины записей файла становятся устаревшими, flush запускает сжатие
+            for (int round = 0; round < 3; round++) {
+                for (int id = 1; id <= 50; id++) {
+                    tm.updateTask(new Task(id, "task" + id + "v" + round, "des", Status.IN_PROGRESS));
+                }
+                tm.flush();
+            }
+        }
+
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            assertEquals(50, tm.getAllTask().size());
+            Task last = tm.getByIdTask(50).orElseThrow();
+            assertEquals("task50v2", last.getName());
+            assertEquals(Status.IN_PROGRESS, last.getStatus());
+        }
+    }
+
+    @Test
+    void reopenDoesNotPinTasksInMemoryTest() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 7, 9, 0);
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            for (int i = 0; i < 20; i++) {
+                tm.createTask(new Task("task" + i, "des", Status.NEW, start.plusHours(i), Duration.ofMinutes(30)));
+            }
+        }
+
+        try (PagedTaskManager tm = Managers.getPagedTaskManager(directory, 10_000)) {
+            assertEquals(0, tm.getCacheStats(TaskStatus.TASK).getSize());
+            // приоритеты перестраиваются при первой проверке пересечений, задачи при этом в кэш не попадают
+            int overlapping = tm.createTask(new Task("task", "des", Status.NEW, start.plusHours(5),
+                    Duration.ofMinutes(10)));
+            assertEquals(-1, overlapping);
+            assertEquals(0, tm.getCacheStats(TaskStatus.TASK).getSize());
+            assertEquals(20, tm.getPrioritizedTasks().size());
+            assertTrue(tm.createTask(new Task("task20", "des", Status.NEW, start.plusDays(2),
+                    Duration.ofMinutes(10))) > 20);
+        }
+    }
+}
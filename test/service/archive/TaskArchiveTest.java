@@ -0,0 +1,161 @@
+package service.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.InMemoryTaskManager;
+import task.*;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskArchiveTest {
+
+    @TempDir
+    File directory;
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 10, 9, 0);
+    private final LocalDateTime now = start.plusDays(60);
+
+    private InMemoryTaskManager tm;
+    private TaskArchive archive;
+
+    @BeforeEach
+    void beforeEach() {
+        tm = new InMemoryTaskManager();
+        archive = new TaskArchive(new File(directory, "archive.dat"));
+        tm.setArchive(archive);
+    }
+
+    @Test
+    void archiveOldDoneTasksTest() {
+        int oldDone = tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        int recentDone = tm.createTask(new Task("recent", "des", Status.DONE, now.minusDays(1), Duration.ofHours(1)));
+        int inProgress = tm.createTask(new Task("active", "des", Status.IN_PROGRESS, start.plusDays(1), Duration.ofHours(1)));
+
+        assertEquals(1, tm.archiveCompleted(ArchivePolicy.doneOlderThan(Duration.ofDays(30)), now));
+
+        assertEquals(2, tm.getAllTask().size());
+        assertEquals(2, tm.getPrioritizedTasks().size());
+        assertTrue(archive.contains(oldDone));
+        assertFalse(archive.contains(recentDone));
+        assertFalse(archive.contains(inProgress));
+    }
+
+    @Test
+    void archivedTaskRetrievableByIdTest() {
+        int id = tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+
+        Task task = tm.getByIdTask(id).orElseThrow();
+        assertEquals("old", task.getName());
+        assertEquals(start, task.getStartTime());
+        assertTrue(tm.getByIdSubtask(id).isEmpty()); // тип задачи проверяется
+    }
+
+    @Test
+    void archivedSubtaskKeepsEpicDoneTest() {
+        int epicId = tm.createEpic(new Epic("epic", "des"));
+        int subtaskId = tm.createSubtask(new Subtask("sub", "des", Status.DONE, epicId, start, Duration.ofHours(1)));
+
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+        tm.updateEpicStatus(epicId);
+
+        assertTrue(tm.getAllSubtask().isEmpty());
+        assertEquals(Status.DONE, tm.getByIdEpic(epicId).orElseThrow().getStatus());
+        assertEquals(subtaskId, tm.getByIdSubtask(subtaskId).orElseThrow().getId());
+        assertEquals(1, tm.getEpicSubtask(tm.getByIdEpic(epicId).orElseThrow()).size());
+    }
+
+    @Test
+    void archiveIndexRestoredOnReopenTest() {
+        tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+        archive.close();
+
+        try (TaskArchive reopened = new TaskArchive(new File(directory, "archive.dat"))) {
+            assertEquals(1, reopened.size());
+            assertEquals(1, reopened.findAll(TaskStatus.TASK, task -> task.getName().equals("old")).size());
+            assertTrue(reopened.findAll(TaskStatus.SUBTASK, task -> true).isEmpty());
+        }
+    }
+
+    @Test
+    void removeArchivedTasksTest() {
+        int taskId = tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        int epicId = tm.createEpic(new Epic("epic", "des"));
+        int subtaskId = tm.createSubtask(new Subtask("sub", "des", Status.DONE, epicId, start.plusDays(1), Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+
+        assertEquals(1, tm.removeTaskById(taskId));
+        assertEquals(-1, tm.removeTaskById(taskId));
+        assertTrue(tm.getByIdTask(taskId).isEmpty());
+
+        assertEquals(1, tm.removeEpicById(epicId));
+        assertTrue(tm.getByIdSubtask(subtaskId).isEmpty());
+        assertEquals(0, archive.size());
+    }
+
+    @Test
+    void removeArchivedSubtaskUpdatesEpicTest() {
+        int epicId = tm.createEpic(new Epic("epic", "des"));
+        int subtaskId = tm.createSubtask(new Subtask("sub", "des", Status.DONE, epicId, start, Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+
+        assertEquals(1, tm.removeSubtaskById(subtaskId));
+        Epic epic = tm.getByIdEpic(epicId).orElseThrow();
+        assertTrue(epic.getEpicSubtask().isEmpty());
+        assertEquals(Status.NEW, epic.getStatus());
+        assertFalse(archive.contains(subtaskId));
+    }
+
+    @Test
+    void bulkRemoveClearsArchiveTest() {
+        tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        int epicId = tm.createEpic(new Epic("epic", "des"));
+        tm.createSubtask(new Subtask("sub", "des", Status.DONE, epicId, start.plusDays(1), Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+
+        tm.removeTasks();
+        assertEquals(1, archive.size());
+        tm.removeEpics();
+        assertEquals(0, archive.size());
+    }
+
+    @Test
+    void removedTaskStaysRemovedOnReopenTest() {
+        int removedId = tm.createTask(new Task("old", "des", Status.DONE, start, Duration.ofHours(1)));
+        int keptId = tm.createTask(new Task("kept", "des", Status.DONE, start.plusDays(1), Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+        tm.removeTaskById(removedId);
+        archive.close();
+
+        try (TaskArchive reopened = new TaskArchive(new File(directory, "archive.dat"))) {
+            assertFalse(reopened.contains(removedId));
+            assertTrue(reopened.contains(keptId));
+        }
+    }
+
+    @Test
+    void setArchiveRestoresIdsAndEpicSubtasksTest() {
+        int epicId = tm.createEpic(new Epic("epic", "des"));
+        int subtaskId = tm.createSubtask(new Subtask("sub", "des", Status.DONE, epicId, start, Duration.ofHours(1)));
+        tm.archiveCompleted(ArchivePolicy.allDone(), now);
+        archive.close();
+
+        // новый менеджер с тем же эпиком, но без подзадачи, как после загрузки из файла
+        InMemoryTaskManager reloaded = new InMemoryTaskManager();
+        reloaded.createEpic(new Epic("epic", "des"));
+        archive = new TaskArchive(new File(directory, "archive.dat"));
+        reloaded.setArchive(archive);
+
+        Epic epic = reloaded.getByIdEpic(epicId).orElseThrow();
+        assertEquals(List.of(subtaskId), epic.getEpicSubtask());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertTrue(reloaded.createTask(new Task("new", "des", Status.NEW)) > subtaskId);
+    }
+}
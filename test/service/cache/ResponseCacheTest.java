@@ -0,0 +1,63 @@
+package service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.ChangeType;
+import task.TaskStatus;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private ResponseCache cache;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new ResponseCache(100, 40);
+    }
+
+    @Test
+    void hitOnlyForSameVersionTest() {
+        cache.put("tasks", 5, new byte[10]);
+
+        assertNotNull(cache.get("tasks", 5));
+        assertNull(cache.get("tasks", 6));
+        assertEquals(0.5, cache.getStats().getHitRatio());
+    }
+
+    @Test
+    void changeInvalidatesListAndEntityTest() {
+        cache.put(ResponseCache.listKey(TaskStatus.TASK), 1, new byte[10]);
+        cache.put(ResponseCache.entityKey(TaskStatus.TASK, 3), 1, new byte[10]);
+        cache.put(ResponseCache.entityKey(TaskStatus.TASK, 4), 1, new byte[10]);
+        cache.put(ResponseCache.listKey(TaskStatus.EPIC), 1, new byte[10]);
+
+        cache.onChange(TaskStatus.TASK, 3, ChangeType.UPDATED, 2);
+
+        assertNull(cache.get("tasks", 1));
+        assertNull(cache.get("task-3", 1));
+        assertNotNull(cache.get("task-4", 1));
+        assertNotNull(cache.get("epics", 1));
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void evictionBySizeTest() {
+        for (int i = 0; i < 5; i++) {
+            cache.put("task-" + i, 1, new byte[30]);
+        }
+
+        assertEquals(3, cache.getStats().getSize());
+        assertEquals(90, cache.getStats().getWeight());
+        assertEquals(2, cache.getStats().getEvictions());
+        assertNull(cache.get("task-0", 1));
+    }
+
+    @Test
+    void largeResponseNotCachedTest() {
+        cache.put("tasks", 1, new byte[41]);
+
+        assertNull(cache.get("tasks", 1));
+        assertEquals(0, cache.getStats().getSize());
+    }
+}
@@ -0,0 +1,95 @@
+package service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLruCacheTest {
+
+    private Map<Integer, String> disk;
+    private SegmentedLruCache<Integer, String> cache;
+
+    @BeforeEach
+    void beforeEach() {
+        disk = new HashMap<>();
+        // каждая запись весит 1, в кэш помещается 5 записей
+        cache = new SegmentedLruCache<>(5, value -> 1, disk::put);
+    }
+
+    @Test
+    void hitAndMissTest() {
+        cache.put(1, "a", false);
+
+        assertEquals("a", cache.get(1));
+        assertNull(cache.get(2));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+    }
+
+    @Test
+    void evictionByWeightTest() {
+        for (int i = 1; i <= 7; i++) {
+            cache.put(i, "v" + i, false);
+        }
+
+        assertEquals(5, cache.getStats().getSize());
+        assertEquals(2, cache.getStats().getEvictions());
+        assertFalse(cache.contains(1));
+        assertFalse(cache.contains(2));
+    }
+
+    @Test
+    void protectedSegmentSurvivesScanTest() {
+        cache.put(1, "hot", false);
+        cache.get(1); // повторное обращение переносит запись в protected
+
+        // однократный проход по множеству новых записей не вытесняет горячую
+        for (int i = 2; i <= 20; i++) {
+            cache.put(i, "cold" + i, false);
+        }
+
+        assertTrue(cache.contains(1));
+    }
+
+    @Test
+    void dirtyEntryWrittenBackOnEvictionTest() {
+        cache.put(1, "dirty", true);
+        cache.put(2, "clean", false);
+        for (int i = 3; i <= 7; i++) {
+            cache.put(i, "v" + i, false);
+        }
+
+        assertEquals("dirty", disk.get(1));
+        assertFalse(disk.containsKey(2));
+        assertEquals(1, cache.getStats().getWriteBacks());
+    }
+
+    @Test
+    void flushWritesDirtyEntriesOnceTest() {
+        cache.put(1, "a", true);
+        cache.put(2, "b", true);
+
+        cache.flush();
+        cache.flush();
+
+        assertEquals(2, disk.size());
+        assertEquals(2, cache.getStats().getWriteBacks());
+    }
+
+    @Test
+    void invalidateDoesNotWriteBackTest() {
+        cache.put(1, "a", true);
+        cache.invalidate(1);
+        cache.flush();
+
+        assertTrue(disk.isEmpty());
+        assertFalse(cache.contains(1));
+    }
+}
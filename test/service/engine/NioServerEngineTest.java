@@ -0,0 +1,174 @@
+package service.engine;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.TaskManager;
+import service.cache.ResponseCache;
+import service.metrics.RouteMetrics;
+import service.utils.ServerExecutors;
+import task.Status;
+import task.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NioServerEngineTest {
+
+    private static final int PORT = 8082;
+    private static final int RAW_PORT = 8086;
+
+    private final TaskManager manager = new InMemoryTaskManager();
+    private final Gson gson = Managers.getGson();
+    private HttpTaskServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpTaskServer.builder(PORT, manager)
+                .responseCache(new ResponseCache(1024 * 1024, 64 * 1024))
+                .engine(new NioServerEngine())
+                .build();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void createAndListOverKeepAliveTest() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        String json = gson.toJson(new Task("Test", "Testing", Status.NEW));
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + PORT + "/tasks/task"))
+                        .POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, created.statusCode());
+
+        for (int i = 0; i < 3; i++) { // одно соединение на все запросы
+            HttpResponse<String> list = client.send(HttpRequest.newBuilder()
+                            .uri(URI.create("http://localhost:" + PORT + "/tasks/task")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, list.statusCode());
+            assertEquals(1, gson.fromJson(list.body(), Task[].class).length);
+        }
+
+        // NIO-движок сам считает байты ответа, без обёртки Router
+        long responseBytes = server.getMetrics().getRoutes().stream()
+                .filter(route -> route.getMethod().equals("GET") && route.getRoute().equals("/tasks/task"))
+                .mapToLong(RouteMetrics::getResponseBytes).sum();
+        assertTrue(responseBytes > 0);
+    }
+
+    @Test
+    void pipelinedRequestsAnsweredInOrderTest() throws IOException {
+        manager.createTask(new Task("Test", "Testing", Status.NEW));
+        String request = "GET /tasks/task/1 HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /tasks/missing HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+
+        try (Socket socket = new Socket("localhost", PORT)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            String responses = readAll(socket.getInputStream());
+            int first = responses.indexOf("HTTP/1.1 200");
+            int second = responses.indexOf("HTTP/1.1 404");
+            assertTrue(first >= 0 && second > first, responses);
+            assertTrue(responses.contains("\"name\":\"Test\""));
+        }
+    }
+
+    @Test
+    void callerRunsRejectionAnswers503Test() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NioServerEngine engine = new NioServerEngine();
+        // пул из одного потока с очередью на один запрос: третий запрос CallerRunsPolicy выполнил бы в потоке цикла
+        ExecutorService executor = ServerExecutors.boundedPool(1, 1);
+        engine.start(RAW_PORT, 16, exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, executor);
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                Socket socket = new Socket("localhost", RAW_PORT);
+                socket.setSoTimeout(5000); // при взаимной блокировке тест падает, а не зависает
+                socket.getOutputStream().write("GET / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                sockets.add(socket);
+                Thread.sleep(100); // запросы доходят до executor по порядку
+            }
+            String rejected = readAll(sockets.get(2).getInputStream());
+            assertTrue(rejected.startsWith("HTTP/1.1 503"), rejected);
+
+            release.countDown();
+            assertTrue(readAll(sockets.get(0).getInputStream()).startsWith("HTTP/1.1 204"));
+            assertTrue(readAll(sockets.get(1).getInputStream()).startsWith("HTTP/1.1 204"));
+        } finally {
+            release.countDown();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+            engine.stop();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void largeBodyReadIncrementallyTest() throws Exception {
+        NioServerEngine engine = new NioServerEngine();
+        ExecutorService executor = ServerExecutors.rejectingPool(2, 4);
+        engine.start(RAW_PORT, 16, exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            byte[] answer = Integer.toString(body.length + body[body.length - 1]).getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(200, answer.length);
+            exchange.getResponseBody().write(answer);
+            exchange.close();
+        }, executor);
+        try (Socket socket = new Socket("localhost", RAW_PORT)) {
+            byte[] body = new byte[100_000];
+            body[body.length - 1] = 7;
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST / HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\nContent-Length: " + body.length
+                    + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+
+            assertTrue(readAll(socket.getInputStream()).endsWith("\r\n\r\n100007"));
+        } finally {
+            engine.stop();
+            executor.shutdown();
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        in.transferTo(buffer); // сервер закрывает соединение после ответа с Connection: close
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,72 @@
+package service.events;
+
+import org.junit.jupiter.api.Test;
+import service.ChangeType;
+import task.TaskStatus;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeEventBusTest {
+
+    @Test
+    void resumesFromLastEventIdTest() throws InterruptedException {
+        ChangeEventBus bus = new ChangeEventBus(0, 16, 16, 4);
+        bus.onChange(TaskStatus.TASK, 1, ChangeType.CREATED, 1);
+        bus.onChange(TaskStatus.TASK, 1, ChangeType.UPDATED, 2);
+        bus.onChange(TaskStatus.TASK, 2, ChangeType.CREATED, 3);
+
+        Subscription subscription = bus.subscribe(1);
+
+        assertFalse(subscription.isReset());
+        assertEquals(2, subscription.pollNow().getVersion());
+        assertEquals(3, subscription.pollNow().getVersion());
+        assertNull(subscription.pollNow());
+
+        bus.onChange(TaskStatus.TASK, 2, ChangeType.DELETED, 4);
+        ChangeEvent event = subscription.poll(1, TimeUnit.SECONDS);
+        assertEquals(ChangeType.DELETED, event.getChange());
+        assertEquals(2, event.getId());
+    }
+
+    @Test
+    void resetWhenLogNoLongerCoversVersionTest() {
+        ChangeEventBus bus = new ChangeEventBus(0, 2, 16, 4);
+        for (int version = 1; version <= 5; version++) {
+            bus.onChange(TaskStatus.TASK, version, ChangeType.CREATED, version);
+        }
+
+        assertTrue(bus.subscribe(1).isReset());
+        assertFalse(bus.subscribe(3).isReset());
+        assertNull(bus.since(1));
+    }
+
+    @Test
+    void slowConsumerIsDisconnectedTest() throws InterruptedException {
+        ChangeEventBus bus = new ChangeEventBus(0, 16, 2, 4);
+        Subscription subscription = bus.subscribe(-1);
+
+        for (int version = 1; version <= 3; version++) {
+            bus.onChange(TaskStatus.TASK, version, ChangeType.CREATED, version);
+        }
+
+        assertTrue(subscription.isOverflowed());
+        assertEquals(1, bus.getSlowConsumerDisconnects());
+        assertEquals(0, bus.getSubscriberCount());
+        // уже принятые события дочитываются, затем поток заканчивается
+        assertEquals(1, subscription.poll(1, TimeUnit.SECONDS).getVersion());
+        assertEquals(2, subscription.poll(1, TimeUnit.SECONDS).getVersion());
+        assertNull(subscription.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void subscriberLimitTest() {
+        ChangeEventBus bus = new ChangeEventBus(0, 16, 2, 1);
+        Subscription first = bus.subscribe(-1);
+
+        assertNull(bus.subscribe(-1));
+        first.close();
+        assertNotNull(bus.subscribe(-1));
+    }
+}
@@ -0,0 +1,27 @@
+package service.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCompressionTest {
+
+    @Test
+    void thresholdIsExclusiveTest() {
+        ResponseCompression compression = new ResponseCompression(true, 1024, 6);
+
+        assertFalse(compression.shouldCompress(1023));
+        assertFalse(compression.shouldCompress(1024));
+        assertTrue(compression.shouldCompress(1025));
+    }
+
+    @Test
+    void acceptEncodingTest() {
+        ResponseCompression compression = ResponseCompression.defaults();
+
+        assertTrue(compression.isAccepted("deflate, gzip;q=0.8"));
+        assertFalse(compression.isAccepted("gzip;q=0"));
+        assertFalse(compression.isAccepted(null));
+        assertFalse(ResponseCompression.disabled().isAccepted("gzip"));
+    }
+}
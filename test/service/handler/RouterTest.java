@@ -0,0 +1,28 @@
+package service.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouterTest {
+
+    private static final String[] LIST = {"tasks", "task"};
+    private static final String[] BY_ID = {"tasks", "task", null};
+
+    @Test
+    void matchListRouteTest() {
+        assertEquals(Router.NO_ID, Router.match(LIST, "/tasks/task"));
+        assertEquals(Router.NO_ID, Router.match(LIST, "/tasks/task/"));
+        assertEquals(Integer.MIN_VALUE, Router.match(LIST, "/tasks/tasks"));
+        assertEquals(Integer.MIN_VALUE, Router.match(LIST, "/tasks"));
+    }
+
+    @Test
+    void idParsedInPlaceTest() {
+        assertEquals(42, Router.match(BY_ID, "/tasks/task/42"));
+        assertEquals(Integer.MIN_VALUE, Router.match(BY_ID, "/tasks/task/4a"));
+        assertEquals(Integer.MIN_VALUE, Router.match(BY_ID, "/tasks/task/"));
+        assertEquals(Integer.MIN_VALUE, Router.match(BY_ID, "/tasks/task/99999999999"));
+        assertEquals(Integer.MIN_VALUE, Router.match(BY_ID, "/tasks/task/1/extra"));
+    }
+}
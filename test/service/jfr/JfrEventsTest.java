@@ -0,0 +1,60 @@
+package service.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import service.InMemoryTaskManager;
+import service.TaskManager;
+import task.Status;
+import task.Task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @Test
+    void overlapCheckAndHistoryEventsRecordedTest() throws Exception {
+        Path file = Files.createTempFile("kanban", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("kanban.OverlapCheck").withThreshold(Duration.ZERO);
+            recording.enable("kanban.HistoryUpdate");
+            recording.start();
+
+            TaskManager manager = new InMemoryTaskManager();
+            LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+            int id = manager.createTask(new Task("Задача 1", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+            manager.createTask(new Task("Задача 2", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+            manager.getByIdTask(id);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        RecordedEvent overlap = events.stream()
+                .filter(event -> event.getEventType().getName().equals("kanban.OverlapCheck"))
+                .filter(event -> event.getBoolean("overlaps"))
+                .findFirst().orElseThrow();
+        assertEquals(1, overlap.getInt("candidates"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("kanban.HistoryUpdate")
+                && event.getInt("taskId") == 1));
+    }
+
+    @Test
+    void settingsProfileParsesTest() throws Exception {
+        // Профиль лежит рядом с событиями в исходниках и в classpath не копируется, поэтому читается по пути
+        Configuration configuration = Configuration.create(Path.of("src", "service", "jfr", "kanban.jfc"));
+
+        assertEquals("false", configuration.getSettings().get("kanban.HistoryUpdate#enabled"));
+        assertEquals("10 ms", configuration.getSettings().get("kanban.HttpExchange#threshold"));
+    }
+}
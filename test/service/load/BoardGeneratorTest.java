@@ -0,0 +1,133 @@
+package service.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.FileBackedTaskManager;
+import service.InMemoryTaskManager;
+import service.Managers;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardGeneratorTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void sameSeedSameBoardTest() throws IOException {
+        File first = new File(directory, "first.csv");
+        File second = new File(directory, "second.csv");
+        File other = new File(directory, "other.csv");
+
+        long written = new BoardGenerator(42, 50, 20).writeCsv(first);
+        new BoardGenerator(42, 50, 20).writeCsv(second);
+        new BoardGenerator(43, 50, 20).writeCsv(other);
+
+        assertEquals(Files.readAllLines(first.toPath()).size() - 1, written);
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        assertFalse(Files.readString(first.toPath()).equals(Files.readString(other.toPath())));
+    }
+
+    @Test
+    void realisticBoardTest() throws IOException {
+        List<Task> items = new ArrayList<>();
+        new BoardGenerator(7, 300, 200).generate(items::add);
+
+        List<Task> timed = new ArrayList<>();
+        Map<Status, Integer> statuses = new EnumMap<>(Status.class);
+        int maxSubtasks = 0;
+        int smallEpics = 0;
+        for (Task item : items) {
+            if (item instanceof Epic epic) {
+                maxSubtasks = Math.max(maxSubtasks, epic.getEpicSubtask().size());
+                smallEpics += epic.getEpicSubtask().size() <= 2 ? 1 : 0;
+                continue;
+            }
+            timed.add(item);
+            statuses.merge(item.getStatus(), 1, Integer::sum);
+            assertTrue(item.getDescription().length() >= 200 && !item.getDescription().contains(","));
+        }
+
+        assertEquals(200, items.stream().filter(Epic.class::isInstance).count());
+        // число подзадач скошено: большинство эпиков маленькие, но есть и крупные
+        assertTrue(smallEpics > 100, "Маленьких эпиков: " + smallEpics);
+        assertTrue(maxSubtasks >= 20, "Самый крупный эпик: " + maxSubtasks);
+        assertEquals(3, statuses.size());
+
+        LocalDateTime previousEnd = null;
+        for (Task task : timed) {
+            LocalDateTime start = task.getStartTime();
+            LocalDateTime end = task.getEndTime();
+            assertFalse(start.toLocalTime().isBefore(LocalTime.of(9, 0)));
+            assertFalse(end.toLocalTime().isAfter(LocalTime.of(18, 0)));
+            assertEquals(start.toLocalDate(), end.toLocalDate());
+            assertNotEquals(DayOfWeek.SATURDAY, start.getDayOfWeek());
+            assertNotEquals(DayOfWeek.SUNDAY, start.getDayOfWeek());
+            if (previousEnd != null) {
+                assertTrue(start.isAfter(previousEnd));
+            }
+            previousEnd = end;
+        }
+    }
+
+    @Test
+    void fillManagerTest() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        List<Task> items = new ArrayList<>();
+        BoardGenerator generator = new BoardGenerator(3, 40, 10);
+        generator.generate(items::add);
+
+        generator.fill(manager);
+
+        assertEquals(40, manager.getAllTask().size());
+        assertEquals(10, manager.getAllEpic().size());
+        long subtasks = items.stream().filter(Subtask.class::isInstance).count();
+        assertEquals(subtasks, manager.getAllSubtask().size());
+        assertEquals(40 + subtasks, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void csvLoadsIntoFileBackedManagerTest() throws IOException {
+        File file = new File(directory, "board.csv");
+        long written = new BoardGenerator(5, 30, 5).writeCsv(file);
+
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(30, manager.getAllTask().size());
+        assertEquals(5, manager.getAllEpic().size());
+        assertEquals(written - 35, manager.getAllSubtask().size());
+    }
+
+    @Test
+    void jsonArraysTest() throws IOException {
+        long written = new BoardGenerator(5, 30, 5).writeJson(directory);
+
+        Task[] tasks = Managers.getGson().fromJson(
+                Files.readString(new File(directory, "tasks.json").toPath()), Task[].class);
+        Epic[] epics = Managers.getGson().fromJson(
+                Files.readString(new File(directory, "epics.json").toPath()), Epic[].class);
+        Subtask[] subtasks = Managers.getGson().fromJson(
+                Files.readString(new File(directory, "subtasks.json").toPath()), Subtask[].class);
+
+        assertEquals(30, tasks.length);
+        assertEquals(5, epics.length);
+        assertEquals(written, tasks.length + epics.length + subtasks.length);
+        assertEquals(subtasks.length, Arrays.stream(epics).mapToInt(e -> e.getEpicSubtask().size()).sum());
+    }
+}
@@ -0,0 +1,104 @@
+package service.load;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+
+    private static final int PORT = 8083;
+
+    private final InMemoryTaskManager manager = new InMemoryTaskManager();
+    private HttpTaskServer server;
+
+    @AfterEach
+    void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void parseMixTest() {
+        LoadMix mix = LoadMix.parse("getTask=3, postTask=1,getTask=1");
+
+        assertEquals(Map.of(LoadOperation.GET_TASK, 4, LoadOperation.POST_TASK, 1), mix.getWeights());
+        assertEquals("getTask=4,postTask=1", mix.toString());
+        assertFalse(LoadMix.parse("read").getWeights().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("getTask=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadMix.parse("unknown=1"));
+    }
+
+    @Test
+    void mixFollowsWeightsTest() {
+        LoadMix mix = LoadMix.parse("getTask=3,deleteTask=1");
+        Random random = new Random(7);
+        int gets = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (mix.pick(random) == LoadOperation.GET_TASK) {
+                gets++;
+            }
+        }
+
+        assertEquals(7_500, gets, 300);
+    }
+
+    @Test
+    void constantRateRunTest() throws Exception {
+        server = new HttpTaskServer(PORT, manager);
+        server.start();
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + PORT), LoadMix.balanced(),
+                200, Duration.ofSeconds(1), Duration.ZERO);
+        generator.seed(20, 2, 3);
+
+        LoadReport report = generator.run();
+
+        // открытая модель: за секунду при 200 запросах в секунду отправляется 200 запросов независимо от ответов
+        assertEquals(200, report.getCompleted() + report.getErrors() + report.getDropped());
+        assertEquals(0, report.getErrors());
+        long serverErrors = 0;
+        for (LoadOperation operation : LoadOperation.values()) {
+            serverErrors += report.getOperation(operation).getStatusClass(5);
+        }
+        assertEquals(0, serverErrors);
+        LoadReport.OperationStats getTask = report.getOperation(LoadOperation.GET_TASK);
+        assertEquals(getTask.getSent(), getTask.getStatusClass(2));
+        // время ответа включает ожидание отправки, поэтому не меньше времени обслуживания
+        assertTrue(report.getResponseTime().getMax() >= report.getServiceTime().getMax());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        report.print(new PrintStream(output, true, StandardCharsets.UTF_8));
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("getTask"));
+    }
+
+    @Test
+    void boardRunTest() throws Exception {
+        BoardGenerator board = new BoardGenerator(3, 50, 5);
+        board.fill(manager);
+        server = new HttpTaskServer(PORT, manager);
+        server.start();
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + PORT), LoadMix.balanced(),
+                100, Duration.ofSeconds(1), Duration.ZERO);
+        generator.useBoard(board);
+
+        LoadReport report = generator.run();
+
+        assertEquals(0, report.getErrors());
+        // GET по id доски находят задачи, а новые задачи не пересекаются с её интервалами
+        LoadReport.OperationStats getTask = report.getOperation(LoadOperation.GET_TASK);
+        assertEquals(getTask.getSent(), getTask.getStatusClass(2));
+        LoadReport.OperationStats postTask = report.getOperation(LoadOperation.POST_TASK);
+        assertEquals(postTask.getSent(), postTask.getStatusClass(2));
+    }
+}
@@ -0,0 +1,69 @@
+package service.metrics;
+
+import org.junit.jupiter.api.Test;
+import service.InMemoryTaskManager;
+import task.Epic;
+import task.Status;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapFootprintTest {
+
+    private final InMemoryTaskManager manager = new InMemoryTaskManager();
+
+    @Test
+    void tracksEntitiesIncrementallyTest() {
+        int id = manager.createTask(new Task("Задача", "Описание", Status.NEW,
+                LocalDateTime.of(2025, 3, 3, 9, 0), Duration.ofMinutes(30)));
+        HeapFootprint footprint = manager.getHeapFootprint(); // задачи, созданные раньше, учитываются при включении
+        HeapFootprint.Usage tasks = footprint.getUsage(HeapFootprint.Category.TASKS);
+        assertEquals(1, tasks.getEntries());
+        assertEquals(HeapFootprint.entitySize(manager.getAllTask().iterator().next()), tasks.getBytes());
+        assertEquals(1, footprint.getUsage(HeapFootprint.Category.PRIORITIZED).getEntries());
+
+        Task longer = new Task(id, "Задача", "Описание".repeat(100), Status.DONE);
+        manager.updateTask(longer);
+        assertTrue(footprint.getUsage(HeapFootprint.Category.TASKS).getBytes() > tasks.getBytes() + 1000);
+        assertEquals(1, footprint.getUsage(HeapFootprint.Category.TASKS).getEntries());
+
+        int epicId = manager.createEpic(new Epic("Эпик", "Описание"));
+        manager.getByIdEpic(epicId);
+        assertEquals(1, footprint.getUsage(HeapFootprint.Category.HISTORY).getEntries());
+        // каждый эпик держит собственный менеджер, поэтому он заметно тяжелее задачи
+        assertTrue(footprint.getUsage(HeapFootprint.Category.EPICS).getBytes() > tasks.getBytes());
+
+        manager.removeTaskById(id);
+        manager.removeEpicById(epicId);
+        assertEquals(0, footprint.getUsage(HeapFootprint.Category.TASKS).getBytes());
+        assertEquals(0, footprint.getUsage(HeapFootprint.Category.EPICS).getEntries());
+        assertEquals(0, footprint.getUsage(HeapFootprint.Category.ACCOUNTING).getEntries());
+    }
+
+    @Test
+    void softLimitWarnsOnceUntilUsageDropsTest() {
+        HeapFootprint footprint = manager.getHeapFootprint();
+        footprint.setSoftLimit(HeapFootprint.Category.TASKS, 1);
+
+        int first = manager.createTask(new Task("Задача 1", "Описание", Status.NEW));
+        manager.createTask(new Task("Задача 2", "Описание", Status.NEW));
+        assertEquals(1, footprint.getWarnings());
+
+        manager.removeTasks();
+        manager.createTask(new Task("Задача 3", "Описание", Status.NEW));
+        assertEquals(2, footprint.getWarnings());
+        assertTrue(first > 0);
+    }
+
+    @Test
+    void layoutTest() {
+        assertEquals(HeapLayout.align(HeapLayout.OBJECT_HEADER), HeapLayout.shallowSize(Object.class));
+        assertEquals(0, HeapLayout.shallowSize(Long.class) % HeapLayout.ALIGNMENT);
+        assertTrue(HeapLayout.stringSize("абвгдеёжзи") > HeapLayout.stringSize("abcdefghij"));
+        assertEquals(64L * 1024 * 1024, HeapFootprint.parseBytes("64m"));
+        assertEquals(1500, HeapFootprint.parseBytes("1500"));
+    }
+}
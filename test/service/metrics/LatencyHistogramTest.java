@@ -0,0 +1,38 @@
+package service.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsCoverValuesWithBoundedErrorTest() {
+        for (long value : new long[]{0, 1, 31, 32, 33, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+
+            assertTrue(upper >= value, "Корзина должна содержать значение " + value);
+            assertTrue(upper - value <= value / 16, "Погрешность больше 1/16 для " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperBound(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    void percentilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.percentile(0.5), 500_000 / 16.0);
+        assertEquals(990_000, histogram.percentile(0.99), 990_000 / 16.0);
+        assertEquals(1_000_000, histogram.percentile(0.999), 1_000_000 / 16.0);
+        assertEquals(500_500, histogram.getMean(), 0.001);
+        assertEquals(0, new LatencyHistogram().percentile(0.99));
+    }
+}
@@ -0,0 +1,132 @@
+package service.replay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.HttpTaskServer;
+import service.InMemoryTaskManager;
+import service.Managers;
+import service.engine.NioServerEngine;
+import task.Status;
+import task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficReplayTest {
+
+    private static final int RECORD_PORT = 8084;
+    private static final int REPLAY_PORT = 8085;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpTaskServer recorded;
+    private HttpTaskServer replayed;
+
+    @AfterEach
+    void stopServers() {
+        if (recorded != null) {
+            recorded.stop();
+        }
+        if (replayed != null) {
+            replayed.stop();
+        }
+    }
+
+    @Test
+    void logRoundTripTest() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] body = "{\"name\":\"задача\"}".getBytes(StandardCharsets.UTF_8);
+        try (TrafficLog.Writer writer = new TrafficLog.Writer(bytes)) {
+            writer.write(new TrafficRecord(5_000_000, "POST", "/tasks/task", null, null, body, 201, false,
+                    "{}".getBytes(StandardCharsets.UTF_8)));
+            // записи идут в порядке завершения, время может убывать
+            writer.write(new TrafficRecord(4_000_000, "GET", "/tasks/task?limit=2", "gzip", "\"v1\"", new byte[0],
+                    304, true, null));
+        }
+
+        try (TrafficLog.Reader reader = new TrafficLog.Reader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            TrafficRecord first = reader.next();
+            TrafficRecord second = reader.next();
+            assertNull(reader.next());
+
+            assertEquals(5_000_000, first.getOffsetNanos());
+            assertArrayEquals(body, first.getBody());
+            assertNull(first.getAcceptEncoding());
+            assertEquals("{}", new String(first.getResponse(), StandardCharsets.UTF_8));
+            assertEquals(4_000_000, second.getOffsetNanos());
+            assertEquals("GET /tasks/task", second.getRoute());
+            assertEquals("gzip", second.getAcceptEncoding());
+            assertEquals("\"v1\"", second.getIfNoneMatch());
+            assertEquals(304, second.getStatus());
+            assertTrue(second.isGzip());
+            assertNull(second.getResponse());
+        }
+        assertEquals("DELETE /tasks/task/{id}", new TrafficRecord(0, "DELETE", "/tasks/task/15", null, null,
+                new byte[0], 201, false, null).getRoute());
+    }
+
+    @Test
+    void replayMatchesRecordedResponsesTest() throws Exception {
+        recorded = new HttpTaskServer(RECORD_PORT, new InMemoryTaskManager());
+        recorded.start();
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        recorded.getTrafficRecorder().start(log, true);
+        produceTraffic();
+        recorded.getTrafficRecorder().stop();
+        assertEquals(9, recorded.getTrafficRecorder().getRecorded());
+
+        // тот же трафик на пустом сервере с другим движком даёт те же ответы
+        replayed = HttpTaskServer.builder(REPLAY_PORT, new InMemoryTaskManager()).engine(new NioServerEngine()).build();
+        replayed.start();
+        TrafficReplayer replayer = new TrafficReplayer(URI.create("http://localhost:" + REPLAY_PORT), 0);
+        ReplayReport first = replay(replayer, log);
+
+        assertEquals(9, first.getReplayed());
+        assertEquals(0, first.getMismatches(), String.join("\n", first.getSamples()));
+        assertEquals(2, first.getRoutes().get("GET /tasks/task/{id}").getLatency().getCount());
+        assertTrue(first.getThroughput() > 0);
+
+        // повтор на том же сервере: id уже заняты, ответы расходятся
+        ReplayReport second = replay(replayer, log);
+        assertTrue(second.getMismatches() > 0);
+        assertFalse(second.getSamples().isEmpty());
+    }
+
+    private ReplayReport replay(TrafficReplayer replayer, ByteArrayOutputStream log) throws Exception {
+        try (TrafficLog.Reader reader = new TrafficLog.Reader(new ByteArrayInputStream(log.toByteArray()))) {
+            return replayer.replay(reader);
+        }
+    }
+
+    private void produceTraffic() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 3, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            Task task = new Task("Задача " + i, "Описание", Status.NEW, start.plusHours(i), Duration.ofMinutes(30));
+            send(HttpRequest.newBuilder(uri("/tasks/task"))
+                    .POST(HttpRequest.BodyPublishers.ofString(Managers.getGson().toJson(task))));
+        }
+        send(HttpRequest.newBuilder(uri("/tasks/task/1")).GET());
+        send(HttpRequest.newBuilder(uri("/tasks/task/2")).GET());
+        send(HttpRequest.newBuilder(uri("/tasks/task")).header("Accept-Encoding", "gzip").GET());
+        send(HttpRequest.newBuilder(uri("/tasks/task/3")).DELETE());
+        send(HttpRequest.newBuilder(uri("/tasks/history")).GET());
+        send(HttpRequest.newBuilder(uri("/tasks/task/3")).DELETE()); // уже удалена: 404 тоже записывается
+    }
+
+    private void send(HttpRequest.Builder request) throws Exception {
+        client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + RECORD_PORT + path);
+    }
+}
@@ -0,0 +1,69 @@
+package service.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void rejectsWhenQueueIsFullTest() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 0, Duration.ZERO);
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(0);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void waitingRequestTimesOutTest() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, Duration.ofMillis(20));
+        limiter.tryAcquire();
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getTimedOut());
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void waitingRequestAdmittedAfterReleaseTest() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 1, 1, Duration.ofSeconds(5));
+        limiter.tryAcquire();
+
+        Thread releaser = new Thread(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException ignored) {
+                // завершение теста
+            }
+            limiter.release(0);
+        });
+        releaser.start();
+
+        assertTrue(limiter.tryAcquire());
+        releaser.join();
+        assertEquals(2, limiter.getAdmitted());
+    }
+
+    @Test
+    void adaptiveLimitFollowsLatencyTest() throws InterruptedException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 10, 2, 20, 0, Duration.ZERO,
+                Duration.ofMillis(1));
+
+        limiter.tryAcquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(0);
+        }
+        assertTrue(limiter.getLimit() > 9);
+    }
+}
@@ -0,0 +1,71 @@
+package service.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import service.Managers;
+import task.Epic;
+import task.Status;
+import task.Subtask;
+import task.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskTypeAdapterFactoryTest {
+
+    private final Gson gson = Managers.getGson();
+
+    @Test
+    void roundTripKeepsTypeAndFieldsTest() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 7, 9, 5, 1);
+        Task task = new Task(1, "Задача", "Описание", Status.IN_PROGRESS, start, Duration.ofMinutes(30));
+        Subtask subtask = new Subtask(2, "Подзадача", "Описание", Status.DONE, start, Duration.ofMinutes(5), 3);
+        Epic epic = new Epic(3, "Эпик", "Описание", Status.NEW);
+        epic.addEpicSubtask(2);
+
+        String json = gson.toJson(List.of(task, subtask, epic));
+        List<Task> restored = new ArrayList<>();
+        for (JsonElement element : JsonParser.parseString(json).getAsJsonArray()) {
+            restored.add(TaskTypeAdapterFactory.anyType().fromJsonTree(element));
+        }
+
+        assertEquals(Task.class, restored.get(0).getClass());
+        assertEquals(start, restored.get(0).getStartTime());
+        assertEquals(Duration.ofMinutes(30), restored.get(0).getDuration());
+        assertEquals(3, ((Subtask) restored.get(1)).getEpicId());
+        assertEquals(Status.DONE, restored.get(1).getStatus());
+        assertEquals(List.of(2), ((Epic) restored.get(2)).getEpicSubtask());
+    }
+
+    @Test
+    void typeTakenFromRequestedClassTest() {
+        Subtask subtask = gson.fromJson("{\"name\":\"a\",\"status\":\"NEW\",\"epicId\":4}", Subtask.class);
+
+        assertEquals(4, subtask.getEpicId());
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"type\":\"TASK\"}", Subtask.class));
+        assertThrows(JsonParseException.class, () -> gson.fromJson("{\"type\":\"EPIC\"}", Task.class));
+    }
+
+    @Test
+    void invalidFieldValuesRejectedTest() {
+        for (String json : List.of("{\"type\":\"STORY\"}", "{\"status\":\"OPEN\"}", "{\"startTime\":\"tomorrow\"}",
+                "{\"duration\":\"5 min\"}", "{\"id\":\"one\"}")) {
+            assertThrows(JsonParseException.class, () -> gson.fromJson(json, Task.class), json);
+        }
+    }
+
+    @Test
+    void dateFormatMatchesPatternTest() {
+        LocalDateTime time = LocalDateTime.of(987, 12, 31, 23, 59, 58);
+
+        assertEquals("31-12-0987 23:59:58", LocalDateTimeAdapter.format(time));
+        assertEquals(time, LocalDateTimeAdapter.parse("31-12-0987 23:59:58"));
+    }
+}